@@ -0,0 +1,61 @@
+package com.amazonaws.samples.qdevmovies.benchmarks;
+
+import com.amazonaws.samples.qdevmovies.movies.Movie;
+import com.amazonaws.samples.qdevmovies.movies.MovieColumns;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares a year-and-rating filter written as a stream over {@code List<Movie>} with the
+ * same filter chained over {@link MovieColumns}. The retained heap of both catalog forms
+ * is measured with JOL and printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g", "-Djdk.attach.allowAttachSelf=true"})
+public class ColumnScanBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int catalogSize;
+
+    private List<Movie> movies;
+    private MovieColumns columns;
+
+    @Setup
+    public void setUp() {
+        movies = new SyntheticCatalog().movies(catalogSize);
+        columns = new MovieColumns(movies);
+        System.out.printf("Retained heap: List<Movie> %,d bytes, MovieColumns %,d bytes%n",
+            GraphLayout.parseInstance(movies).totalSize(), GraphLayout.parseInstance(columns).totalSize());
+    }
+
+    @Benchmark
+    public List<Movie> objectStream() {
+        return movies.stream()
+            .filter(movie -> movie.getYear() >= 1990 && movie.getYear() <= 2010)
+            .filter(movie -> movie.getImdbRating() >= 4.0)
+            .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public int[] columnScan() {
+        return columns.selectRatings(4.0, Double.MAX_VALUE, columns.selectYears(1990, 2010, null));
+    }
+}
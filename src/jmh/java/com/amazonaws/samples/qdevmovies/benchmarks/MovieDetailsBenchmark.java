@@ -0,0 +1,73 @@
+package com.amazonaws.samples.qdevmovies.benchmarks;
+
+import com.amazonaws.samples.qdevmovies.movies.Movie;
+import com.amazonaws.samples.qdevmovies.movies.Review;
+import com.amazonaws.samples.qdevmovies.movies.ReviewService;
+import com.amazonaws.samples.qdevmovies.utils.MovieIconUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-movie lookups behind the details page: the review store and the icon
+ * lookup, against synthetic catalogs of growing size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class MovieDetailsBenchmark {
+    private static final int LOOKUPS = 1 << 12;
+
+    @Param({"100", "10000", "1000000"})
+    public int catalogSize;
+
+    private ReviewService reviewService;
+    private long[] ids;
+    private String[] movieNames;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        SyntheticCatalog catalog = new SyntheticCatalog();
+        Path reviews = Files.createTempFile("synthetic-reviews", ".json");
+        try {
+            catalog.writeReviews(catalogSize, reviews);
+            reviewService = new ReviewService(reviews);
+        } finally {
+            Files.delete(reviews);
+        }
+        ids = SyntheticCatalog.lookupIds(catalogSize, LOOKUPS);
+        List<Movie> movies = catalog.movies(catalogSize);
+        movieNames = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            movieNames[i] = movies.get((int) ((ids[i] - 1) % catalogSize)).getMovieName();
+        }
+    }
+
+    @Benchmark
+    public List<Review> getReviewsForMovie() {
+        return reviewService.getReviewsForMovie(ids[next++ & (LOOKUPS - 1)]);
+    }
+
+    @Benchmark
+    public String getMovieIcon() {
+        return MovieIconUtils.getMovieIcon(movieNames[next++ & (LOOKUPS - 1)]);
+    }
+}
@@ -0,0 +1,83 @@
+package com.amazonaws.samples.qdevmovies.benchmarks;
+
+import com.amazonaws.samples.qdevmovies.movies.Movie;
+import com.amazonaws.samples.qdevmovies.movies.MovieIdIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the boxed {@code HashMap<Long, Integer>} id map that {@link MovieIdIndex}
+ * replaced with the index itself, for contiguous ids and for scattered ids that force
+ * the hash table. Besides lookup throughput, the retained heap of both structures is
+ * measured with JOL and printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g", "-Djdk.attach.allowAttachSelf=true"})
+public class MovieIdIndexBenchmark {
+    private static final int LOOKUPS = 1 << 12;
+
+    @Param({"10000", "1000000"})
+    public int catalogSize;
+
+    @Param({"contiguous", "scattered"})
+    public String ids;
+
+    private Map<Long, Integer> hashMap;
+    private MovieIdIndex idIndex;
+    private long[] lookups;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        List<Movie> movies = new SyntheticCatalog().movies(catalogSize);
+        if ("scattered".equals(ids)) {
+            List<Movie> scattered = new ArrayList<>(movies.size());
+            for (Movie movie : movies) {
+                scattered.add(new Movie(movie.getId() * 7919, movie.getMovieName(), movie.getDirector(), movie.getYear(),
+                    movie.getGenre(), movie.getDescription(), movie.getDuration(), movie.getImdbRating()));
+            }
+            movies = scattered;
+        }
+        hashMap = new HashMap<>();
+        for (int i = 0; i < movies.size(); i++) {
+            hashMap.put(movies.get(i).getId(), i);
+        }
+        idIndex = MovieIdIndex.of(movies);
+        lookups = SyntheticCatalog.lookupIds(catalogSize, LOOKUPS);
+        for (int i = 0; i < LOOKUPS; i++) {
+            lookups[i] = "scattered".equals(ids) ? lookups[i] * 7919 : lookups[i];
+        }
+        System.out.printf("Retained heap: HashMap<Long, Integer> %,d bytes, MovieIdIndex %,d bytes%n",
+            GraphLayout.parseInstance(hashMap).totalSize(), GraphLayout.parseInstance(idIndex).totalSize());
+    }
+
+    @Benchmark
+    public Integer hashMap() {
+        return hashMap.get(lookups[next++ & (LOOKUPS - 1)]);
+    }
+
+    @Benchmark
+    public int idIndex() {
+        return idIndex.positionOf(lookups[next++ & (LOOKUPS - 1)]);
+    }
+}
@@ -0,0 +1,136 @@
+package com.amazonaws.samples.qdevmovies.benchmarks;
+
+import com.amazonaws.samples.qdevmovies.movies.BoundedCache;
+import com.amazonaws.samples.qdevmovies.movies.Movie;
+import com.amazonaws.samples.qdevmovies.movies.MovieQuery;
+import com.amazonaws.samples.qdevmovies.movies.MovieRanges;
+import com.amazonaws.samples.qdevmovies.movies.MovieService;
+import com.amazonaws.samples.qdevmovies.movies.SearchKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures compiled {@link MovieQuery} evaluation. The {@code count*} benchmarks evaluate
+ * a precompiled query and fail the run if they allocate: {@link AllocationBudget} reads the
+ * benchmark thread's allocation counter around every iteration and allows no more than
+ * {@value #MAX_COUNT_BYTES_PER_OP} bytes per operation, which covers the harness's own
+ * per-iteration allocations. The {@code search*} benchmarks compile and collect per call,
+ * the cost of an uncached search, and are only measured; run with {@code -prof gc} (the
+ * default) to see their allocation per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class MovieQueryBenchmark {
+    static final int MAX_COUNT_BYTES_PER_OP = 16;
+
+    @Param({"10000", "1000000"})
+    public int catalogSize;
+
+    private MovieService movieService;
+    private final SearchKey broadName = SearchKey.of("the", null, null);
+    private final SearchKey nameAndGenre = SearchKey.of("dream", null, "drama");
+    private final SearchKey idAndName = SearchKey.of("life", 5L, null);
+    private final SearchKey genreAndRanges = SearchKey.of(null, null, "drama", new MovieRanges(1990, 1999, null, null, 4.0, null, null, null));
+    private MovieQuery broadNameQuery;
+    private MovieQuery nameAndGenreQuery;
+    private MovieQuery idAndNameQuery;
+    private MovieQuery genreAndRangesQuery;
+
+    @Setup
+    public void setUp() {
+        List<Movie> movies = new SyntheticCatalog().movies(catalogSize);
+        movieService = new MovieService(() -> movies, new MovieService.Options().searchCache(BoundedCache.EvictionPolicy.LRU, 0));
+        broadNameQuery = movieService.compile(broadName);
+        nameAndGenreQuery = movieService.compile(nameAndGenre);
+        idAndNameQuery = movieService.compile(idAndName);
+        genreAndRangesQuery = movieService.compile(genreAndRanges);
+    }
+
+    @Benchmark
+    public int countBroadName(AllocationBudget budget) {
+        budget.operations++;
+        return broadNameQuery.count();
+    }
+
+    @Benchmark
+    public int countNameAndGenre(AllocationBudget budget) {
+        budget.operations++;
+        return nameAndGenreQuery.count();
+    }
+
+    @Benchmark
+    public int countIdAndName(AllocationBudget budget) {
+        budget.operations++;
+        return idAndNameQuery.count();
+    }
+
+    @Benchmark
+    public int countGenreAndRanges(AllocationBudget budget) {
+        budget.operations++;
+        return genreAndRangesQuery.count();
+    }
+
+    @Benchmark
+    public List<Movie> searchBroadName() {
+        return movieService.compile(broadName).movies();
+    }
+
+    @Benchmark
+    public List<Movie> searchNameAndGenre() {
+        return movieService.compile(nameAndGenre).movies();
+    }
+
+    @Benchmark
+    public List<Movie> searchIdAndName() {
+        return movieService.compile(idAndName).movies();
+    }
+
+    @Benchmark
+    public List<Movie> searchGenreAndRanges() {
+        return movieService.compile(genreAndRanges).movies();
+    }
+
+    @State(Scope.Thread)
+    public static class AllocationBudget {
+        private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        long operations;
+        private long startBytes;
+
+        @Setup(Level.Iteration)
+        public void start() {
+            operations = 0;
+            startBytes = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+
+        @TearDown(Level.Iteration)
+        public void check() {
+            long allocated = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) - startBytes;
+            double perOperation = operations > 0 ? (double) allocated / operations : 0;
+            if (perOperation > MAX_COUNT_BYTES_PER_OP) {
+                throw new IllegalStateException(String.format(
+                    "Query evaluation allocated %.1f bytes per operation, budget is %d", perOperation, MAX_COUNT_BYTES_PER_OP));
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.amazonaws.samples.qdevmovies.benchmarks;
+
+import com.amazonaws.samples.qdevmovies.movies.BoundedCache;
+import com.amazonaws.samples.qdevmovies.movies.Movie;
+import com.amazonaws.samples.qdevmovies.movies.MovieService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link MovieService} read paths against synthetic catalogs of growing size.
+ * Each benchmark reports throughput and a latency distribution; add {@code -prof gc} for
+ * the allocation rate.
+ * <p>
+ * {@code searchCacheWeight=0} measures the index itself, while the default weight shows
+ * what repeated searches cost once their matches are cached.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class MovieServiceBenchmark {
+    private static final int LOOKUPS = 1 << 12;
+
+    @Param({"100", "10000", "1000000"})
+    public int catalogSize;
+
+    @Param({"0", "8388608"})
+    public long searchCacheWeight;
+
+    private MovieService movieService;
+    private long[] ids;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        List<Movie> movies = new SyntheticCatalog().movies(catalogSize);
+        movieService = new MovieService(() -> movies,
+            new MovieService.Options().searchCache(BoundedCache.EvictionPolicy.LRU, searchCacheWeight));
+        ids = SyntheticCatalog.lookupIds(catalogSize, LOOKUPS);
+    }
+
+    private long nextId() {
+        return ids[next++ & (LOOKUPS - 1)];
+    }
+
+    /** Common word: matches a large share of the catalog. */
+    @Benchmark
+    public List<Movie> searchByBroadName() {
+        return movieService.searchMovies("the", null, null);
+    }
+
+    /** Rare substring: matches a handful of titles. */
+    @Benchmark
+    public List<Movie> searchBySelectiveName() {
+        return movieService.searchMovies("prison esc", null, null);
+    }
+
+    @Benchmark
+    public List<Movie> searchByGenre() {
+        return movieService.searchMovies(null, null, "sci-fi");
+    }
+
+    @Benchmark
+    public List<Movie> searchByNameAndGenre() {
+        return movieService.searchMovies("dream", null, "drama");
+    }
+
+    @Benchmark
+    public List<Movie> searchById() {
+        return movieService.searchMovies(null, nextId(), null);
+    }
+
+    @Benchmark
+    public List<Movie> searchWithoutMatches() {
+        return movieService.searchMovies("zzzz", null, null);
+    }
+
+    @Benchmark
+    public Optional<Movie> getMovieById() {
+        return movieService.getMovieById(nextId());
+    }
+
+    @Benchmark
+    public List<String> getAllGenres() {
+        return movieService.getAllGenres();
+    }
+}
@@ -0,0 +1,87 @@
+package com.amazonaws.samples.qdevmovies.benchmarks;
+
+import com.amazonaws.samples.qdevmovies.movies.BoundedCache;
+import com.amazonaws.samples.qdevmovies.movies.Movie;
+import com.amazonaws.samples.qdevmovies.movies.MoviePage;
+import com.amazonaws.samples.qdevmovies.movies.MoviePageRequest;
+import com.amazonaws.samples.qdevmovies.movies.MovieService;
+import com.amazonaws.samples.qdevmovies.movies.ParallelSearch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares sequential and fork-join search over growing catalogs to locate the size at
+ * which {@code movies.parallel-search.threshold} should switch the pool on. The search
+ * cache is disabled and only the first page is built, so the scores are dominated by
+ * finding and ordering the matches.
+ * <p>
+ * In parallel mode the threshold is zero, so every catalog size goes through the pool
+ * (apart from searches too selective to be worth it, which fall back on their own).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ParallelSearchBenchmark {
+    @Param({"10000", "100000", "300000", "1000000"})
+    public int catalogSize;
+
+    @Param({"sequential", "parallel"})
+    public String mode;
+
+    private ParallelSearch parallelSearch;
+    private MovieService movieService;
+    private final MoviePageRequest firstPage = new MoviePageRequest(20, null, null, null);
+
+    @Setup
+    public void setUp() {
+        List<Movie> movies = new SyntheticCatalog().movies(catalogSize);
+        parallelSearch = "parallel".equals(mode) ? new ParallelSearch(true, 0, 16384, 0) : ParallelSearch.DISABLED;
+        movieService = new MovieService(() -> movies, new MovieService.Options()
+            .searchCache(BoundedCache.EvictionPolicy.LRU, 0)
+            .parallelSearch(parallelSearch));
+    }
+
+    @TearDown
+    public void tearDown() {
+        parallelSearch.shutdown();
+    }
+
+    /** One-letter genre term: below trigram length, so every genre value is checked. */
+    @Benchmark
+    public MoviePage broadGenre() {
+        return movieService.searchPage(null, null, "a", firstPage);
+    }
+
+    /** One-letter name term: every distinct title is checked. */
+    @Benchmark
+    public MoviePage broadName() {
+        return movieService.searchPage("e", null, null, firstPage);
+    }
+
+    @Benchmark
+    public MoviePage nameAndGenre() {
+        return movieService.searchPage("the", null, "drama", firstPage);
+    }
+
+    /** Matches a handful of titles; stays on the request thread in both modes. */
+    @Benchmark
+    public MoviePage selectiveName() {
+        return movieService.searchPage("prison esc", null, null, firstPage);
+    }
+}
@@ -0,0 +1,87 @@
+package com.amazonaws.samples.qdevmovies.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test for the embedded Tomcat: boots the application on a random port and has 256
+ * client threads, more than Tomcat's default 200 workers, issue keep-alive requests against
+ * {@code /movies}, {@code /movies/search} and {@code /movies/{id}/details}. Throughput mode
+ * gives requests per second and sample-time mode the latency percentiles, including p0.99.
+ * <p>
+ * {@code threads=virtual} needs the {@code virtual-threads} profile (and JDK 21):
+ * {@code mvn -Pbenchmarks,virtual-threads test-compile exec:exec -Djmh.args="RequestThreadsBenchmark"}.
+ * Without it, run only the platform pool with {@code -p threads=platform}. The response
+ * cache is off so every request reaches the controller, and application logging is kept at
+ * its DEBUG default so requests still pay for it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-Dhttp.maxConnections=256"})
+@Threads(256)
+public class RequestThreadsBenchmark {
+    private static final String VIRTUAL_THREAD_EXECUTOR = "com.amazonaws.samples.qdevmovies.movies.VirtualThreadExecutor";
+    private static final String[] SEARCHES = {"name=the", "genre=drama", "name=dark&genre=action", "minYear=1990&maxYear=1999"};
+    private static final int MOVIES = 12;
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    private RunningApplication application;
+
+    @Setup
+    public void setUp() {
+        boolean virtual = "virtual".equals(threads);
+        if (virtual && !ClassUtils.isPresent(VIRTUAL_THREAD_EXECUTOR, getClass().getClassLoader())) {
+            throw new IllegalStateException("threads=virtual needs a build with the virtual-threads profile");
+        }
+        application = new RunningApplication("--movies.response-cache.enabled=false", "--movies.virtual-threads.enabled=" + virtual);
+    }
+
+    @TearDown
+    public void tearDown() {
+        application.close();
+    }
+
+    @Benchmark
+    public int movies() throws IOException {
+        return application.get("/movies", null);
+    }
+
+    @Benchmark
+    public int search(Client client) throws IOException {
+        return application.get("/movies/search?" + SEARCHES[client.next() % SEARCHES.length], null);
+    }
+
+    @Benchmark
+    public int details(Client client) throws IOException {
+        return application.get("/movies/" + (client.next() % MOVIES + 1) + "/details", null);
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        private int next;
+
+        int next() {
+            return next++ & Integer.MAX_VALUE;
+        }
+    }
+}
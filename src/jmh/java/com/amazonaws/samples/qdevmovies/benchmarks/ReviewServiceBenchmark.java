@@ -0,0 +1,86 @@
+package com.amazonaws.samples.qdevmovies.benchmarks;
+
+import com.amazonaws.samples.qdevmovies.movies.Review;
+import com.amazonaws.samples.qdevmovies.movies.ReviewService;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the original per-request parse of {@code mock-reviews.json} with the
+ * preloaded review store in {@link ReviewService}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReviewServiceBenchmark {
+
+    @Param({"1", "7", "999"})
+    public long movieId;
+
+    private ReviewService reviewService;
+
+    @Setup
+    public void setUp() {
+        reviewService = new ReviewService();
+    }
+
+    @Benchmark
+    public List<Review> parsePerRequest() {
+        return legacyGetReviewsForMovie(movieId);
+    }
+
+    @Benchmark
+    public List<Review> preloadedStore() {
+        return reviewService.getReviewsForMovie(movieId);
+    }
+
+    /**
+     * The lookup as it was implemented before the store was introduced: open,
+     * read and parse the whole resource for every call.
+     */
+    private static List<Review> legacyGetReviewsForMovie(long movieId) {
+        List<Review> reviews = new ArrayList<>();
+        InputStream inputStream = ReviewServiceBenchmark.class.getClassLoader().getResourceAsStream("mock-reviews.json");
+        if (inputStream != null) {
+            Scanner scanner = new Scanner(inputStream, StandardCharsets.UTF_8.name());
+            String jsonContent = scanner.useDelimiter("\\A").next();
+            scanner.close();
+
+            JSONObject reviewsData = new JSONObject(jsonContent);
+            if (reviewsData.has(String.valueOf(movieId))) {
+                JSONArray movieReviews = reviewsData.getJSONArray(String.valueOf(movieId));
+                for (int i = 0; i < movieReviews.length(); i++) {
+                    JSONObject reviewObj = movieReviews.getJSONObject(i);
+                    reviews.add(new Review(
+                        reviewObj.getString("userName"),
+                        reviewObj.getString("avatarEmoji"),
+                        reviewObj.getDouble("rating"),
+                        reviewObj.getString("comment")
+                    ));
+                }
+            }
+        }
+        return reviews;
+    }
+}
@@ -0,0 +1,61 @@
+package com.amazonaws.samples.qdevmovies.benchmarks;
+
+import com.amazonaws.samples.qdevmovies.movies.MoviesApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+
+/**
+ * The application booted on a random port, for benchmarks that drive it over HTTP. Pass
+ * {@code -Dhttp.maxConnections} of at least the client thread count so connections are kept
+ * alive and reused.
+ */
+final class RunningApplication implements AutoCloseable {
+    private final ConfigurableApplicationContext context;
+    private final String baseUrl;
+
+    /**
+     * @param args command line arguments, which override application.yml
+     */
+    RunningApplication(String... args) {
+        String[] withPort = Arrays.copyOf(args, args.length + 1);
+        withPort[args.length] = "--server.port=0";
+        context = new SpringApplicationBuilder(MoviesApplication.class).run(withPort);
+        baseUrl = "http://localhost:" + ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    /**
+     * Requests a path and reads the whole body so the connection goes back to the keep-alive pool.
+     *
+     * @return the status, always 200
+     * @throws IllegalStateException for any other status
+     */
+    int get(String path, String accept) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        if (accept != null) {
+            connection.setRequestProperty("Accept", accept);
+        }
+        int status = connection.getResponseCode();
+        byte[] buffer = new byte[8192];
+        try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            while (body != null && body.read(buffer) >= 0) {
+                // drain
+            }
+        }
+        if (status != 200) {
+            throw new IllegalStateException(path + " returned " + status);
+        }
+        return status;
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
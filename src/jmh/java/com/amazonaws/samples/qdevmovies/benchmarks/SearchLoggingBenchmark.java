@@ -0,0 +1,80 @@
+package com.amazonaws.samples.qdevmovies.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what logging costs a search request, with 32 clients driving the booted
+ * application over HTTP:
+ * <ul>
+ *   <li>{@code debug}: the default configuration, a synchronous console appender with the
+ *   application package at DEBUG;</li>
+ *   <li>{@code info}: the same appender with the package at INFO, so only the log level
+ *   changes;</li>
+ *   <li>{@code prod}: the {@code prod} profile, async loggers with a garbage-free layout at
+ *   INFO.</li>
+ * </ul>
+ * The response cache is off so every request reaches the controller. The forked JVM's
+ * console output goes back to JMH through a pipe, so that is where a synchronous appender
+ * blocks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-Dhttp.maxConnections=32"})
+@Threads(32)
+public class SearchLoggingBenchmark {
+    private static final String[] SEARCHES = {"name=the", "genre=drama", "name=dark&genre=action", "minYear=1990&maxYear=1999"};
+
+    @Param({"debug", "info", "prod"})
+    public String logging;
+
+    private RunningApplication application;
+
+    @Setup
+    public void setUp() {
+        String mode = "prod".equals(logging) ? "--spring.profiles.active=prod"
+            : "--logging.level.com.amazonaws.samples.qdevmovies=" + logging.toUpperCase();
+        application = new RunningApplication("--movies.response-cache.enabled=false", mode);
+    }
+
+    @TearDown
+    public void tearDown() {
+        application.close();
+    }
+
+    @Benchmark
+    public int searchJson(Client client) throws IOException {
+        return application.get("/movies/search?" + SEARCHES[client.next() % SEARCHES.length], "application/json");
+    }
+
+    @Benchmark
+    public int searchHtml(Client client) throws IOException {
+        return application.get("/movies/search?" + SEARCHES[client.next() % SEARCHES.length], null);
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        private int next;
+
+        int next() {
+            return next++ & Integer.MAX_VALUE;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.amazonaws.samples.qdevmovies.benchmarks;
+
+import com.amazonaws.samples.qdevmovies.movies.JsonMovieRepository;
+import com.amazonaws.samples.qdevmovies.movies.Movie;
+import com.amazonaws.samples.qdevmovies.movies.Review;
+import com.amazonaws.samples.qdevmovies.movies.StreamingCatalogReader;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates catalogs of any size that follow the {@code movies.json} and
+ * {@code mock-reviews.json} schemas. The first movies are the real catalog, so ids 1-12
+ * and the well-known titles keep resolving; the rest are built from the words, genres,
+ * directors and reviews found there. Generation is seeded and therefore repeatable.
+ */
+final class SyntheticCatalog {
+    static final long SEED = 42L;
+
+    private final List<Movie> templates;
+    private final List<Review> reviewTemplates = new ArrayList<>();
+    private final String[] titleWords;
+    private final String[] genres;
+    private final String[] directors;
+
+    SyntheticCatalog() {
+        templates = new JsonMovieRepository().findAll();
+        Set<String> words = new LinkedHashSet<>();
+        Set<String> genreSet = new LinkedHashSet<>();
+        Set<String> directorSet = new LinkedHashSet<>();
+        for (Movie movie : templates) {
+            for (String word : movie.getMovieName().split("[^A-Za-z]+")) {
+                if (word.length() > 2) {
+                    words.add(word);
+                }
+            }
+            genreSet.add(movie.getGenre());
+            directorSet.add(movie.getDirector());
+        }
+        titleWords = words.toArray(new String[0]);
+        genres = genreSet.toArray(new String[0]);
+        directors = directorSet.toArray(new String[0]);
+        try (InputStream inputStream = SyntheticCatalog.class.getClassLoader().getResourceAsStream("mock-reviews.json")) {
+            StreamingCatalogReader.readReviews(inputStream, (movieId, review) -> reviewTemplates.add(review));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return {@code size} movies with ids 1..size
+     */
+    List<Movie> movies(int size) {
+        Random random = new Random(SEED);
+        List<Movie> movies = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            if (i < templates.size()) {
+                movies.add(templates.get(i));
+                continue;
+            }
+            Movie template = templates.get(random.nextInt(templates.size()));
+            String name = (random.nextInt(3) == 0 ? "The " : "")
+                + titleWords[random.nextInt(titleWords.length)] + " "
+                + titleWords[random.nextInt(titleWords.length)] + " "
+                + Integer.toString(i, 36).toUpperCase();
+            movies.add(new Movie(i + 1L, name,
+                directors[random.nextInt(directors.length)],
+                1920 + random.nextInt(105),
+                genres[random.nextInt(genres.length)],
+                template.getDescription(),
+                80 + random.nextInt(120),
+                1.0 + random.nextInt(9) * 0.5));
+        }
+        return movies;
+    }
+
+    /**
+     * Writes reviews for ids 1..size in the {@code mock-reviews.json} layout: every movie
+     * gets between zero and three reviews.
+     */
+    void writeReviews(int size, Path file) throws IOException {
+        Random random = new Random(SEED);
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write('{');
+            boolean firstMovie = true;
+            for (long id = 1; id <= size; id++) {
+                int count = random.nextInt(4);
+                if (count == 0) {
+                    continue;
+                }
+                if (!firstMovie) {
+                    writer.write(',');
+                }
+                firstMovie = false;
+                writer.write("\"" + id + "\":[");
+                for (int r = 0; r < count; r++) {
+                    Review review = reviewTemplates.get(random.nextInt(reviewTemplates.size()));
+                    if (r > 0) {
+                        writer.write(',');
+                    }
+                    writer.write("{\"userName\":" + JSONObject.quote(review.getUserName())
+                        + ",\"avatarEmoji\":" + JSONObject.quote(review.getAvatarEmoji())
+                        + ",\"rating\":" + review.getRating()
+                        + ",\"comment\":" + JSONObject.quote(review.getComment()) + "}");
+                }
+                writer.write(']');
+            }
+            writer.write('}');
+        }
+    }
+
+    /**
+     * @return {@code count} ids drawn from 1..size, with roughly one in ten missing
+     */
+    static long[] lookupIds(int size, int count) {
+        Random random = new Random(SEED);
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = 1 + random.nextInt(size + size / 10 + 1);
+        }
+        return ids;
+    }
+}
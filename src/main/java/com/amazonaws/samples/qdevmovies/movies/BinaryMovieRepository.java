@@ -0,0 +1,156 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Reads the catalog from a columnar binary file written by {@link MovieCatalogConverter}.
+ * <p>
+ * The file is memory-mapped and {@link #findAll()} returns a read-only list view that
+ * decodes a {@link Movie} from the mapped columns on each {@code get}, so the catalog
+ * stays in the page cache instead of on the heap. {@link MovieColumns} built from the view
+ * read names and descriptions straight from the mapping as well. Layout (big-endian):
+ * <pre>
+ *   int    magic ("QMVC"), int version, int count
+ *   long   id[count]
+ *   int    year[count]
+ *   int    duration[count]
+ *   double imdbRating[count]
+ *   4 x string column (movieName, director, genre, description):
+ *          int offset[count + 1], byte utf8[offset[count]]
+ * </pre>
+ * A single mapping is limited to 2 GB.
+ */
+@Repository
+@ConditionalOnProperty(name = "movies.catalog.format", havingValue = "binary")
+public class BinaryMovieRepository implements MovieRepository {
+    private static final Logger logger = LogManager.getLogger(BinaryMovieRepository.class);
+
+    static final int MAGIC = 0x514D5643;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 12;
+    static final int STRING_COLUMNS = 4;
+    static final int NAME_COLUMN = 0;
+    static final int DESCRIPTION_COLUMN = 3;
+
+    private final Path path;
+
+    @Autowired
+    public BinaryMovieRepository(@Value("${movies.catalog.path}") String path) {
+        this(Paths.get(path));
+    }
+
+    public BinaryMovieRepository(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public List<Movie> findAll() {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            MappedCatalog catalog = new MappedCatalog(buffer);
+            logger.info("Mapped {} movies from {}", catalog.size(), path);
+            return catalog;
+        } catch (Exception e) {
+            logger.error("Failed to map binary catalog {}: {}", path, e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    static final class MappedCatalog extends AbstractList<Movie> implements RandomAccess {
+        private final ByteBuffer buffer;
+        private final int count;
+        private final int ids;
+        private final int years;
+        private final int durations;
+        private final int ratings;
+        private final int[] stringOffsets = new int[STRING_COLUMNS];
+        private final int[] stringData = new int[STRING_COLUMNS];
+
+        MappedCatalog(ByteBuffer buffer) throws IOException {
+            this.buffer = buffer;
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("not a binary movie catalog");
+            }
+            if (buffer.getInt(4) != VERSION) {
+                throw new IOException("unsupported catalog version " + buffer.getInt(4));
+            }
+            this.count = buffer.getInt(8);
+            this.ids = HEADER_BYTES;
+            this.years = ids + count * Long.BYTES;
+            this.durations = years + count * Integer.BYTES;
+            this.ratings = durations + count * Integer.BYTES;
+            int next = ratings + count * Double.BYTES;
+            for (int column = 0; column < STRING_COLUMNS; column++) {
+                stringOffsets[column] = next;
+                stringData[column] = next + (count + 1) * Integer.BYTES;
+                next = stringData[column] + buffer.getInt(stringOffsets[column] + count * Integer.BYTES);
+            }
+            if (next > buffer.limit()) {
+                throw new IOException("truncated catalog");
+            }
+        }
+
+        @Override
+        public Movie get(int index) {
+            if (index < 0 || index >= count) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+            }
+            return new Movie(
+                buffer.getLong(ids + index * Long.BYTES),
+                string(0, index),
+                string(1, index),
+                buffer.getInt(years + index * Integer.BYTES),
+                string(2, index),
+                string(3, index),
+                buffer.getInt(durations + index * Integer.BYTES),
+                buffer.getDouble(ratings + index * Double.BYTES)
+            );
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+
+        /**
+         * @return one string column of the catalog, read from the mapping
+         */
+        TextColumn textColumn(int column) {
+            ByteBuffer data = buffer.duplicate();
+            data.position(stringData[column]);
+            data.limit(stringData[column] + buffer.getInt(stringOffsets[column] + count * Integer.BYTES));
+            ByteBuffer offsets = buffer.duplicate();
+            offsets.position(stringOffsets[column]);
+            offsets.limit(stringOffsets[column] + (count + 1) * Integer.BYTES);
+            return TextColumn.mapped(data, offsets.slice().asIntBuffer());
+        }
+
+        private String string(int column, int index) {
+            int start = buffer.getInt(stringOffsets[column] + index * Integer.BYTES);
+            int end = buffer.getInt(stringOffsets[column] + (index + 1) * Integer.BYTES);
+            byte[] bytes = new byte[end - start];
+            ByteBuffer view = buffer.duplicate();
+            view.position(stringData[column] + start);
+            view.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
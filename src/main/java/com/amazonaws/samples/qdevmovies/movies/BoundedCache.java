@@ -0,0 +1,335 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Weight-bounded cache with LRU or LFU eviction. Each entry is weighed once when it is
+ * stored; when the total weight would exceed the limit, entries are evicted according to
+ * the policy. Entries heavier than a segment's budget are not stored.
+ * <p>
+ * Keys are spread over independently locked segments, each holding an equal share of
+ * the weight budget, so concurrent readers only contend within a segment.
+ *
+ * @param <K> key type
+ * @param <V> value type, expected to be immutable
+ */
+public class BoundedCache<K, V> {
+
+    public enum EvictionPolicy {
+        /** Evict the least recently used entry. */
+        LRU,
+        /** Evict the least frequently used entry, oldest first among equals. */
+        LFU
+    }
+
+    private final long maxWeight;
+    private final Segment<K, V>[] segments;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public BoundedCache(long maxWeight, ToLongFunction<V> weigher) {
+        this(maxWeight, weigher, EvictionPolicy.LRU, 1);
+    }
+
+    public BoundedCache(long maxWeight, ToLongFunction<V> weigher, EvictionPolicy policy, int segmentCount) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("maxWeight must be positive");
+        }
+        if (segmentCount <= 0) {
+            throw new IllegalArgumentException("segmentCount must be positive");
+        }
+        this.maxWeight = maxWeight;
+        @SuppressWarnings("unchecked")
+        Segment<K, V>[] created = (Segment<K, V>[]) new Segment<?, ?>[segmentCount];
+        this.segments = created;
+        long segmentWeight = Math.max(1, maxWeight / segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = policy == EvictionPolicy.LFU
+                ? new LfuSegment<>(segmentWeight, weigher, evictions)
+                : new LruSegment<>(segmentWeight, weigher, evictions);
+        }
+    }
+
+    /**
+     * @return the cached value, or null on a miss
+     */
+    public V get(K key) {
+        V value = segmentFor(key).get(key);
+        if (value == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return value;
+    }
+
+    public void put(K key, V value) {
+        segmentFor(key).put(key, value);
+    }
+
+    public void invalidateAll() {
+        for (Segment<K, V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * Calls {@code action} with every entry, within each segment in the order they would be
+     * evicted; does not count as a use of any entry.
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.forEach(action);
+            }
+        }
+    }
+
+    public Stats stats() {
+        int entries = 0;
+        long weight = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                entries += segment.size();
+                weight += segment.weight;
+            }
+        }
+        return new Stats(hits.get(), misses.get(), evictions.get(), entries, weight, maxWeight);
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return segments[(hash & 0x7fffffff) % segments.length];
+    }
+
+    private abstract static class Segment<K, V> {
+        private final long maxWeight;
+        private final ToLongFunction<V> weigher;
+        private final AtomicLong evictions;
+        long weight;
+
+        Segment(long maxWeight, ToLongFunction<V> weigher, AtomicLong evictions) {
+            this.maxWeight = maxWeight;
+            this.weigher = weigher;
+            this.evictions = evictions;
+        }
+
+        synchronized V get(K key) {
+            Entry<V> entry = touch(key);
+            return entry != null ? entry.value : null;
+        }
+
+        void put(K key, V value) {
+            long entryWeight = weigher.applyAsLong(value);
+            if (entryWeight > maxWeight) {
+                return;
+            }
+            synchronized (this) {
+                Entry<V> previous = remove(key);
+                if (previous != null) {
+                    weight -= previous.weight;
+                }
+                while (weight + entryWeight > maxWeight && size() > 0) {
+                    weight -= evictOne().weight;
+                    evictions.incrementAndGet();
+                }
+                insert(key, new Entry<>(value, entryWeight));
+                weight += entryWeight;
+            }
+        }
+
+        synchronized void clear() {
+            removeAll();
+            weight = 0;
+        }
+
+        abstract Entry<V> touch(K key);
+
+        abstract Entry<V> remove(K key);
+
+        abstract void insert(K key, Entry<V> entry);
+
+        abstract Entry<V> evictOne();
+
+        abstract void removeAll();
+
+        abstract int size();
+
+        abstract void forEach(BiConsumer<? super K, ? super V> action);
+    }
+
+    private static final class LruSegment<K, V> extends Segment<K, V> {
+        private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        LruSegment(long maxWeight, ToLongFunction<V> weigher, AtomicLong evictions) {
+            super(maxWeight, weigher, evictions);
+        }
+
+        @Override
+        Entry<V> touch(K key) {
+            return entries.get(key);
+        }
+
+        @Override
+        Entry<V> remove(K key) {
+            return entries.remove(key);
+        }
+
+        @Override
+        void insert(K key, Entry<V> entry) {
+            entries.put(key, entry);
+        }
+
+        @Override
+        Entry<V> evictOne() {
+            Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+            Entry<V> evicted = eldest.next().getValue();
+            eldest.remove();
+            return evicted;
+        }
+
+        @Override
+        void removeAll() {
+            entries.clear();
+        }
+
+        @Override
+        int size() {
+            return entries.size();
+        }
+
+        @Override
+        void forEach(BiConsumer<? super K, ? super V> action) {
+            entries.forEach((key, entry) -> action.accept(key, entry.value));
+        }
+    }
+
+    private static final class LfuSegment<K, V> extends Segment<K, V> {
+        private final Map<K, Entry<V>> entries = new HashMap<>();
+        private final TreeMap<Integer, LinkedHashSet<K>> keysByFrequency = new TreeMap<>();
+
+        LfuSegment(long maxWeight, ToLongFunction<V> weigher, AtomicLong evictions) {
+            super(maxWeight, weigher, evictions);
+        }
+
+        @Override
+        Entry<V> touch(K key) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                unlink(key, entry.frequency);
+                entry.frequency++;
+                link(key, entry.frequency);
+            }
+            return entry;
+        }
+
+        @Override
+        Entry<V> remove(K key) {
+            Entry<V> entry = entries.remove(key);
+            if (entry != null) {
+                unlink(key, entry.frequency);
+            }
+            return entry;
+        }
+
+        @Override
+        void insert(K key, Entry<V> entry) {
+            entries.put(key, entry);
+            link(key, entry.frequency);
+        }
+
+        @Override
+        Entry<V> evictOne() {
+            Map.Entry<Integer, LinkedHashSet<K>> rarest = keysByFrequency.firstEntry();
+            Iterator<K> oldest = rarest.getValue().iterator();
+            K key = oldest.next();
+            oldest.remove();
+            if (rarest.getValue().isEmpty()) {
+                keysByFrequency.remove(rarest.getKey());
+            }
+            return entries.remove(key);
+        }
+
+        @Override
+        void removeAll() {
+            entries.clear();
+            keysByFrequency.clear();
+        }
+
+        @Override
+        int size() {
+            return entries.size();
+        }
+
+        @Override
+        void forEach(BiConsumer<? super K, ? super V> action) {
+            for (LinkedHashSet<K> keys : keysByFrequency.values()) {
+                for (K key : keys) {
+                    action.accept(key, entries.get(key).value);
+                }
+            }
+        }
+
+        private void link(K key, int frequency) {
+            keysByFrequency.computeIfAbsent(frequency, f -> new LinkedHashSet<>()).add(key);
+        }
+
+        private void unlink(K key, int frequency) {
+            LinkedHashSet<K> keys = keysByFrequency.get(frequency);
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                keysByFrequency.remove(frequency);
+            }
+        }
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long weight;
+        int frequency = 1;
+
+        Entry(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Point-in-time cache counters.
+     */
+    public static class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final int entries;
+        private final long weight;
+        private final long maxWeight;
+
+        public Stats(long hits, long misses, long evictions, int entries, long weight, long maxWeight) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.entries = entries;
+            this.weight = weight;
+            this.maxWeight = maxWeight;
+        }
+
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getEvictions() { return evictions; }
+        public int getEntries() { return entries; }
+        public long getWeight() { return weight; }
+        public long getMaxWeight() { return maxWeight; }
+    }
+}
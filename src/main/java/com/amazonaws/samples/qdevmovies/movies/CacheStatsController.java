@@ -0,0 +1,37 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Exposes hit, miss and eviction counters of the caches.
+ */
+@RestController
+public class CacheStatsController {
+
+    private final MovieService movieService;
+    private final ObjectProvider<ResponseCacheFilter> responseCache;
+
+    public CacheStatsController(MovieService movieService, ObjectProvider<ResponseCacheFilter> responseCache) {
+        this.movieService = movieService;
+        this.responseCache = responseCache;
+    }
+
+    @GetMapping("/admin/cache-stats")
+    public Map<String, BoundedCache.Stats> getCacheStats() {
+        Map<String, BoundedCache.Stats> stats = new LinkedHashMap<>();
+        ResponseCacheFilter filter = responseCache.getIfAvailable();
+        if (filter != null) {
+            stats.put("responses", filter.stats());
+        }
+        BoundedCache.Stats searchStats = movieService.getSearchCacheStats();
+        if (searchStats != null) {
+            stats.put("search", searchStats);
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,20 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+/**
+ * How a loaded catalog is held in memory.
+ */
+public enum CatalogLayout {
+    /**
+     * Keep the {@link Movie} objects from the repository next to the column store. Review
+     * aggregates and icons live in the columns only, and are attached to a movie the first
+     * time a request returns it, so building a snapshot copies no movies and each movie is
+     * copied at most once per snapshot.
+     */
+    OBJECTS,
+    /**
+     * Keep only the column store and materialize {@link Movie} objects for the movies a
+     * request returns. Uses less heap on large catalogs at the cost of decoding the names
+     * of the returned movies.
+     */
+    COLUMNS
+}
@@ -0,0 +1,263 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead log of catalog changes, the durable half of {@link CatalogStore}.
+ * <p>
+ * Each entry is framed as {@code int length, int crc32, byte payload[length]}, and the
+ * payload is {@code long sequence, byte type} followed by the movie or review. A batch of
+ * entries is written with one {@code write} and made durable with one {@code fsync}.
+ * <p>
+ * On open the log is replayed up to the first frame that is short or fails its checksum;
+ * such a tail is what a crash part way through a write leaves behind, so it is truncated
+ * and appending resumes after the last complete entry.
+ */
+final class CatalogLog implements Closeable {
+    private static final Logger logger = LogManager.getLogger(CatalogLog.class);
+
+    static final byte PUT_MOVIE = 1;
+    static final byte ADD_REVIEW = 2;
+    private static final int FRAME_HEADER_BYTES = 8;
+
+    private final Path path;
+    private final FileChannel channel;
+
+    private CatalogLog(Path path, FileChannel channel) {
+        this.path = path;
+        this.channel = channel;
+    }
+
+    /**
+     * Opens or creates the log and passes every complete entry to {@code replay}, in order.
+     */
+    static CatalogLog open(Path path, Consumer<Entry> replay) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        try {
+            long valid = replay(channel, replay);
+            if (valid < channel.size()) {
+                logger.warn("Truncating {} bytes of incomplete entries at the end of {}", channel.size() - valid, path);
+                channel.truncate(valid);
+                channel.force(true);
+            }
+            channel.position(valid);
+            return new CatalogLog(path, channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the length of the log up to the end of its last complete entry
+     */
+    private static long replay(FileChannel channel, Consumer<Entry> replay) throws IOException {
+        long size = channel.size();
+        if (size == 0) {
+            return 0;
+        }
+        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= FRAME_HEADER_BYTES) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                return start;
+            }
+            ByteBuffer payload = buffer.slice();
+            payload.limit(length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                return start;
+            }
+            replay.accept(readEntry(payload));
+            buffer.position(start + FRAME_HEADER_BYTES + length);
+        }
+        return buffer.position();
+    }
+
+    /**
+     * Writes the entries and forces them to disk. If anything fails the log is cut back to
+     * its previous length, so none of the entries survive a restart.
+     */
+    void append(List<Entry> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(entries.size() * 256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(256);
+        DataOutputStream payloadOut = new DataOutputStream(payload);
+        CRC32 crc = new CRC32();
+        for (Entry entry : entries) {
+            payload.reset();
+            writeEntry(payloadOut, entry);
+            crc.reset();
+            crc.update(payload.toByteArray(), 0, payload.size());
+            out.writeInt(payload.size());
+            out.writeInt((int) crc.getValue());
+            payload.writeTo(out);
+        }
+        long start = channel.position();
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            channel.truncate(start);
+            channel.position(start);
+            throw e;
+        }
+    }
+
+    /**
+     * @return the length of the log in bytes
+     */
+    long size() throws IOException {
+        return channel.position();
+    }
+
+    /**
+     * Empties the log, once a snapshot holds everything in it.
+     */
+    void clear() throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+    }
+
+    Path path() {
+        return path;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static void writeEntry(DataOutput out, Entry entry) throws IOException {
+        out.writeLong(entry.sequence);
+        out.writeByte(entry.type);
+        if (entry.type == PUT_MOVIE) {
+            writeMovie(out, entry.movie);
+        } else {
+            out.writeLong(entry.movieId);
+            writeReview(out, entry.review);
+        }
+    }
+
+    private static Entry readEntry(ByteBuffer in) {
+        long sequence = in.getLong();
+        byte type = in.get();
+        switch (type) {
+            case PUT_MOVIE:
+                return Entry.putMovie(readMovie(in)).withSequence(sequence);
+            case ADD_REVIEW:
+                return Entry.addReview(in.getLong(), readReview(in)).withSequence(sequence);
+            default:
+                throw new IllegalStateException("Unknown catalog log entry type " + type);
+        }
+    }
+
+    static void writeMovie(DataOutput out, Movie movie) throws IOException {
+        out.writeLong(movie.getId());
+        writeString(out, movie.getMovieName());
+        writeString(out, movie.getDirector());
+        out.writeInt(movie.getYear());
+        writeString(out, movie.getGenre());
+        writeString(out, movie.getDescription());
+        out.writeInt(movie.getDuration());
+        out.writeDouble(movie.getImdbRating());
+    }
+
+    static Movie readMovie(ByteBuffer in) {
+        long id = in.getLong();
+        String name = readString(in);
+        String director = readString(in);
+        int year = in.getInt();
+        String genre = readString(in);
+        String description = readString(in);
+        int duration = in.getInt();
+        double rating = in.getDouble();
+        return new Movie(id, name, director, year, genre, description, duration, rating);
+    }
+
+    static void writeReview(DataOutput out, Review review) throws IOException {
+        writeString(out, review.getUserName());
+        writeString(out, review.getAvatarEmoji());
+        out.writeDouble(review.getRating());
+        writeString(out, review.getComment());
+    }
+
+    static Review readReview(ByteBuffer in) {
+        String userName = readString(in);
+        String avatar = readString(in);
+        double rating = in.getDouble();
+        String comment = readString(in);
+        return new Review(userName, avatar, rating, comment);
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * One change to the catalog: a movie created or replaced, or a review added.
+     */
+    static final class Entry {
+        final long sequence;
+        final byte type;
+        final Movie movie;
+        final long movieId;
+        final Review review;
+
+        private Entry(long sequence, byte type, Movie movie, long movieId, Review review) {
+            this.sequence = sequence;
+            this.type = type;
+            this.movie = movie;
+            this.movieId = movieId;
+            this.review = review;
+        }
+
+        static Entry putMovie(Movie movie) {
+            return new Entry(0, PUT_MOVIE, movie, movie.getId(), null);
+        }
+
+        static Entry addReview(long movieId, Review review) {
+            return new Entry(0, ADD_REVIEW, null, movieId, review);
+        }
+
+        Entry withSequence(long sequence) {
+            return new Entry(sequence, type, movie, movieId, review);
+        }
+
+        Entry withMovie(Movie movie) {
+            return new Entry(sequence, type, movie, movie.getId(), review);
+        }
+    }
+}
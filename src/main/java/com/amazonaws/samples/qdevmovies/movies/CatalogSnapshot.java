@@ -0,0 +1,129 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable view of one version of the catalog and its reviews together with
+ * everything derived from them: the column store, the id map, the search index, the presorted orders, the genre facets
+ * and the search result cache. A snapshot is fully built before it is published, and {@link MovieService}
+ * replaces it as a whole, so a request that reads the current snapshot once sees a single
+ * consistent catalog for its whole duration.
+ * <p>
+ * The search cache holds positions into this snapshot's movie list, which is why it lives
+ * here and is discarded together with it, unless only the reviews change.
+ */
+final class CatalogSnapshot {
+    private static final int SEARCH_CACHE_SEGMENTS = 8;
+
+    final List<Movie> movies;
+    /** the movies as read from the repository, kept by the {@link CatalogLayout#OBJECTS} layout */
+    private final List<Movie> source;
+    final ReviewSnapshot reviews;
+    final MovieColumns columns;
+    final MovieIdIndex ids;
+    final MovieSearchIndex searchIndex;
+    final Map<MovieSort, MovieOrder> orders;
+    final GenreFacets genreFacets;
+    final BoundedCache<SearchKey, SearchMatches> searchCache;
+    /** approximate bytes held by the id map, search index and sort orders */
+    final long indexWeight;
+
+    /**
+     * @param movies the catalog; must not be modified afterwards
+     * @param reviews reviews whose aggregates are attached to the movies
+     * @param icons resolves the icon attached to each movie
+     * @param layout whether the movie objects are kept once the column store is built
+     * @param searchCachePolicy eviction policy of the search result cache
+     * @param searchCacheMaxWeight approximate byte budget of the search result cache; 0 disables it
+     */
+    CatalogSnapshot(List<Movie> movies, ReviewSnapshot reviews, MovieIcons icons, CatalogLayout layout,
+                    BoundedCache.EvictionPolicy searchCachePolicy, long searchCacheMaxWeight) {
+        this.reviews = reviews;
+        this.columns = new MovieColumns(movies, reviews.aggregates, icons);
+        this.source = layout == CatalogLayout.COLUMNS ? null : movies;
+        this.movies = source == null ? columns.asList() : columns.asList(source);
+        this.ids = MovieIdIndex.of(columns);
+        this.searchIndex = new MovieSearchIndex(columns);
+        Map<MovieSort, MovieOrder> sortOrders = new EnumMap<>(MovieSort.class);
+        for (MovieSort sort : MovieSort.values()) {
+            sortOrders.put(sort, new MovieOrder(columns, sort));
+        }
+        this.orders = Collections.unmodifiableMap(sortOrders);
+        this.genreFacets = new GenreFacets(columns);
+        long weight = ids.weight() + searchIndex.weight();
+        for (MovieOrder order : orders.values()) {
+            weight += order.weight();
+        }
+        this.indexWeight = weight;
+        this.searchCache = newSearchCache(searchCachePolicy, searchCacheMaxWeight);
+    }
+
+    private CatalogSnapshot(CatalogSnapshot catalog, ReviewSnapshot reviews, CatalogLayout layout,
+                            BoundedCache.EvictionPolicy searchCachePolicy, long searchCacheMaxWeight) {
+        this.reviews = reviews;
+        this.columns = reviews.baseVersion == catalog.reviews.version
+            ? catalog.columns.withReviews(reviews.aggregates, catalog.positionsOf(reviews.added))
+            : catalog.columns.withReviews(reviews.aggregates);
+        this.source = layout == CatalogLayout.COLUMNS ? null : catalog.source;
+        this.movies = source == null ? columns.asList() : columns.asList(source);
+        this.ids = catalog.ids;
+        this.searchIndex = catalog.searchIndex;
+        Map<MovieSort, MovieOrder> sortOrders = new EnumMap<>(MovieSort.class);
+        catalog.orders.forEach((sort, order) -> sortOrders.put(sort,
+            sort == MovieSort.AUDIENCE ? order.resorted(columns) : order.withColumns(columns)));
+        this.orders = Collections.unmodifiableMap(sortOrders);
+        this.genreFacets = catalog.genreFacets;
+        this.indexWeight = catalog.indexWeight;
+        this.searchCache = newSearchCache(searchCachePolicy, searchCacheMaxWeight);
+        if (searchCache != null && catalog.searchCache != null) {
+            catalog.searchCache.forEach((key, matches) -> {
+                MovieRanges ranges = key.getRanges();
+                if (ranges == null || !ranges.restricts(MovieSort.AUDIENCE)) {
+                    searchCache.put(key, matches.withoutRanks(MovieSort.AUDIENCE));
+                }
+            });
+        }
+    }
+
+    /**
+     * Builds the snapshot of the same movies with new reviews. Only what depends on reviews
+     * is rebuilt: the review columns, from the aggregates of only the movies the new reviews
+     * belong to when they were appended to this snapshot's, and the audience order, sorted
+     * again from the current one; no movie is copied. The id map, search index, genre facets
+     * and other orders are shared with this snapshot. Cached searches carry over, except
+     * those filtering by audience score, and their ranks by audience score are dropped.
+     */
+    CatalogSnapshot withReviews(ReviewSnapshot reviews, CatalogLayout layout,
+                                BoundedCache.EvictionPolicy searchCachePolicy, long searchCacheMaxWeight) {
+        return new CatalogSnapshot(this, reviews, layout, searchCachePolicy, searchCacheMaxWeight);
+    }
+
+    private static BoundedCache<SearchKey, SearchMatches> newSearchCache(BoundedCache.EvictionPolicy policy,
+                                                                         long maxWeight) {
+        return maxWeight > 0 ? new BoundedCache<>(maxWeight, SearchMatches::weight, policy, SEARCH_CACHE_SEGMENTS) : null;
+    }
+
+    /**
+     * @return the positions of the movies the reviews belong to, skipping ids not in the catalog
+     */
+    private int[] positionsOf(ReviewColumns reviews) {
+        int[] positions = new int[reviews.movieCount()];
+        int n = 0;
+        for (int movie = 0; movie < positions.length; movie++) {
+            int position = ids.positionOf(reviews.movieIdAt(movie));
+            if (position != MovieIdIndex.NOT_FOUND) {
+                positions[n++] = position;
+            }
+        }
+        return Arrays.copyOf(positions, n);
+    }
+
+    Movie movieById(long id) {
+        int position = ids.positionOf(id);
+        return position != MovieIdIndex.NOT_FOUND ? movies.get(position) : null;
+    }
+}
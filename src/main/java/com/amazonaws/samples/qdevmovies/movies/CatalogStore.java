@@ -0,0 +1,570 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.CRC32;
+
+/**
+ * Embedded, file-backed store of movies and reviews that accepts writes. Selected with
+ * {@code movies.catalog.format=store}; its files live in the {@code movies.store.path}
+ * directory:
+ * <ul>
+ *   <li>{@code catalog.snapshot}: every movie and review as of a log sequence number,
+ *   written to a temporary file and renamed into place, with a trailing CRC-32;</li>
+ *   <li>{@code catalog.log}: a {@link CatalogLog} of the changes made since.</li>
+ * </ul>
+ * Startup maps the snapshot and replays the log on top of it, truncating a torn tail left
+ * by a crash. An empty directory is seeded from the classpath {@code movies.json} and
+ * {@code mock-reviews.json}.
+ * <p>
+ * Writes are queued to a single writer thread, which drains the queue into batches of up
+ * to {@code movies.store.max-batch} entries: a batch is one log write and one
+ * {@code fsync}, after which it is applied in memory, the commit listeners run, and the
+ * callers' futures complete. Concurrent writers thus share the cost of a sync, and a
+ * completed write is both durable and visible to readers. Once the log exceeds
+ * {@code movies.store.compact-bytes} the writer folds it into a new snapshot and empties it.
+ * <p>
+ * The queue is a lock-free linked queue bounded by {@code movies.store.queue-capacity}:
+ * submitters reserve a slot with a compare-and-set on the queue depth and wake the writer,
+ * which parks while the queue is empty. A write submitted to a full queue fails at once
+ * with a {@link QueueFullException} instead of waiting, so a burst of writes cannot pile
+ * up unbounded memory or latency. The reviews are kept as {@link ReviewColumns}, and a
+ * batch of reviews is appended past their end rather than by rebuilding them; each
+ * {@link Commit} carries the batch, so listeners can update what they derive from the
+ * reviews for just the movies in it.
+ * <p>
+ * The snapshot is limited to 2 GB by a single mapping, like {@link BinaryMovieRepository}.
+ */
+@Repository
+@ConditionalOnProperty(name = "movies.catalog.format", havingValue = "store")
+public class CatalogStore implements MovieRepository {
+    private static final Logger logger = LogManager.getLogger(CatalogStore.class);
+
+    static final String SNAPSHOT_FILE = "catalog.snapshot";
+    static final String LOG_FILE = "catalog.log";
+    static final int SNAPSHOT_MAGIC = 0x514D5653;
+    static final int SNAPSHOT_VERSION = 1;
+    static final long DEFAULT_COMPACT_BYTES = 4L * 1024 * 1024;
+    static final int DEFAULT_MAX_BATCH = 256;
+    static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+    private static final String REVIEWS_RESOURCE = "mock-reviews.json";
+
+    private final Path directory;
+    private final long compactBytes;
+    private final int maxBatch;
+    private final int queueCapacity;
+    private final MovieMetrics metrics;
+    private final CatalogLog log;
+    private final Queue<Write> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final List<Consumer<Commit>> listeners = new CopyOnWriteArrayList<>();
+    private final Thread writer;
+
+    // owned by the writer thread once the store is open
+    private final List<Movie> movies = new ArrayList<>();
+    private final Map<Long, Integer> positions = new HashMap<>();
+    private long sequence;
+    private long nextId = 1;
+    private volatile long commits;
+    private volatile long lastCommitNanos;
+
+    private volatile List<Movie> moviesView;
+    private volatile ReviewColumns reviewsView;
+    private volatile boolean closed;
+
+    @Autowired
+    public CatalogStore(@Value("${movies.store.path}") String directory,
+                        @Value("${movies.store.compact-bytes:" + DEFAULT_COMPACT_BYTES + "}") long compactBytes,
+                        @Value("${movies.store.max-batch:" + DEFAULT_MAX_BATCH + "}") int maxBatch,
+                        @Value("${movies.store.queue-capacity:" + DEFAULT_QUEUE_CAPACITY + "}") int queueCapacity,
+                        MovieMetrics metrics) {
+        this(Paths.get(directory.trim()), compactBytes, maxBatch, queueCapacity, metrics);
+    }
+
+    /**
+     * Opens the store, recovering it from its snapshot and log.
+     *
+     * @param directory directory of the store's files, created if missing
+     * @param compactBytes log length above which it is folded into a new snapshot
+     * @param maxBatch most writes committed with one sync
+     * @param queueCapacity most writes waiting for the writer before new ones are rejected
+     * @param metrics where queue depth, batch sizes and commit latency are recorded
+     * @throws UncheckedIOException if the store cannot be read or created
+     */
+    public CatalogStore(Path directory, long compactBytes, int maxBatch, int queueCapacity, MovieMetrics metrics) {
+        this.directory = directory;
+        this.compactBytes = compactBytes;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.metrics = metrics;
+        try {
+            Files.createDirectories(directory);
+            Path snapshot = directory.resolve(SNAPSHOT_FILE);
+            ReviewColumns.Builder stored = new ReviewColumns.Builder();
+            if (Files.exists(snapshot)) {
+                readSnapshot(snapshot, stored);
+                reviewsView = stored.build();
+            } else {
+                seed(stored);
+                reviewsView = stored.build();
+                writeSnapshot();
+            }
+            long snapshotSequence = sequence;
+            ReviewColumns.Builder logged = new ReviewColumns.Builder();
+            int[] replayed = new int[1];
+            log = CatalogLog.open(directory.resolve(LOG_FILE), entry -> {
+                // entries up to the snapshot's sequence were folded into it before a crash emptied the log
+                if (entry.sequence > snapshotSequence) {
+                    apply(entry, logged);
+                    replayed[0]++;
+                }
+            });
+            reviewsView = reviewsView.appended(logged.build());
+            publishMovies();
+            logger.info("Opened catalog store {} with {} movies at sequence {} ({} log entries replayed)",
+                directory, movies.size(), sequence, replayed[0]);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open catalog store " + directory, e);
+        }
+        writer = new Thread(this::writeLoop, "catalog-store-writer");
+        writer.setDaemon(true);
+        writer.start();
+        metrics.bindStoreQueue(depth::get);
+    }
+
+    /**
+     * @return the movies as of the last commit, in catalog order
+     */
+    @Override
+    public List<Movie> findAll() {
+        return moviesView;
+    }
+
+    /**
+     * @return the reviews as of the last commit
+     */
+    public ReviewColumns reviews() {
+        return reviewsView;
+    }
+
+    /**
+     * Registers a callback run on the writer thread after each commit, before the writes in
+     * it complete. Listeners run in registration order.
+     */
+    public void addCommitListener(Consumer<Commit> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Creates or replaces a movie. A movie with id 0 is created with the next free id.
+     *
+     * @return completes with the stored movie once it is durable and visible
+     */
+    public CompletableFuture<Movie> putMovie(Movie movie) {
+        return submit(CatalogLog.Entry.putMovie(movie)).thenApply(entry -> entry.movie);
+    }
+
+    /**
+     * Adds a review to an existing movie.
+     *
+     * @return completes once the review is durable and visible; fails with
+     *         {@link IllegalArgumentException} if there is no such movie
+     */
+    public CompletableFuture<Review> addReview(long movieId, Review review) {
+        return submit(CatalogLog.Entry.addReview(movieId, review)).thenApply(entry -> entry.review);
+    }
+
+    /**
+     * Waits for a write, rethrowing the exception it failed with.
+     */
+    static <T> T await(CompletableFuture<T> write) {
+        try {
+            return write.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private CompletableFuture<CatalogLog.Entry> submit(CatalogLog.Entry entry) {
+        Write write = new Write(entry);
+        if (closed) {
+            write.result.completeExceptionally(new IllegalStateException("Catalog store is closed"));
+            return write.result;
+        }
+        if (!reserveSlot()) {
+            metrics.recordStoreRejection();
+            write.result.completeExceptionally(new QueueFullException(retryAfterSeconds()));
+            return write.result;
+        }
+        queue.add(write);
+        LockSupport.unpark(writer);
+        if (closed) {
+            // the writer may have drained the queue and stopped before this write was added
+            failQueued();
+        }
+        return write.result;
+    }
+
+    private boolean reserveSlot() {
+        for (int current = depth.get(); current < queueCapacity; current = depth.get()) {
+            if (depth.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return roughly how long the writer needs to drain the queue, from the latency of its
+     *         last commit; at least one second
+     */
+    private long retryAfterSeconds() {
+        long batches = (depth.get() + maxBatch - 1) / maxBatch;
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(batches * lastCommitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+
+    private void failQueued() {
+        for (Write write; (write = queue.poll()) != null; ) {
+            depth.decrementAndGet();
+            write.result.completeExceptionally(new IllegalStateException("Catalog store is closed"));
+        }
+    }
+
+    /**
+     * @return the number of batches committed since the store was opened
+     */
+    long commits() {
+        return commits;
+    }
+
+    /**
+     * @return the number of writes waiting for the writer
+     */
+    int queueDepth() {
+        return depth.get();
+    }
+
+    /**
+     * Commits the writes already queued, then stops the writer and closes the log. Writes
+     * submitted afterwards fail with {@link IllegalStateException}.
+     */
+    @PreDestroy
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            log.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close catalog log: {}", e.getMessage());
+        }
+    }
+
+    private void writeLoop() {
+        List<Write> batch = new ArrayList<>(maxBatch);
+        while (true) {
+            for (Write write; batch.size() < maxBatch && (write = queue.poll()) != null; ) {
+                batch.add(write);
+            }
+            if (batch.isEmpty()) {
+                if (closed) {
+                    return;
+                }
+                // submitters unpark the writer after queueing; a write queued before parking makes park return at once
+                LockSupport.park(this);
+                continue;
+            }
+            depth.addAndGet(-batch.size());
+            commit(batch);
+            batch.clear();
+        }
+    }
+
+    private void commit(List<Write> batch) {
+        long start = System.nanoTime();
+        long firstSequence = sequence;
+        long firstId = nextId;
+        List<CatalogLog.Entry> entries = new ArrayList<>(batch.size());
+        List<Write> accepted = new ArrayList<>(batch.size());
+        for (Write write : batch) {
+            CatalogLog.Entry entry = write.entry;
+            if (entry.type == CatalogLog.ADD_REVIEW && !positions.containsKey(entry.movieId)) {
+                write.result.completeExceptionally(new IllegalArgumentException("No movie with id " + entry.movieId));
+                continue;
+            }
+            if (entry.type == CatalogLog.PUT_MOVIE && entry.movie.getId() <= 0) {
+                Movie movie = entry.movie;
+                entry = entry.withMovie(new Movie(nextId++, movie.getMovieName(), movie.getDirector(), movie.getYear(),
+                    movie.getGenre(), movie.getDescription(), movie.getDuration(), movie.getImdbRating()));
+            } else if (entry.type == CatalogLog.PUT_MOVIE) {
+                nextId = Math.max(nextId, entry.movie.getId() + 1);
+            }
+            entries.add(entry.withSequence(++sequence));
+            accepted.add(write);
+        }
+        if (entries.isEmpty()) {
+            return;
+        }
+        try {
+            log.append(entries);
+        } catch (IOException e) {
+            logger.error("Failed to write {} catalog changes: {}", entries.size(), e.getMessage());
+            sequence = firstSequence;
+            nextId = firstId;
+            for (Write write : accepted) {
+                write.result.completeExceptionally(new UncheckedIOException(e));
+            }
+            return;
+        }
+
+        boolean moviesChanged = false;
+        ReviewColumns.Builder added = new ReviewColumns.Builder();
+        for (CatalogLog.Entry entry : entries) {
+            apply(entry, added);
+            moviesChanged |= entry.type == CatalogLog.PUT_MOVIE;
+        }
+        if (moviesChanged) {
+            publishMovies();
+        }
+        ReviewColumns addedReviews = added.build();
+        reviewsView = reviewsView.appended(addedReviews);
+        commits++;
+        Commit commit = new Commit(entries.size(), moviesChanged, addedReviews);
+        for (Consumer<Commit> listener : listeners) {
+            try {
+                listener.accept(commit);
+            } catch (RuntimeException e) {
+                logger.error("Catalog commit listener failed: {}", e.getMessage());
+            }
+        }
+        lastCommitNanos = System.nanoTime() - start;
+        metrics.recordStoreCommit(entries.size(), start);
+        for (int i = 0; i < accepted.size(); i++) {
+            accepted.get(i).result.complete(entries.get(i));
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * Applies an entry to the movies, or adds its review to {@code reviews}.
+     */
+    private void apply(CatalogLog.Entry entry, ReviewColumns.Builder reviews) {
+        sequence = Math.max(sequence, entry.sequence);
+        if (entry.type == CatalogLog.PUT_MOVIE) {
+            putInMemory(entry.movie);
+        } else {
+            reviews.add(entry.movieId, entry.review);
+        }
+    }
+
+    private void putInMemory(Movie movie) {
+        Integer position = positions.get(movie.getId());
+        if (position != null) {
+            movies.set(position, movie);
+        } else {
+            positions.put(movie.getId(), movies.size());
+            movies.add(movie);
+        }
+        nextId = Math.max(nextId, movie.getId() + 1);
+    }
+
+    private void publishMovies() {
+        moviesView = Collections.unmodifiableList(new ArrayList<>(movies));
+    }
+
+    private void compactIfNeeded() {
+        try {
+            if (log.size() <= compactBytes) {
+                return;
+            }
+            long logBytes = log.size();
+            writeSnapshot();
+            log.clear();
+            logger.info("Compacted {} log bytes into a snapshot at sequence {}", logBytes, sequence);
+        } catch (IOException e) {
+            // the log still holds every change, so nothing is lost; compaction is retried after the next commit
+            logger.error("Failed to compact catalog store: {}", e.getMessage());
+        }
+    }
+
+    private void seed(ReviewColumns.Builder reviews) {
+        movies.clear();
+        for (Movie movie : new JsonMovieRepository().findAll()) {
+            putInMemory(movie);
+        }
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(REVIEWS_RESOURCE)) {
+            if (in != null) {
+                StreamingCatalogReader.readReviews(in, reviews::add);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        logger.info("Seeded catalog store {} with {} movies from the classpath", directory, movies.size());
+    }
+
+    /**
+     * Writes every movie and review to a temporary file, forces it to disk, renames it over
+     * the current snapshot and forces the directory. Once this returns the new snapshot
+     * survives a power loss, so the log may be cleared.
+     */
+    private void writeSnapshot() throws IOException {
+        Path target = directory.resolve(SNAPSHOT_FILE);
+        Path temp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temp.toFile())) {
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(file, crc), 64 * 1024));
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(sequence);
+            out.writeInt(movies.size());
+            for (Movie movie : movies) {
+                CatalogLog.writeMovie(out, movie);
+            }
+            ReviewColumns reviews = reviewsView;
+            out.writeInt(reviews.size());
+            for (int movie = 0; movie < reviews.movieCount(); movie++) {
+                for (int index = 0; index < reviews.count(movie); index++) {
+                    out.writeLong(reviews.movieIdAt(movie));
+                    CatalogLog.writeReview(out, reviews.review(movie, index));
+                }
+            }
+            out.flush();
+            new DataOutputStream(file).writeLong(crc.getValue());
+            file.getChannel().force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // the rename is only durable once the directory entry is; until then a crash can bring back the old snapshot
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        }
+    }
+
+    private void readSnapshot(Path snapshot, ReviewColumns.Builder reviews) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 32 || buffer.getInt(0) != SNAPSHOT_MAGIC) {
+                throw new IOException(snapshot + " is not a catalog snapshot");
+            }
+            ByteBuffer body = buffer.duplicate();
+            body.limit(buffer.limit() - 8);
+            CRC32 crc = new CRC32();
+            crc.update(body.duplicate());
+            if (crc.getValue() != buffer.getLong(buffer.limit() - 8)) {
+                throw new IOException(snapshot + " is corrupt");
+            }
+            body.position(4);
+            int version = body.getInt();
+            if (version != SNAPSHOT_VERSION) {
+                throw new IOException("Unsupported catalog snapshot version " + version);
+            }
+            sequence = body.getLong();
+            int movieCount = body.getInt();
+            for (int i = 0; i < movieCount; i++) {
+                putInMemory(CatalogLog.readMovie(body));
+            }
+            int reviewCount = body.getInt();
+            for (int i = 0; i < reviewCount; i++) {
+                long movieId = body.getLong();
+                reviews.add(movieId, CatalogLog.readReview(body));
+            }
+        }
+    }
+
+    /**
+     * What one committed batch changed.
+     */
+    public static final class Commit {
+        private final int entries;
+        private final boolean moviesChanged;
+        private final ReviewColumns addedReviews;
+
+        Commit(int entries, boolean moviesChanged, ReviewColumns addedReviews) {
+            this.entries = entries;
+            this.moviesChanged = moviesChanged;
+            this.addedReviews = addedReviews;
+        }
+
+        public int getEntries() { return entries; }
+        public boolean isMoviesChanged() { return moviesChanged; }
+        public boolean isReviewsChanged() { return addedReviews.size() > 0; }
+
+        /**
+         * @return the reviews added by the commit, already appended to {@link #reviews()}
+         */
+        public ReviewColumns getAddedReviews() { return addedReviews; }
+    }
+
+    /**
+     * Thrown, through a write's future, when the write queue is full.
+     */
+    public static final class QueueFullException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final long retryAfterSeconds;
+
+        QueueFullException(long retryAfterSeconds) {
+            super("Catalog store write queue is full");
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        /**
+         * @return a hint of how long to wait before retrying
+         */
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+
+    private static final class Write {
+        final CatalogLog.Entry entry;
+        final CompletableFuture<CatalogLog.Entry> result = new CompletableFuture<>();
+
+        Write(CatalogLog.Entry entry) {
+            this.entry = entry;
+        }
+    }
+}
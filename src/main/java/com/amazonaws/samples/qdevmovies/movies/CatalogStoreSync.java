@@ -0,0 +1,46 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes each commit of the {@link CatalogStore} to the services: folds the added
+ * reviews into the review aggregates, updating only the movies they belong to, rebuilds
+ * the catalog snapshot, and clears the response cache. The reviews and their aggregates
+ * are published with the catalog snapshot in one swap, so no reader sees a movie's new
+ * reviews next to its old count. It runs on the store's writer thread before the committed
+ * writes complete, so a client sees its own write in its next request. A batch of writes
+ * costs one rebuild, however many it holds.
+ * <p>
+ * A GET that was rendering from the catalog before the commit finishes after the cache is
+ * cleared. {@link ResponseCacheFilter} keeps such a page out of the cache, because its
+ * render started before the invalidation.
+ */
+@Component
+@ConditionalOnProperty(name = "movies.catalog.format", havingValue = "store")
+public class CatalogStoreSync {
+    private final MovieService movieService;
+    private final ReviewService reviewService;
+    private final ObjectProvider<ResponseCacheFilter> responseCache;
+
+    public CatalogStoreSync(CatalogStore catalogStore, MovieService movieService, ReviewService reviewService,
+                            ObjectProvider<ResponseCacheFilter> responseCache) {
+        this.movieService = movieService;
+        this.reviewService = reviewService;
+        this.responseCache = responseCache;
+        catalogStore.addCommitListener(this::committed);
+    }
+
+    void committed(CatalogStore.Commit commit) {
+        if (commit.isReviewsChanged()) {
+            reviewService.addCommitted(commit.getAddedReviews());
+        }
+        if (commit.isMoviesChanged()) {
+            movieService.reload();
+        } else if (commit.isReviewsChanged()) {
+            movieService.refreshReviews();
+        }
+        responseCache.ifAvailable(ResponseCacheFilter::invalidateAll);
+    }
+}
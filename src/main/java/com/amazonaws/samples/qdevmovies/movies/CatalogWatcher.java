@@ -0,0 +1,180 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the external catalog and review files and reloads them without a restart.
+ * <p>
+ * Changes are picked up with a {@link WatchService} on the parent directories. Events are
+ * collected until the files have been quiet for {@code movies.catalog.watch-quiet-period-ms},
+ * then the affected service builds a new snapshot on this watcher's thread and swaps it in,
+ * and the response cache is cleared. Requests never wait for a reload.
+ * <p>
+ * Files should be replaced by an atomic rename; a file rewritten in place may be read
+ * half-written, in which case the reload fails and the previous snapshot stays live.
+ */
+@Component
+@ConditionalOnProperty(name = "movies.catalog.watch", havingValue = "true")
+public class CatalogWatcher implements SmartLifecycle {
+    private static final Logger logger = LogManager.getLogger(CatalogWatcher.class);
+
+    private final MovieService movieService;
+    private final ReviewService reviewService;
+    private final ObjectProvider<ResponseCacheFilter> responseCache;
+    private final Path catalogPath;
+    private final Path reviewsPath;
+    private final long quietPeriodMillis;
+
+    private volatile WatchService watchService;
+    private Thread watcherThread;
+
+    public CatalogWatcher(MovieService movieService,
+                          ReviewService reviewService,
+                          ObjectProvider<ResponseCacheFilter> responseCache,
+                          @Value("${movies.catalog.path:}") String catalogPath,
+                          @Value("${movies.reviews.path:}") String reviewsPath,
+                          @Value("${movies.catalog.watch-quiet-period-ms:500}") long quietPeriodMillis) {
+        this.movieService = movieService;
+        this.reviewService = reviewService;
+        this.responseCache = responseCache;
+        this.catalogPath = toPath(catalogPath);
+        this.reviewsPath = toPath(reviewsPath);
+        this.quietPeriodMillis = quietPeriodMillis;
+    }
+
+    private static Path toPath(String path) {
+        return path.trim().isEmpty() ? null : Paths.get(path.trim()).toAbsolutePath().normalize();
+    }
+
+    @Override
+    public synchronized void start() {
+        if (catalogPath == null && reviewsPath == null) {
+            logger.warn("Catalog watching is enabled but neither movies.catalog.path nor movies.reviews.path is set");
+            return;
+        }
+        try {
+            WatchService service = FileSystems.getDefault().newWatchService();
+            Set<Path> directories = new LinkedHashSet<>();
+            for (Path path : new Path[] {catalogPath, reviewsPath}) {
+                if (path != null) {
+                    directories.add(path.getParent());
+                }
+            }
+            for (Path directory : directories) {
+                directory.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+                logger.info("Watching {} for catalog changes", directory);
+            }
+            watchService = service;
+        } catch (IOException e) {
+            logger.error("Failed to start catalog watcher: {}", e.getMessage());
+            return;
+        }
+        watcherThread = new Thread(this::watch, "catalog-watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        WatchService service = watchService;
+        watchService = null;
+        if (service != null) {
+            try {
+                service.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close catalog watcher: {}", e.getMessage());
+            }
+        }
+        if (watcherThread != null) {
+            watcherThread.interrupt();
+            watcherThread = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return watchService != null;
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchService service = watchService;
+                if (service == null) {
+                    return;
+                }
+                Set<Path> changed = new HashSet<>();
+                collect(service.take(), changed);
+                WatchKey next;
+                while ((next = service.poll(quietPeriodMillis, TimeUnit.MILLISECONDS)) != null) {
+                    collect(next, changed);
+                }
+                reloadChanged(changed);
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            logger.debug("Catalog watcher stopped");
+        }
+    }
+
+    private void collect(WatchKey key, Set<Path> changed) {
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // events were lost; reload whatever lives in this directory
+                addIfIn(directory, catalogPath, changed);
+                addIfIn(directory, reviewsPath, changed);
+            } else {
+                changed.add(directory.resolve((Path) event.context()));
+            }
+        }
+        key.reset();
+    }
+
+    private static void addIfIn(Path directory, Path file, Set<Path> changed) {
+        if (file != null && directory.equals(file.getParent())) {
+            changed.add(file);
+        }
+    }
+
+    /**
+     * Reloads the sources among the changed files and clears the response cache if any
+     * new snapshot was published.
+     */
+    void reloadChanged(Set<Path> changed) {
+        boolean reloaded = false;
+        if (catalogPath != null && changed.contains(catalogPath)) {
+            logger.info("Catalog file {} changed, reloading", catalogPath);
+            reloaded |= movieService.reload();
+        }
+        if (reviewsPath != null && changed.contains(reviewsPath)) {
+            logger.info("Reviews file {} changed, reloading", reviewsPath);
+            if (reviewService.reload()) {
+                movieService.refreshReviews();
+                reloaded = true;
+            }
+        }
+        if (reloaded) {
+            responseCache.ifAvailable(ResponseCacheFilter::invalidateAll);
+        }
+    }
+}
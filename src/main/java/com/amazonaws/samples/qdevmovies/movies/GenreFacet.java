@@ -0,0 +1,18 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+/**
+ * An atomic genre (composite genres such as {@code Crime/Drama} are split) and the
+ * number of movies carrying it.
+ */
+public class GenreFacet {
+    private final String genre;
+    private final int count;
+
+    public GenreFacet(String genre, int count) {
+        this.genre = genre;
+        this.count = count;
+    }
+
+    public String getGenre() { return genre; }
+    public int getCount() { return count; }
+}
@@ -0,0 +1,133 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Immutable genre facet snapshot of a catalog, built once.
+ * <p>
+ * Every distinct genre value gets an id and is split on {@code /} into atomic genres.
+ * Counting the facets of a result set is then one array increment per matching movie
+ * followed by one pass over the distinct values, without touching any strings.
+ */
+final class GenreFacets {
+    private final List<String> composites;
+    private final List<GenreFacet> all;
+    private final int[] valueIdByPosition;
+    private final int[][] atomicIdsByValue;
+    private final String[] atomicNames;
+
+    GenreFacets(MovieColumns columns) {
+        // the genre dictionary of the column store already numbers the distinct values
+        List<String> values = Arrays.asList(columns.genres);
+        this.valueIdByPosition = columns.genreCodes;
+
+        // atomic ids are assigned in name order so counted facets come out sorted
+        TreeMap<String, Integer> atomicIds = new TreeMap<>();
+        for (String value : values) {
+            for (String atomic : split(value)) {
+                atomicIds.put(atomic, 0);
+            }
+        }
+        this.atomicNames = atomicIds.keySet().toArray(new String[0]);
+        for (int i = 0; i < atomicNames.length; i++) {
+            atomicIds.put(atomicNames[i], i);
+        }
+        this.atomicIdsByValue = new int[values.size()][];
+        for (int valueId = 0; valueId < values.size(); valueId++) {
+            List<String> parts = split(values.get(valueId));
+            int[] ids = new int[parts.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = atomicIds.get(parts.get(i));
+            }
+            atomicIdsByValue[valueId] = ids;
+        }
+
+        List<String> sortedComposites = new ArrayList<>(values);
+        Collections.sort(sortedComposites);
+        this.composites = Collections.unmodifiableList(sortedComposites);
+        this.all = count(null);
+    }
+
+    /**
+     * @return the distinct genre values as they appear in the catalog, sorted
+     */
+    List<String> composites() {
+        return composites;
+    }
+
+    /**
+     * @return facet counts over the whole catalog, sorted by genre
+     */
+    List<GenreFacet> all() {
+        return all;
+    }
+
+    /**
+     * @param positions catalog positions of a result set, or null for the whole catalog
+     * @return non-zero facet counts for those movies, sorted by genre
+     */
+    List<GenreFacet> countFor(int[] positions) {
+        return positions == null ? all : count(positions);
+    }
+
+    /**
+     * @return non-zero facet counts for the movies at ranks {@code [first, end)} of an order, sorted by genre
+     */
+    List<GenreFacet> countForRanks(MovieOrder order, int first, int end) {
+        if (first == 0 && end == order.size()) {
+            return all;
+        }
+        int[] perValue = new int[atomicIdsByValue.length];
+        for (int rank = first; rank < end; rank++) {
+            perValue[valueIdByPosition[order.positionAt(rank)]]++;
+        }
+        return toFacets(perValue);
+    }
+
+    private List<GenreFacet> count(int[] positions) {
+        int[] perValue = new int[atomicIdsByValue.length];
+        if (positions == null) {
+            for (int valueId : valueIdByPosition) {
+                perValue[valueId]++;
+            }
+        } else {
+            for (int position : positions) {
+                perValue[valueIdByPosition[position]]++;
+            }
+        }
+        return toFacets(perValue);
+    }
+
+    private List<GenreFacet> toFacets(int[] perValue) {
+        int[] perAtomic = new int[atomicNames.length];
+        for (int valueId = 0; valueId < perValue.length; valueId++) {
+            if (perValue[valueId] > 0) {
+                for (int atomicId : atomicIdsByValue[valueId]) {
+                    perAtomic[atomicId] += perValue[valueId];
+                }
+            }
+        }
+        List<GenreFacet> facets = new ArrayList<>();
+        for (int atomicId = 0; atomicId < perAtomic.length; atomicId++) {
+            if (perAtomic[atomicId] > 0) {
+                facets.add(new GenreFacet(atomicNames[atomicId], perAtomic[atomicId]));
+            }
+        }
+        return Collections.unmodifiableList(facets);
+    }
+
+    static List<String> split(String genre) {
+        List<String> parts = new ArrayList<>(2);
+        for (String part : genre.split("/")) {
+            String trimmed = part.trim();
+            if (!trimmed.isEmpty() && !parts.contains(trimmed)) {
+                parts.add(trimmed);
+            }
+        }
+        return parts;
+    }
+}
@@ -0,0 +1,57 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Sorts an {@code int[]} by a comparator on its values, such as catalog positions ordered
+ * by a column, without boxing them. It is a stable merge sort that skips merging two
+ * halves already in order, so input that is sorted or nearly sorted costs close to one
+ * pass of comparisons.
+ */
+final class IntSort {
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private IntSort() {
+    }
+
+    static void sort(int[] values, IntBinaryOperator comparator) {
+        if (values.length > 1) {
+            mergeSort(values.clone(), values, 0, values.length, comparator);
+        }
+    }
+
+    /**
+     * Sorts {@code [from, to)} into {@code dest}, using {@code src} as scratch space; both
+     * hold the same values in that range on entry.
+     */
+    private static void mergeSort(int[] src, int[] dest, int from, int to, IntBinaryOperator comparator) {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            for (int i = from + 1; i < to; i++) {
+                int value = dest[i];
+                int j = i;
+                while (j > from && comparator.applyAsInt(dest[j - 1], value) > 0) {
+                    dest[j] = dest[j - 1];
+                    j--;
+                }
+                dest[j] = value;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(dest, src, from, mid, comparator);
+        mergeSort(dest, src, mid, to, comparator);
+        if (comparator.applyAsInt(src[mid - 1], src[mid]) <= 0) {
+            System.arraycopy(src, from, dest, from, to - from);
+            return;
+        }
+        int left = from;
+        int right = mid;
+        for (int i = from; i < to; i++) {
+            if (right >= to || left < mid && comparator.applyAsInt(src[left], src[right]) <= 0) {
+                dest[i] = src[left++];
+            } else {
+                dest[i] = src[right++];
+            }
+        }
+    }
+}
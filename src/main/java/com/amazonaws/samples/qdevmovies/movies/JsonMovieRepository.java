@@ -0,0 +1,70 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the catalog from {@code movies.json} on the classpath, or from the file named by
+ * {@code movies.catalog.path} when it is set. This is the default repository.
+ */
+@Repository
+@ConditionalOnProperty(name = "movies.catalog.format", havingValue = "json", matchIfMissing = true)
+public class JsonMovieRepository implements MovieRepository {
+    private static final Logger logger = LogManager.getLogger(JsonMovieRepository.class);
+    static final String MOVIES_RESOURCE = "movies.json";
+
+    private final Path path;
+
+    public JsonMovieRepository() {
+        this((Path) null);
+    }
+
+    @Autowired
+    public JsonMovieRepository(@Value("${movies.catalog.path:}") String path) {
+        this(path.trim().isEmpty() ? null : Paths.get(path.trim()));
+    }
+
+    /**
+     * @param path catalog file, or null to read {@code movies.json} from the classpath
+     */
+    public JsonMovieRepository(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public List<Movie> findAll() {
+        List<Movie> movieList = new ArrayList<>();
+        try (InputStream inputStream = open()) {
+            if (inputStream != null) {
+                movieList = readMovies(inputStream);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to load movies from JSON: {}", e.getMessage());
+        }
+        return movieList;
+    }
+
+    private InputStream open() throws IOException {
+        return path != null
+            ? Files.newInputStream(path)
+            : getClass().getClassLoader().getResourceAsStream(MOVIES_RESOURCE);
+    }
+
+    static List<Movie> readMovies(InputStream inputStream) {
+        List<Movie> movieList = new ArrayList<>();
+        StreamingCatalogReader.readMovies(inputStream, movieList::add);
+        return movieList;
+    }
+}
@@ -12,8 +12,27 @@ public class Movie {
     private final String description;
     private final int duration;
     private final double imdbRating;
+    private final ReviewSummary audience;
+    private final String icon;
 
     public Movie(long id, String movieName, String director, int year, String genre, String description, int duration, double imdbRating) {
+        this(id, movieName, director, year, genre, description, duration, imdbRating, ReviewSummary.NONE);
+    }
+
+    /**
+     * @param audience aggregates of the movie's reviews
+     */
+    public Movie(long id, String movieName, String director, int year, String genre, String description, int duration,
+                 double imdbRating, ReviewSummary audience) {
+        this(id, movieName, director, year, genre, description, duration, imdbRating, audience, null);
+    }
+
+    /**
+     * @param audience aggregates of the movie's reviews
+     * @param icon the movie's icon, or null to look it up from the title when asked for
+     */
+    public Movie(long id, String movieName, String director, int year, String genre, String description, int duration,
+                 double imdbRating, ReviewSummary audience, String icon) {
         this.id = id;
         this.movieName = movieName;
         this.director = director;
@@ -22,6 +41,22 @@ public class Movie {
         this.description = description;
         this.duration = duration;
         this.imdbRating = imdbRating;
+        this.audience = audience;
+        this.icon = icon;
+    }
+
+    /**
+     * @return a copy of this movie carrying other review aggregates
+     */
+    public Movie withAudience(ReviewSummary audience) {
+        return withAudience(audience, icon);
+    }
+
+    /**
+     * @return a copy of this movie carrying other review aggregates and icon
+     */
+    public Movie withAudience(ReviewSummary audience, String icon) {
+        return new Movie(id, movieName, director, year, genre, description, duration, imdbRating, audience, icon);
     }
 
     public long getId() {
@@ -56,7 +91,14 @@ public class Movie {
         return this.imdbRating;
     }
 
+    public ReviewSummary getAudience() {
+        return this.audience;
+    }
+
+    /**
+     * @return the icon resolved when the catalog was loaded, or else the built-in one for the title
+     */
     public String getIcon() {
-        return MovieIconUtils.getMovieIcon(this.movieName);
+        return this.icon != null ? this.icon : MovieIconUtils.getMovieIcon(this.movieName);
     }
 }
@@ -0,0 +1,21 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+/**
+ * A movie in a batch lookup response together with its review summary. Serializes as the
+ * movie's own JSON fields plus a {@code reviews} object.
+ */
+public class MovieBatchItem {
+    @JsonUnwrapped
+    private final Movie movie;
+    private final ReviewSummary reviews;
+
+    public MovieBatchItem(Movie movie, ReviewSummary reviews) {
+        this.movie = movie;
+        this.reviews = reviews;
+    }
+
+    public Movie getMovie() { return movie; }
+    public ReviewSummary getReviews() { return reviews; }
+}
@@ -0,0 +1,78 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Offline tool that converts a {@code movies.json} catalog into the binary format
+ * read by {@link BinaryMovieRepository}.
+ * <p>
+ * Usage: {@code MovieCatalogConverter <movies.json> <movies.bin>}
+ */
+public class MovieCatalogConverter {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: MovieCatalogConverter <movies.json> <movies.bin>");
+            System.exit(1);
+        }
+        Path source = Paths.get(args[0]);
+        Path target = Paths.get(args[1]);
+        List<Movie> movies;
+        try (InputStream in = Files.newInputStream(source)) {
+            movies = JsonMovieRepository.readMovies(in);
+        }
+        try (OutputStream out = Files.newOutputStream(target)) {
+            write(movies, out);
+        }
+        System.out.println("Wrote " + movies.size() + " movies to " + target);
+    }
+
+    public static void write(List<Movie> movies, OutputStream target) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(target));
+        out.writeInt(BinaryMovieRepository.MAGIC);
+        out.writeInt(BinaryMovieRepository.VERSION);
+        out.writeInt(movies.size());
+        for (Movie movie : movies) {
+            out.writeLong(movie.getId());
+        }
+        for (Movie movie : movies) {
+            out.writeInt(movie.getYear());
+        }
+        for (Movie movie : movies) {
+            out.writeInt(movie.getDuration());
+        }
+        for (Movie movie : movies) {
+            out.writeDouble(movie.getImdbRating());
+        }
+        writeStrings(out, movies, Movie::getMovieName);
+        writeStrings(out, movies, Movie::getDirector);
+        writeStrings(out, movies, Movie::getGenre);
+        writeStrings(out, movies, Movie::getDescription);
+        out.flush();
+    }
+
+    private static void writeStrings(DataOutputStream out, List<Movie> movies, Function<Movie, String> column)
+            throws IOException {
+        byte[][] encoded = new byte[movies.size()][];
+        int offset = 0;
+        out.writeInt(0);
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = column.apply(movies.get(i)).getBytes(StandardCharsets.UTF_8);
+            offset += encoded[i].length;
+            out.writeInt(offset);
+        }
+        for (byte[] bytes : encoded) {
+            out.write(bytes);
+        }
+    }
+}
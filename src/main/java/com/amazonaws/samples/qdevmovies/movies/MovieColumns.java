@@ -0,0 +1,426 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Struct-of-arrays copy of a catalog. Numeric fields live in primitive arrays indexed by
+ * catalog position, genres and directors are dictionary-encoded as int codes, and names
+ * and descriptions are {@link TextColumn}s of UTF-8. Columns built from a
+ * {@link BinaryMovieRepository} catalog read names and descriptions from its mapped file,
+ * so they stay in the page cache rather than being copied to the heap; other catalogs
+ * have them encoded onto the heap, one byte array per field. The {@link ReviewAggregates}
+ * of each movie are copied into columns of their own, so sorting and filtering by audience
+ * score reads an array like any other field.
+ * <p>
+ * The {@code select*} methods evaluate one predicate over a column without per-movie
+ * objects or data-dependent branches. A first pass counts the matches so the output is
+ * sized exactly; the second writes every candidate position and only advances the write
+ * index when the predicate holds. They take the
+ * ascending positions of a previous filter, or null for the whole catalog, so predicates
+ * can be chained. {@link #movie(int)} builds a {@link Movie} only when one is needed.
+ */
+public final class MovieColumns {
+    final long[] ids;
+    final int[] years;
+    final int[] durations;
+    final double[] ratings;
+    final int[] genreCodes;
+    final String[] genres;
+    final int[] directorCodes;
+    final String[] directors;
+    final int[] reviewCounts;
+    final double[] reviewSums;
+    final double[] audienceScores;
+    /** {@link ReviewAggregates#HISTOGRAM_BUCKETS} counts per position */
+    final int[] reviewHistograms;
+    private final int[] iconCodes;
+    private final String[] icons;
+    private final TextColumn names;
+    private final TextColumn descriptions;
+
+    public MovieColumns(List<Movie> movies) {
+        this(movies, ReviewAggregates.NONE);
+    }
+
+    public MovieColumns(List<Movie> movies, ReviewAggregates reviews) {
+        this(movies, reviews, MovieIcons.DEFAULT);
+    }
+
+    /**
+     * @param reviews aggregates to align with the catalog; movies without reviews get the
+     *                global mean as their audience score
+     * @param icons resolves each movie's icon from its title, once
+     */
+    public MovieColumns(List<Movie> movies, ReviewAggregates reviews, MovieIcons icons) {
+        int size = movies.size();
+        ids = new long[size];
+        years = new int[size];
+        durations = new int[size];
+        ratings = new double[size];
+        genreCodes = new int[size];
+        directorCodes = new int[size];
+        iconCodes = new int[size];
+        reviewCounts = new int[size];
+        reviewSums = new double[size];
+        audienceScores = new double[size];
+        reviewHistograms = new int[size * ReviewAggregates.HISTOGRAM_BUCKETS];
+        Dictionary genreDictionary = new Dictionary();
+        Dictionary directorDictionary = new Dictionary();
+        Dictionary iconDictionary = new Dictionary();
+        for (int i = 0; i < size; i++) {
+            Movie movie = movies.get(i);
+            ids[i] = movie.getId();
+            years[i] = movie.getYear();
+            durations[i] = movie.getDuration();
+            ratings[i] = movie.getImdbRating();
+            genreCodes[i] = genreDictionary.encode(movie.getGenre());
+            directorCodes[i] = directorDictionary.encode(movie.getDirector());
+            iconCodes[i] = iconDictionary.encode(icons.iconFor(movie.getMovieName()));
+        }
+        if (movies instanceof BinaryMovieRepository.MappedCatalog) {
+            BinaryMovieRepository.MappedCatalog mapped = (BinaryMovieRepository.MappedCatalog) movies;
+            names = mapped.textColumn(BinaryMovieRepository.NAME_COLUMN);
+            descriptions = mapped.textColumn(BinaryMovieRepository.DESCRIPTION_COLUMN);
+        } else {
+            names = TextColumn.of(movies, Movie::getMovieName);
+            descriptions = TextColumn.of(movies, Movie::getDescription);
+        }
+        genres = genreDictionary.values();
+        directors = directorDictionary.values();
+        this.icons = iconDictionary.values();
+        for (int i = 0; i < size; i++) {
+            attach(reviews, i);
+        }
+        score(reviews);
+    }
+
+    /**
+     * @param touched the positions of the only movies whose reviews differ from those in
+     *        {@code movies}, or null to attach the reviews of every movie
+     */
+    private MovieColumns(MovieColumns movies, ReviewAggregates reviews, int[] touched) {
+        int size = movies.size();
+        ids = movies.ids;
+        years = movies.years;
+        durations = movies.durations;
+        ratings = movies.ratings;
+        genreCodes = movies.genreCodes;
+        genres = movies.genres;
+        directorCodes = movies.directorCodes;
+        directors = movies.directors;
+        names = movies.names;
+        descriptions = movies.descriptions;
+        iconCodes = movies.iconCodes;
+        icons = movies.icons;
+        if (touched == null) {
+            reviewCounts = new int[size];
+            reviewSums = new double[size];
+            reviewHistograms = new int[size * ReviewAggregates.HISTOGRAM_BUCKETS];
+            for (int i = 0; i < size; i++) {
+                attach(reviews, i);
+            }
+        } else {
+            reviewCounts = movies.reviewCounts.clone();
+            reviewSums = movies.reviewSums.clone();
+            reviewHistograms = movies.reviewHistograms.clone();
+            for (int position : touched) {
+                attach(reviews, position);
+            }
+        }
+        audienceScores = new double[size];
+        score(reviews);
+    }
+
+    /**
+     * @return the same movies with other review aggregates; the movie columns are shared
+     *         and only the review columns are built
+     */
+    MovieColumns withReviews(ReviewAggregates reviews) {
+        return new MovieColumns(this, reviews, null);
+    }
+
+    /**
+     * Like {@link #withReviews(ReviewAggregates)}, but copies the review counts, sums and
+     * histograms over and looks up the aggregates of only the touched movies. Audience
+     * scores are still computed for every movie, since each depends on the global mean.
+     *
+     * @param touched the positions of the only movies whose reviews differ from these columns'
+     */
+    MovieColumns withReviews(ReviewAggregates reviews, int[] touched) {
+        return new MovieColumns(this, reviews, touched);
+    }
+
+    private void attach(ReviewAggregates reviews, int position) {
+        int reviewIndex = reviews.indexOf(ids[position]);
+        int from = position * ReviewAggregates.HISTOGRAM_BUCKETS;
+        if (reviewIndex >= 0) {
+            reviewCounts[position] = reviews.count(reviewIndex);
+            reviewSums[position] = reviews.sum(reviewIndex);
+            reviews.copyHistogram(reviewIndex, reviewHistograms, from);
+        } else {
+            reviewCounts[position] = 0;
+            reviewSums[position] = 0.0;
+            Arrays.fill(reviewHistograms, from, from + ReviewAggregates.HISTOGRAM_BUCKETS, 0);
+        }
+    }
+
+    private void score(ReviewAggregates reviews) {
+        for (int i = 0; i < audienceScores.length; i++) {
+            audienceScores[i] = reviews.score(reviewCounts[i], reviewSums[i]);
+        }
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public String name(int position) {
+        return names.get(position);
+    }
+
+    public String genre(int position) {
+        return genres[genreCodes[position]];
+    }
+
+    /**
+     * Materializes the movie at a catalog position.
+     */
+    public Movie movie(int position) {
+        return new Movie(ids[position], name(position), directors[directorCodes[position]], years[position],
+            genre(position), descriptions.get(position), durations[position], ratings[position], audience(position),
+            icon(position));
+    }
+
+    public String icon(int position) {
+        return icons[iconCodes[position]];
+    }
+
+    /**
+     * @return the review aggregates of the movie at a catalog position
+     */
+    public ReviewSummary audience(int position) {
+        int from = position * ReviewAggregates.HISTOGRAM_BUCKETS;
+        int count = reviewCounts[position];
+        return new ReviewSummary(count, count > 0 ? reviewSums[position] / count : 0.0, audienceScores[position],
+            Arrays.copyOfRange(reviewHistograms, from, from + ReviewAggregates.HISTOGRAM_BUCKETS));
+    }
+
+    /**
+     * @return a read-only list view that materializes each movie on access
+     */
+    public List<Movie> asList() {
+        return new MovieList();
+    }
+
+    /**
+     * @param movies the movies these columns were built from, in catalog order
+     * @return a read-only list view of {@code movies} that attaches each movie's review
+     *         aggregates and icon from these columns the first time it is read, and returns
+     *         that same movie from then on
+     */
+    public List<Movie> asList(List<Movie> movies) {
+        return new AttachedList(movies);
+    }
+
+    /**
+     * @return the dictionary code of a genre value (exact match), or -1 if no movie has it
+     */
+    public int genreCode(String genre) {
+        return indexOf(genres, genre);
+    }
+
+    /**
+     * @return the dictionary code of a director (exact match), or -1 if no movie has it
+     */
+    public int directorCode(String director) {
+        return indexOf(directors, director);
+    }
+
+    /** @return positions whose year lies in {@code [min, max]} */
+    public int[] selectYears(int min, int max, int[] candidates) {
+        return select(years, min, max, candidates);
+    }
+
+    /** @return positions whose duration lies in {@code [min, max]} */
+    public int[] selectDurations(int min, int max, int[] candidates) {
+        return select(durations, min, max, candidates);
+    }
+
+    /** @return positions whose rating lies in {@code [min, max]} */
+    public int[] selectRatings(double min, double max, int[] candidates) {
+        int matches = 0;
+        if (candidates == null) {
+            for (double value : ratings) {
+                matches += (value >= min & value <= max) ? 1 : 0;
+            }
+        } else {
+            for (int position : candidates) {
+                double value = ratings[position];
+                matches += (value >= min & value <= max) ? 1 : 0;
+            }
+        }
+        int[] out = new int[matches + 1];
+        int n = 0;
+        if (candidates == null) {
+            for (int position = 0; position < ratings.length; position++) {
+                double value = ratings[position];
+                out[n] = position;
+                n += (value >= min & value <= max) ? 1 : 0;
+            }
+        } else {
+            for (int position : candidates) {
+                double value = ratings[position];
+                out[n] = position;
+                n += (value >= min & value <= max) ? 1 : 0;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    /** @return positions whose genre code is accepted */
+    public int[] selectGenres(boolean[] acceptedCodes, int[] candidates) {
+        return selectCodes(genreCodes, acceptedCodes, candidates);
+    }
+
+    /** @return positions whose director code is accepted */
+    public int[] selectDirectors(boolean[] acceptedCodes, int[] candidates) {
+        return selectCodes(directorCodes, acceptedCodes, candidates);
+    }
+
+    private static int[] select(int[] column, int min, int max, int[] candidates) {
+        int matches = 0;
+        if (candidates == null) {
+            for (int value : column) {
+                matches += inRange(value, min, max);
+            }
+        } else {
+            for (int position : candidates) {
+                matches += inRange(column[position], min, max);
+            }
+        }
+        int[] out = new int[matches + 1];
+        int n = 0;
+        if (candidates == null) {
+            for (int position = 0; position < column.length; position++) {
+                out[n] = position;
+                n += inRange(column[position], min, max);
+            }
+        } else {
+            for (int position : candidates) {
+                out[n] = position;
+                n += inRange(column[position], min, max);
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static int[] selectCodes(int[] codes, boolean[] acceptedCodes, int[] candidates) {
+        int matches = 0;
+        if (candidates == null) {
+            for (int code : codes) {
+                matches += acceptedCodes[code] ? 1 : 0;
+            }
+        } else {
+            for (int position : candidates) {
+                matches += acceptedCodes[codes[position]] ? 1 : 0;
+            }
+        }
+        int[] out = new int[matches + 1];
+        int n = 0;
+        if (candidates == null) {
+            for (int position = 0; position < codes.length; position++) {
+                out[n] = position;
+                n += acceptedCodes[codes[position]] ? 1 : 0;
+            }
+        } else {
+            for (int position : candidates) {
+                out[n] = position;
+                n += acceptedCodes[codes[position]] ? 1 : 0;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    /**
+     * @return 1 if {@code min <= value <= max}, else 0, computed without a branch: both
+     *         differences are non-negative exactly when the value is in range
+     */
+    private static int inRange(int value, int min, int max) {
+        return (int) ((((long) value - min) | ((long) max - value)) >>> 63) ^ 1;
+    }
+
+    private static int indexOf(String[] values, String value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i].equals(value)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int encode(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        String[] values() {
+            return values.toArray(new String[0]);
+        }
+    }
+
+    private final class AttachedList extends AbstractList<Movie> implements RandomAccess {
+        private final List<Movie> movies;
+        /**
+         * Movies attached so far. Threads that race on one position may each build it and
+         * either may be kept; that is safe because a {@link Movie} is immutable.
+         */
+        private final Movie[] attached;
+
+        AttachedList(List<Movie> movies) {
+            this.movies = movies;
+            this.attached = new Movie[movies.size()];
+        }
+
+        @Override
+        public Movie get(int index) {
+            Movie movie = attached[index];
+            if (movie == null) {
+                movie = movies.get(index).withAudience(audience(index), icon(index));
+                attached[index] = movie;
+            }
+            return movie;
+        }
+
+        @Override
+        public int size() {
+            return movies.size();
+        }
+    }
+
+    private final class MovieList extends AbstractList<Movie> implements RandomAccess {
+        @Override
+        public Movie get(int index) {
+            return movie(index);
+        }
+
+        @Override
+        public int size() {
+            return ids.length;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import com.amazonaws.samples.qdevmovies.utils.MovieIconUtils;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Icon of each movie title, read from a mapping file of the form
+ * <pre>{"default": "🎬", "icons": {"The Prison Escape": "🔒", ...}}</pre>
+ * Titles match case-insensitively. The mapping is {@code movie-icons.json} on the classpath,
+ * or the file named by {@code movies.icons.path} when it is set. If the classpath mapping is
+ * missing or unreadable, the table built into {@link MovieIconUtils} is used instead.
+ * <p>
+ * Icons are resolved once per movie when a catalog snapshot is built and kept on the
+ * {@link Movie}; lookups compare the title in place, without lower-casing a copy of it.
+ */
+@Component
+public class MovieIcons {
+    private static final Logger logger = LogManager.getLogger(MovieIcons.class);
+    static final String ICONS_RESOURCE = "movie-icons.json";
+
+    /** the classpath mapping */
+    public static final MovieIcons DEFAULT = fromResource(ICONS_RESOURCE);
+
+    private final Map<String, String> icons;
+    private final String defaultIcon;
+
+    /**
+     * @param path mapping file, or blank for the classpath mapping; if the file cannot be
+     *             read the classpath mapping is used
+     */
+    @Autowired
+    public MovieIcons(@Value("${movies.icons.path:}") String path) {
+        this(path.trim().isEmpty() ? DEFAULT : fromFile(Paths.get(path.trim())));
+    }
+
+    private MovieIcons(MovieIcons icons) {
+        this(icons.icons, icons.defaultIcon);
+    }
+
+    MovieIcons(Map<String, String> icons, String defaultIcon) {
+        Map<String, String> byTitle = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        byTitle.putAll(icons);
+        this.icons = Collections.unmodifiableMap(byTitle);
+        this.defaultIcon = defaultIcon;
+    }
+
+    /**
+     * @return the movie's icon, or the mapping's default icon if the title is not mapped
+     */
+    public String iconFor(String movieName) {
+        String icon = movieName != null ? icons.get(movieName) : null;
+        return icon != null ? icon : defaultIcon;
+    }
+
+    /**
+     * @return the number of mapped titles
+     */
+    public int size() {
+        return icons.size();
+    }
+
+    static MovieIcons read(InputStream in) {
+        JSONObject mapping = new JSONObject(new JSONTokener(in));
+        JSONObject titles = mapping.optJSONObject("icons");
+        Map<String, String> icons = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        if (titles != null) {
+            for (String title : titles.keySet()) {
+                icons.put(title, titles.getString(title));
+            }
+        }
+        return new MovieIcons(icons, mapping.optString("default", MovieIconUtils.DEFAULT_ICON));
+    }
+
+    private static MovieIcons fromFile(Path path) {
+        try (InputStream in = Files.newInputStream(path)) {
+            MovieIcons icons = read(in);
+            logger.info("Loaded {} movie icons from {}", icons.size(), path);
+            return icons;
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to load movie icons from {}, using the built-in icons: {}", path, e.getMessage());
+            return DEFAULT;
+        }
+    }
+
+    /**
+     * @return the mapping in a classpath resource, or the built-in icons if it is missing or
+     *         cannot be read
+     */
+    static MovieIcons fromResource(String resource) {
+        try (InputStream in = MovieIcons.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in != null) {
+                return read(in);
+            }
+            logger.warn("No movie icons at {} on the classpath, using the built-in icons", resource);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to load movie icons from {}, using the built-in icons: {}", resource, e.getMessage());
+        }
+        return new MovieIcons(MovieIconUtils.getBuiltInIcons(), MovieIconUtils.DEFAULT_ICON);
+    }
+}
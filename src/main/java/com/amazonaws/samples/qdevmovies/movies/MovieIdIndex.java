@@ -0,0 +1,112 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Maps movie ids to catalog positions without boxing.
+ * <p>
+ * When the ids form a contiguous run in catalog order (the usual case for a generated
+ * catalog) a lookup is a subtraction and a range check, and the index holds no arrays at
+ * all. Otherwise ids are kept in an open-addressing table of parallel {@code long[]} keys
+ * and {@code int[]} positions with linear probing, at a load factor of at most one half.
+ * If an id occurs more than once, the last position wins.
+ */
+public final class MovieIdIndex {
+    public static final int NOT_FOUND = -1;
+
+    private final long firstId;
+    private final int denseSize;
+    private final long[] keys;
+    private final int[] positions;
+    private final int mask;
+
+    private MovieIdIndex(long firstId, int denseSize, long[] keys, int[] positions) {
+        this.firstId = firstId;
+        this.denseSize = denseSize;
+        this.keys = keys;
+        this.positions = positions;
+        this.mask = keys != null ? keys.length - 1 : 0;
+    }
+
+    public static MovieIdIndex of(List<Movie> movies) {
+        long[] ids = new long[movies.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = movies.get(i).getId();
+        }
+        return of(ids);
+    }
+
+    static MovieIdIndex of(MovieColumns columns) {
+        return of(columns.ids);
+    }
+
+    private static MovieIdIndex of(long[] ids) {
+        int size = ids.length;
+        long firstId = size > 0 ? ids[0] : 0;
+        boolean dense = true;
+        for (int i = 1; i < size && dense; i++) {
+            dense = ids[i] == firstId + i;
+        }
+        if (dense) {
+            return new MovieIdIndex(firstId, size, null, null);
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(2, size) - 1) << 2;
+        long[] keys = new long[capacity];
+        int[] positions = new int[capacity];
+        Arrays.fill(positions, NOT_FOUND);
+        for (int position = 0; position < size; position++) {
+            long id = ids[position];
+            int slot = slot(id, capacity - 1);
+            while (positions[slot] != NOT_FOUND && keys[slot] != id) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            keys[slot] = id;
+            positions[slot] = position;
+        }
+        return new MovieIdIndex(0, -1, keys, positions);
+    }
+
+    /**
+     * @return the catalog position of the movie with this id, or {@link #NOT_FOUND}
+     */
+    public int positionOf(long id) {
+        if (keys == null) {
+            long offset = id - firstId;
+            return offset >= 0 && offset < denseSize ? (int) offset : NOT_FOUND;
+        }
+        int slot = slot(id, mask);
+        int position;
+        while ((position = positions[slot]) != NOT_FOUND) {
+            if (keys[slot] == id) {
+                return position;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * @return true if lookups are answered arithmetically rather than from the table
+     */
+    public boolean isDense() {
+        return keys == null;
+    }
+
+    /**
+     * @return approximate bytes held by the index
+     */
+    long weight() {
+        return keys == null ? 32 : 32 + 16 + keys.length * 8L + 16 + positions.length * 4L;
+    }
+
+    private static int slot(long id, int mask) {
+        // murmur3 finalizer: spreads sequential and strided ids over the table
+        long h = id;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+}
@@ -0,0 +1,57 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+/**
+ * JSON body of a movie create or update request. Every field except the description is
+ * required.
+ */
+public class MovieInput {
+    private String movieName;
+    private String director;
+    private Integer year;
+    private String genre;
+    private String description;
+    private Integer duration;
+    private Double imdbRating;
+
+    public String getMovieName() { return movieName; }
+    public void setMovieName(String movieName) { this.movieName = movieName; }
+    public String getDirector() { return director; }
+    public void setDirector(String director) { this.director = director; }
+    public Integer getYear() { return year; }
+    public void setYear(Integer year) { this.year = year; }
+    public String getGenre() { return genre; }
+    public void setGenre(String genre) { this.genre = genre; }
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+    public Integer getDuration() { return duration; }
+    public void setDuration(Integer duration) { this.duration = duration; }
+    public Double getImdbRating() { return imdbRating; }
+    public void setImdbRating(Double imdbRating) { this.imdbRating = imdbRating; }
+
+    /**
+     * @param id id of the movie, or 0 to have one assigned
+     * @throws IllegalArgumentException if a field is missing or out of range
+     */
+    public Movie toMovie(long id) {
+        require(movieName, "movieName");
+        require(director, "director");
+        require(genre, "genre");
+        if (year == null || year < 1888 || year > 2100) {
+            throw new IllegalArgumentException("year must be between 1888 and 2100");
+        }
+        if (duration == null || duration <= 0) {
+            throw new IllegalArgumentException("duration must be a positive number of minutes");
+        }
+        if (imdbRating == null || imdbRating < 0 || imdbRating > 5) {
+            throw new IllegalArgumentException("imdbRating must be between 0 and 5");
+        }
+        return new Movie(id, movieName.trim(), director.trim(), year, genre.trim(),
+            description != null ? description.trim() : "", duration, imdbRating);
+    }
+
+    static void require(String value, String field) {
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalArgumentException(field + " is required");
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer meters of the movie API, published by Actuator at {@code /actuator/prometheus}:
+ * <ul>
+ *   <li>{@code movies.search}: search latency, tagged with the criteria used, e.g.
+ *   {@code name+genre};</li>
+ *   <li>{@code movies.search.results}: matches per search;</li>
+ *   <li>{@code movies.search.empty}: searches that matched nothing;</li>
+ *   <li>{@code movies.lookup} and {@code movies.reviews.lookup}: movie and review lookups by id;</li>
+ *   <li>{@code movies.view.render}: Thymeleaf render time, tagged with the view;</li>
+ *   <li>{@code movies.requests.invalid}: rejected requests, tagged with the reason;</li>
+ *   <li>{@code movies.catalog.size} and {@code movies.catalog.index.bytes}: gauges of the
+ *   current catalog snapshot;</li>
+ *   <li>{@code movies.store.queue.depth}, {@code movies.store.batch.size},
+ *   {@code movies.store.commit} and {@code movies.store.rejected}: the {@link CatalogStore}
+ *   write queue, the writes per committed batch, the time to log, sync and publish a batch,
+ *   and writes turned away because the queue was full.</li>
+ * </ul>
+ * Timers and the result summary publish percentile histograms, so percentiles can be
+ * aggregated across instances. Every meter is registered up front or on first use of a tag
+ * and then cached, so recording costs a clock read and a few atomic adds; no tags are built
+ * per request. {@link #NONE} records nothing and does not read the clock.
+ */
+@Component
+public class MovieMetrics {
+    public static final MovieMetrics NONE = new MovieMetrics(null);
+
+    static final String REASON_NO_CRITERIA = "no-criteria";
+    static final String REASON_INVALID_PARAMETER = "invalid-parameter";
+
+    private static final int NAME = 1;
+    private static final int ID = 2;
+    private static final int GENRE = 4;
+    private static final int RANGE = 8;
+
+    private final MeterRegistry registry;
+    private final Timer[] searchTimers = new Timer[16];
+    private final DistributionSummary searchResults;
+    private final Counter emptySearches;
+    private final Timer movieLookups;
+    private final Timer reviewLookups;
+    private final DistributionSummary storeBatches;
+    private final Timer storeCommits;
+    private final Counter storeRejections;
+    private final ConcurrentMap<String, Timer> renderTimers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Counter> invalidRequests = new ConcurrentHashMap<>();
+
+    /**
+     * @param registry registry to publish to, or null to record nothing
+     */
+    @Autowired
+    public MovieMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        if (registry == null) {
+            searchResults = null;
+            emptySearches = null;
+            movieLookups = null;
+            reviewLookups = null;
+            storeBatches = null;
+            storeCommits = null;
+            storeRejections = null;
+            return;
+        }
+        searchResults = DistributionSummary.builder("movies.search.results")
+            .description("Movies matched per search")
+            .publishPercentileHistogram()
+            .minimumExpectedValue(1.0)
+            .maximumExpectedValue(1_000_000.0)
+            .register(registry);
+        emptySearches = Counter.builder("movies.search.empty")
+            .description("Searches that matched no movies")
+            .register(registry);
+        movieLookups = timer("movies.lookup", "Movie lookups by id").register(registry);
+        reviewLookups = timer("movies.reviews.lookup", "Review lookups by movie id").register(registry);
+        storeBatches = DistributionSummary.builder("movies.store.batch.size")
+            .description("Writes committed per catalog store batch")
+            .publishPercentileHistogram()
+            .minimumExpectedValue(1.0)
+            .maximumExpectedValue(100_000.0)
+            .register(registry);
+        storeCommits = timer("movies.store.commit", "Time to log, sync and publish a catalog store batch")
+            .register(registry);
+        storeRejections = Counter.builder("movies.store.rejected")
+            .description("Catalog store writes rejected because the write queue was full")
+            .register(registry);
+    }
+
+    private static Timer.Builder timer(String name, String description) {
+        return Timer.builder(name).description(description).publishPercentileHistogram();
+    }
+
+    public boolean isEnabled() {
+        return registry != null;
+    }
+
+    /**
+     * Publishes the size and index weight of whichever snapshot the supplier returns when
+     * the gauges are scraped.
+     */
+    void bindCatalog(Supplier<CatalogSnapshot> catalog) {
+        if (registry == null) {
+            return;
+        }
+        Gauge.builder("movies.catalog.size", catalog, current -> current.get().movies.size())
+            .description("Movies in the current catalog")
+            .strongReference(true)
+            .register(registry);
+        Gauge.builder("movies.catalog.index.bytes", catalog, current -> current.get().indexWeight)
+            .description("Approximate bytes held by the catalog's id map, search index and sort orders")
+            .baseUnit("bytes")
+            .strongReference(true)
+            .register(registry);
+    }
+
+    /**
+     * Publishes the number of writes waiting in the catalog store's queue.
+     */
+    void bindStoreQueue(IntSupplier depth) {
+        if (registry == null) {
+            return;
+        }
+        Gauge.builder("movies.store.queue.depth", depth, IntSupplier::getAsInt)
+            .description("Writes waiting for the catalog store writer")
+            .strongReference(true)
+            .register(registry);
+    }
+
+    /**
+     * @return the start time to pass to a {@code record} method, or 0 if nothing is recorded
+     */
+    long start() {
+        return registry != null ? System.nanoTime() : 0L;
+    }
+
+    void recordSearch(SearchKey key, long start, int results) {
+        if (registry == null) {
+            return;
+        }
+        searchTimer(key).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        searchResults.record(results);
+        if (results == 0) {
+            emptySearches.increment();
+        }
+    }
+
+    void recordMovieLookup(long start) {
+        if (registry != null) {
+            movieLookups.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    void recordReviewLookup(long start) {
+        if (registry != null) {
+            reviewLookups.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    void recordStoreCommit(int writes, long start) {
+        if (registry != null) {
+            storeBatches.record(writes);
+            storeCommits.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    void recordStoreRejection() {
+        if (registry != null) {
+            storeRejections.increment();
+        }
+    }
+
+    void recordRender(String view, long start) {
+        if (registry == null) {
+            return;
+        }
+        renderTimers.computeIfAbsent(view, v -> timer("movies.view.render", "Time to render a view")
+            .tag("view", v)
+            .register(registry))
+            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param reason {@link #REASON_NO_CRITERIA} or {@link #REASON_INVALID_PARAMETER}
+     */
+    void recordInvalidRequest(String reason) {
+        if (registry == null) {
+            return;
+        }
+        invalidRequests.computeIfAbsent(reason, r -> Counter.builder("movies.requests.invalid")
+            .description("Requests rejected as invalid")
+            .tag("reason", r)
+            .register(registry))
+            .increment();
+    }
+
+    private Timer searchTimer(SearchKey key) {
+        int criteria = (key.getName() != null ? NAME : 0) | (key.getId() != null ? ID : 0)
+            | (key.getGenre() != null ? GENRE : 0) | (key.getRanges() != null ? RANGE : 0);
+        Timer timer = searchTimers[criteria];
+        if (timer == null) {
+            // registering twice returns the same timer, so a racing thread is harmless
+            timer = timer("movies.search", "Search latency by criteria")
+                .tag("criteria", criteriaTag(criteria))
+                .register(registry);
+            searchTimers[criteria] = timer;
+        }
+        return timer;
+    }
+
+    static String criteriaTag(int criteria) {
+        if (criteria == 0) {
+            return "none";
+        }
+        StringJoiner tag = new StringJoiner("+");
+        if ((criteria & NAME) != 0) {
+            tag.add("name");
+        }
+        if ((criteria & ID) != 0) {
+            tag.add("id");
+        }
+        if ((criteria & GENRE) != 0) {
+            tag.add("genre");
+        }
+        if ((criteria & RANGE) != 0) {
+            tag.add("range");
+        }
+        return tag.toString();
+    }
+}
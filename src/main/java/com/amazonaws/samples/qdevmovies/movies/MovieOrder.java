@@ -0,0 +1,130 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.stream.IntStream;
+
+/**
+ * Catalog positions presorted in one {@link MovieSort} order, together with the inverse
+ * mapping from position to rank, so a set of matches can be ordered by sorting ints.
+ * <p>
+ * Orders by a field double as secondary indexes on it: the movies whose key lies in a
+ * range occupy one contiguous run of ranks, found with two binary searches.
+ */
+final class MovieOrder {
+    private final MovieSort sort;
+    private final MovieColumns columns;
+    private final int[] order;
+    private final int[] rank;
+
+    MovieOrder(MovieColumns columns, MovieSort sort) {
+        this(sort, columns, sorted(IntStream.range(0, columns.size()).toArray(), columns, sort));
+    }
+
+    private MovieOrder(MovieSort sort, MovieColumns columns, int[] order) {
+        this.sort = sort;
+        this.columns = columns;
+        this.order = order;
+        this.rank = new int[order.length];
+        for (int r = 0; r < order.length; r++) {
+            rank[order[r]] = r;
+        }
+    }
+
+    private MovieOrder(MovieSort sort, MovieColumns columns, int[] order, int[] rank) {
+        this.sort = sort;
+        this.columns = columns;
+        this.order = order;
+        this.rank = rank;
+    }
+
+    /**
+     * @return this order over columns that differ only in fields it does not sort by
+     */
+    MovieOrder withColumns(MovieColumns columns) {
+        return new MovieOrder(sort, columns, order, rank);
+    }
+
+    /**
+     * @return this order over columns whose sort keys may differ, sorted again starting from
+     *         this order; when few movies change places that takes close to one pass
+     */
+    MovieOrder resorted(MovieColumns columns) {
+        return new MovieOrder(sort, columns, sorted(order.clone(), columns, sort));
+    }
+
+    private static int[] sorted(int[] positions, MovieColumns columns, MovieSort sort) {
+        IntSort.sort(positions, (a, b) -> sort.compare(columns, a, b));
+        return positions;
+    }
+
+    MovieColumns columns() {
+        return columns;
+    }
+
+    int positionAt(int rank) {
+        return order[rank];
+    }
+
+    int rankOf(int position) {
+        return rank[position];
+    }
+
+    int size() {
+        return order.length;
+    }
+
+    /**
+     * @return approximate bytes held by the order and its inverse
+     */
+    long weight() {
+        return 32 + 2 * (16 + order.length * 4L);
+    }
+
+    /**
+     * @param inclusive whether the cursor's own movie counts as being after it
+     * @return the first rank whose movie sorts after the cursor in this order's natural direction
+     */
+    int firstRankAfter(PageCursor cursor, boolean inclusive) {
+        int low = 0;
+        int high = order.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int comparison = cursor.compareNatural(columns, order[mid]);
+            if (comparison > 0 || inclusive && comparison == 0) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the first rank past the ranks whose key lies in {@code [min, max]}; their
+     *         first rank is {@link #firstRankInRange}
+     */
+    int endRankOfRange(double min, double max) {
+        return firstRankWithKeyAfter(sort.isDescending() ? min : max, false);
+    }
+
+    /**
+     * @return the first rank whose key lies in {@code [min, max]}, or where it would be
+     */
+    int firstRankInRange(double min, double max) {
+        return firstRankWithKeyAfter(sort.isDescending() ? max : min, true);
+    }
+
+    private int firstRankWithKeyAfter(double bound, boolean inclusive) {
+        int low = 0;
+        int high = order.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int comparison = sort.compareKeys(sort.key(columns, order[mid]), bound);
+            if (comparison > 0 || inclusive && comparison == 0) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,43 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.List;
+
+/**
+ * One page of a movie listing plus what a client needs to fetch the next one.
+ */
+public class MoviePage {
+    private final List<Movie> items;
+    private final int totalMatches;
+    private final int offset;
+    private final int limit;
+    private final MovieSort sort;
+    private final String nextCursor;
+    private final List<GenreFacet> genreFacets;
+
+    public MoviePage(List<Movie> items, int totalMatches, int offset, int limit, MovieSort sort, String nextCursor,
+                     List<GenreFacet> genreFacets) {
+        this.items = items;
+        this.totalMatches = totalMatches;
+        this.offset = offset;
+        this.limit = limit;
+        this.sort = sort;
+        this.nextCursor = nextCursor;
+        this.genreFacets = genreFacets;
+    }
+
+    public List<Movie> getItems() { return items; }
+    public int getTotalMatches() { return totalMatches; }
+    public int getOffset() { return offset; }
+    public int getLimit() { return limit; }
+    public MovieSort getSort() { return sort; }
+    public String getNextCursor() { return nextCursor; }
+
+    /**
+     * @return genre facet counts over all matches, not just this page
+     */
+    public List<GenreFacet> getGenreFacets() { return genreFacets; }
+
+    public boolean isHasMore() {
+        return nextCursor != null;
+    }
+}
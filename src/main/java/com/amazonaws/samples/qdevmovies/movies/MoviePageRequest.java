@@ -0,0 +1,94 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+/**
+ * Paging parameters bound from the {@code limit}, {@code offset}, {@code cursor}, {@code sort}
+ * and {@code order} query parameters. A cursor takes precedence over an offset.
+ */
+public class MoviePageRequest {
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    private Integer limit;
+    private Integer offset;
+    private String cursor;
+    private String sort;
+    private String order;
+
+    public MoviePageRequest() {
+    }
+
+    public MoviePageRequest(Integer limit, Integer offset, String cursor, String sort) {
+        this.limit = limit;
+        this.offset = offset;
+        this.cursor = cursor;
+        this.sort = sort;
+    }
+
+    public MoviePageRequest(Integer limit, Integer offset, String cursor, String sort, String order) {
+        this(limit, offset, cursor, sort);
+        this.order = order;
+    }
+
+    public Integer getLimit() { return limit; }
+    public void setLimit(Integer limit) { this.limit = limit; }
+    public Integer getOffset() { return offset; }
+    public void setOffset(Integer offset) { this.offset = offset; }
+    public String getCursor() { return cursor; }
+    public void setCursor(String cursor) { this.cursor = cursor; }
+    public String getSort() { return sort; }
+    public void setSort(String sort) { this.sort = sort; }
+    public String getOrder() { return order; }
+    public void setOrder(String order) { this.order = order; }
+
+    /**
+     * @return the page size, clamped to [1, {@link #MAX_LIMIT}]
+     */
+    public int resolvedLimit() {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.max(1, Math.min(MAX_LIMIT, limit));
+    }
+
+    public int resolvedOffset() {
+        return offset == null || offset < 0 ? 0 : offset;
+    }
+
+    public boolean hasCursor() {
+        return cursor != null && !cursor.trim().isEmpty();
+    }
+
+    /**
+     * Resolves the sort order. A cursor carries its own order and must agree with an explicit sort.
+     *
+     * @throws IllegalArgumentException if the sort or cursor is invalid
+     */
+    public MovieSort resolvedSort() {
+        if (hasCursor()) {
+            MovieSort cursorSort = PageCursor.decode(cursor.trim()).getSort();
+            if (sort != null && !sort.trim().isEmpty() && MovieSort.fromParam(sort) != cursorSort) {
+                throw new IllegalArgumentException("Cursor does not match sort '" + sort + "'");
+            }
+            return cursorSort;
+        }
+        return MovieSort.fromParam(sort);
+    }
+
+    /**
+     * Resolves the direction: {@code asc} or {@code desc}, defaulting to the natural direction
+     * of the sort. A cursor carries its own direction and must agree with an explicit order.
+     *
+     * @return true for a descending traversal
+     * @throws IllegalArgumentException if the order or cursor is invalid
+     */
+    public boolean resolvedDescending(MovieSort resolvedSort) {
+        if (hasCursor()) {
+            boolean cursorDescending = PageCursor.decode(cursor.trim()).isDescending();
+            if (order != null && !order.trim().isEmpty() && resolvedSort.descendingFromParam(order) != cursorDescending) {
+                throw new IllegalArgumentException("Cursor does not match order '" + order + "'");
+            }
+            return cursorDescending;
+        }
+        return resolvedSort.descendingFromParam(order);
+    }
+}
@@ -0,0 +1,351 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A {@link SearchKey} compiled against one catalog snapshot.
+ * <p>
+ * Compiling does all the per-request preparation once: the name and genre terms are
+ * matched against the lower-cased distinct values of {@link MovieSearchIndex}, the id is
+ * resolved to a catalog position, and the range bounds are unpacked into primitives. The
+ * most selective criterion then supplies the candidate positions - the id's position, the
+ * postings of a term, or a run of a presorted {@link MovieOrder} - and every other
+ * criterion is checked on each candidate in a single loop that reads only arrays and does
+ * not allocate.
+ * <p>
+ * A query is immutable once compiled and may be evaluated any number of times, from any
+ * thread; its results always describe the snapshot it was compiled against.
+ */
+public final class MovieQuery {
+    private static final int NO_ID = -2;
+    private static final int[] NO_MATCHES = new int[0];
+
+    private final CatalogSnapshot catalog;
+    private final MovieSearchIndex.FieldIndex names;
+    private final MovieSearchIndex.FieldIndex genres;
+    private final MovieColumns columns;
+    private final int idPosition;
+    private final TermMatch name;
+    private final TermMatch genre;
+    private final double minYear;
+    private final double maxYear;
+    private final double minDuration;
+    private final double maxDuration;
+    private final double minRating;
+    private final double maxRating;
+    private final double minAudienceScore;
+    private final double maxAudienceScore;
+    /** ascending candidate positions, or null for the whole catalog */
+    private final int[] candidates;
+    private final boolean checkId;
+    private final TermMatch checkName;
+    private final TermMatch checkGenre;
+    private final boolean checkYear;
+    private final boolean checkDuration;
+    private final boolean checkRating;
+    private final boolean checkAudience;
+
+    private MovieQuery(CatalogSnapshot catalog, SearchKey key, TermMatcher matcher) {
+        this.catalog = catalog;
+        this.names = catalog.searchIndex.names();
+        this.genres = catalog.searchIndex.genres();
+        this.columns = catalog.columns;
+        this.idPosition = key.getId() != null ? catalog.ids.positionOf(key.getId()) : NO_ID;
+        if (idPosition == NO_ID) {
+            this.name = key.getName() != null ? matcher.match(names, key.getName()) : null;
+            this.genre = key.getGenre() != null ? matcher.match(genres, key.getGenre()) : null;
+        } else {
+            // the id leaves at most one movie, so only its own values are worth checking
+            this.name = key.getName() != null ? TermMatch.ofPosition(names, key.getName(), idPosition) : null;
+            this.genre = key.getGenre() != null ? TermMatch.ofPosition(genres, key.getGenre(), idPosition) : null;
+        }
+        MovieRanges ranges = key.getRanges() != null ? key.getRanges() : MovieRanges.NONE;
+        this.minYear = ranges.min(MovieSort.YEAR);
+        this.maxYear = ranges.max(MovieSort.YEAR);
+        this.minDuration = ranges.min(MovieSort.DURATION);
+        this.maxDuration = ranges.max(MovieSort.DURATION);
+        this.minRating = ranges.min(MovieSort.RATING);
+        this.maxRating = ranges.max(MovieSort.RATING);
+        this.minAudienceScore = ranges.min(MovieSort.AUDIENCE);
+        this.maxAudienceScore = ranges.max(MovieSort.AUDIENCE);
+
+        // pick the criterion with the fewest candidates, and check all the others
+        int fewest = Integer.MAX_VALUE;
+        Object seed = null;
+        if (idPosition != NO_ID) {
+            fewest = idPosition == MovieIdIndex.NOT_FOUND ? 0 : 1;
+            seed = key;
+        }
+        int size = columns.size();
+        if (name != null && name.seedCost(size) < fewest) {
+            fewest = name.movies;
+            seed = name;
+        }
+        if (genre != null && genre.seedCost(size) < fewest) {
+            fewest = genre.movies;
+            seed = genre;
+        }
+        int runFirst = 0;
+        for (MovieSort field : MovieRanges.FIELDS) {
+            if (ranges.restricts(field)) {
+                MovieOrder order = catalog.orders.get(field);
+                int first = order.firstRankInRange(ranges.min(field), ranges.max(field));
+                int run = Math.max(0, order.endRankOfRange(ranges.min(field), ranges.max(field)) - first);
+                if (run < fewest) {
+                    fewest = run;
+                    seed = field;
+                    runFirst = first;
+                }
+            }
+        }
+
+        if (seed == key) {
+            candidates = idPosition == MovieIdIndex.NOT_FOUND ? NO_MATCHES : new int[] {idPosition};
+        } else if (seed instanceof TermMatch) {
+            candidates = ((TermMatch) seed).positions();
+        } else if (seed instanceof MovieSort) {
+            candidates = runPositions(catalog.orders.get((MovieSort) seed), runFirst, fewest);
+        } else {
+            candidates = null;
+        }
+        this.checkId = idPosition != NO_ID && seed != key;
+        this.checkName = name != null && seed != name ? name.forLookups(candidateCount()) : null;
+        this.checkGenre = genre != null && seed != genre ? genre.forLookups(candidateCount()) : null;
+        this.checkYear = ranges.restricts(MovieSort.YEAR) && seed != MovieSort.YEAR;
+        this.checkDuration = ranges.restricts(MovieSort.DURATION) && seed != MovieSort.DURATION;
+        this.checkRating = ranges.restricts(MovieSort.RATING) && seed != MovieSort.RATING;
+        this.checkAudience = ranges.restricts(MovieSort.AUDIENCE) && seed != MovieSort.AUDIENCE;
+    }
+
+    private static int[] runPositions(MovieOrder order, int first, int length) {
+        int[] positions = new int[length];
+        for (int i = 0; i < length; i++) {
+            positions[i] = order.positionAt(first + i);
+        }
+        Arrays.sort(positions);
+        return positions;
+    }
+
+    static MovieQuery compile(CatalogSnapshot catalog, SearchKey key) {
+        return compile(catalog, key, TermMatch::of);
+    }
+
+    /**
+     * @param matcher finds the values of a field containing a term; lets the caller decide
+     *                where a check of every value runs
+     */
+    static MovieQuery compile(CatalogSnapshot catalog, SearchKey key, TermMatcher matcher) {
+        return new MovieQuery(catalog, key, matcher);
+    }
+
+    /**
+     * @return the number of positions the criteria are checked on
+     */
+    int candidateCount() {
+        return candidates != null ? candidates.length : columns.size();
+    }
+
+    int candidateAt(int index) {
+        return candidates != null ? candidates[index] : index;
+    }
+
+    /**
+     * Checks every criterion the candidates do not already satisfy.
+     */
+    boolean accepts(int position) {
+        return (!checkId || position == idPosition)
+            && (checkName == null || checkName.accepts(names.valueIdAt(position)))
+            && (checkGenre == null || checkGenre.accepts(genres.valueIdAt(position)))
+            && (!checkYear || columns.years[position] >= minYear && columns.years[position] <= maxYear)
+            && (!checkDuration || columns.durations[position] >= minDuration && columns.durations[position] <= maxDuration)
+            && (!checkRating || columns.ratings[position] >= minRating && columns.ratings[position] <= maxRating)
+            && (!checkAudience || columns.audienceScores[position] >= minAudienceScore
+                && columns.audienceScores[position] <= maxAudienceScore);
+    }
+
+    private boolean checksAnything() {
+        return checkId || checkName != null || checkGenre != null || checkYear || checkDuration || checkRating
+            || checkAudience;
+    }
+
+    /**
+     * @return ascending catalog positions of the matches; the array may be shared and must
+     *         not be modified
+     */
+    int[] positions() {
+        return positions(0, candidateCount());
+    }
+
+    /**
+     * @return ascending positions of the matches among candidates {@code [from, to)}
+     */
+    int[] positions(int from, int to) {
+        if (!checksAnything() && candidates != null && from == 0 && to == candidates.length) {
+            return candidates;
+        }
+        int[] out = new int[to - from];
+        int n = 0;
+        for (int i = from; i < to; i++) {
+            int position = candidateAt(i);
+            if (accepts(position)) {
+                out[n++] = position;
+            }
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    /**
+     * @return the number of matches, counted without allocating
+     */
+    public int count() {
+        if (!checksAnything()) {
+            return candidateCount();
+        }
+        int count = 0;
+        for (int i = 0, size = candidateCount(); i < size; i++) {
+            if (accepts(candidateAt(i))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the matching movies in catalog order, as a view over the compiled snapshot
+     */
+    public List<Movie> movies() {
+        return new MatchList(positions());
+    }
+
+    private final class MatchList extends AbstractList<Movie> implements RandomAccess {
+        private final int[] positions;
+
+        MatchList(int[] positions) {
+            this.positions = positions;
+        }
+
+        @Override
+        public Movie get(int index) {
+            return catalog.movies.get(positions[index]);
+        }
+
+        @Override
+        public int size() {
+            return positions.length;
+        }
+    }
+
+    interface TermMatcher {
+        TermMatch match(MovieSearchIndex.FieldIndex field, String term);
+    }
+
+    /**
+     * The distinct values of one field that contain a term, either as ascending value ids
+     * together with the number of movies carrying them, or as a flag per value when every
+     * value had to be checked and the movies were not counted.
+     */
+    static final class TermMatch {
+        private final MovieSearchIndex.FieldIndex field;
+        private final int[] valueIds;
+        private final int count;
+        private final boolean[] flags;
+        final int movies;
+
+        private TermMatch(MovieSearchIndex.FieldIndex field, int[] valueIds, int count, boolean[] flags, int movies) {
+            this.field = field;
+            this.valueIds = valueIds;
+            this.count = count;
+            this.flags = flags;
+            this.movies = movies;
+        }
+
+        /**
+         * Checks the values the trigram postings leave, or every value for terms shorter
+         * than a trigram.
+         */
+        static TermMatch of(MovieSearchIndex.FieldIndex field, String term) {
+            int[] candidates = field.candidateValues(term);
+            if (candidates == null) {
+                boolean[] flags = new boolean[field.valueCount()];
+                for (int valueId = 0; valueId < flags.length; valueId++) {
+                    flags[valueId] = field.valueContains(valueId, term);
+                }
+                return ofFlags(field, flags);
+            }
+            return ofCandidates(field, term, candidates);
+        }
+
+        static TermMatch ofCandidates(MovieSearchIndex.FieldIndex field, String term, int[] candidates) {
+            int[] valueIds = new int[candidates.length];
+            int count = 0;
+            int movies = 0;
+            for (int valueId : candidates) {
+                if (field.valueContains(valueId, term)) {
+                    valueIds[count++] = valueId;
+                    movies += field.positionCount(valueId);
+                }
+            }
+            return new TermMatch(field, valueIds, count, null, movies);
+        }
+
+        static TermMatch ofFlags(MovieSearchIndex.FieldIndex field, boolean[] flags) {
+            return new TermMatch(field, null, 0, flags, Integer.MAX_VALUE);
+        }
+
+        /**
+         * Checks only the value of the movie at a position, or nothing if the position is
+         * {@link MovieIdIndex#NOT_FOUND}.
+         */
+        static TermMatch ofPosition(MovieSearchIndex.FieldIndex field, String term, int position) {
+            if (position == MovieIdIndex.NOT_FOUND) {
+                return new TermMatch(field, NO_MATCHES, 0, null, 0);
+            }
+            int valueId = field.valueIdAt(position);
+            return field.valueContains(valueId, term)
+                ? new TermMatch(field, new int[] {valueId}, 1, null, field.positionCount(valueId))
+                : new TermMatch(field, NO_MATCHES, 0, null, 0);
+        }
+
+        /**
+         * @return the number of candidates this match supplies as a seed, or
+         *         {@code Integer.MAX_VALUE} if merging and sorting its postings would cost
+         *         more than checking the whole catalog against it
+         */
+        int seedCost(int catalogSize) {
+            if (count > 1 && (long) movies * (32 - Integer.numberOfLeadingZeros(movies)) > 4L * catalogSize) {
+                return Integer.MAX_VALUE;
+            }
+            return movies;
+        }
+
+        /**
+         * Only called when the movies were counted, i.e. the value ids are known.
+         */
+        int[] positions() {
+            return field.positionsOf(valueIds, count);
+        }
+
+        boolean accepts(int valueId) {
+            return flags != null ? flags[valueId] : Arrays.binarySearch(valueIds, 0, count, valueId) >= 0;
+        }
+
+        /**
+         * @return this match, or an equivalent one with flags if that is cheaper for checking
+         *         the given number of positions than a binary search per position
+         */
+        TermMatch forLookups(int positions) {
+            int searchSteps = 32 - Integer.numberOfLeadingZeros(count);
+            if (flags != null || (long) positions * searchSteps < field.valueCount() / 8) {
+                return this;
+            }
+            boolean[] valueFlags = new boolean[field.valueCount()];
+            for (int i = 0; i < count; i++) {
+                valueFlags[valueIds[i]] = true;
+            }
+            return new TermMatch(field, valueIds, count, valueFlags, movies);
+        }
+    }
+}
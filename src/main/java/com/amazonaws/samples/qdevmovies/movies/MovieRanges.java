@@ -0,0 +1,163 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.Objects;
+
+/**
+ * Inclusive range filters bound from the {@code minYear}, {@code maxYear}, {@code minDuration},
+ * {@code maxDuration}, {@code minRating}, {@code maxRating}, {@code minAudienceScore} and
+ * {@code maxAudienceScore} query parameters. A missing bound leaves that side of the range open. Instances are immutable, so they can be part of
+ * a {@link SearchKey}.
+ */
+public final class MovieRanges {
+    public static final MovieRanges NONE = new MovieRanges(null, null, null, null, null, null, null, null);
+    static final MovieSort[] FIELDS = {MovieSort.YEAR, MovieSort.DURATION, MovieSort.RATING, MovieSort.AUDIENCE};
+
+    private final Integer minYear;
+    private final Integer maxYear;
+    private final Integer minDuration;
+    private final Integer maxDuration;
+    private final Double minRating;
+    private final Double maxRating;
+    private final Double minAudienceScore;
+    private final Double maxAudienceScore;
+
+    MovieRanges(Integer minYear, Integer maxYear, Integer minDuration, Integer maxDuration,
+                Double minRating, Double maxRating) {
+        this(minYear, maxYear, minDuration, maxDuration, minRating, maxRating, null, null);
+    }
+
+    public MovieRanges(Integer minYear, Integer maxYear, Integer minDuration, Integer maxDuration,
+                       Double minRating, Double maxRating, Double minAudienceScore, Double maxAudienceScore) {
+        this.minYear = minYear;
+        this.maxYear = maxYear;
+        this.minDuration = minDuration;
+        this.maxDuration = maxDuration;
+        this.minRating = minRating;
+        this.maxRating = maxRating;
+        this.minAudienceScore = minAudienceScore;
+        this.maxAudienceScore = maxAudienceScore;
+    }
+
+    public Integer getMinYear() { return minYear; }
+    public Integer getMaxYear() { return maxYear; }
+    public Integer getMinDuration() { return minDuration; }
+    public Integer getMaxDuration() { return maxDuration; }
+    public Double getMinRating() { return minRating; }
+    public Double getMaxRating() { return maxRating; }
+    public Double getMinAudienceScore() { return minAudienceScore; }
+    public Double getMaxAudienceScore() { return maxAudienceScore; }
+
+    /**
+     * @return true if no bound is set
+     */
+    public boolean isEmpty() {
+        for (MovieSort field : FIELDS) {
+            if (restricts(field)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if a bound is set on the field an order sorts by
+     */
+    boolean restricts(MovieSort field) {
+        switch (field) {
+            case YEAR: return minYear != null || maxYear != null;
+            case DURATION: return minDuration != null || maxDuration != null;
+            case RATING: return minRating != null || maxRating != null;
+            case AUDIENCE: return minAudienceScore != null || maxAudienceScore != null;
+            default: return false;
+        }
+    }
+
+    /**
+     * @return true if the only bounds set are on the given field
+     */
+    boolean restrictsOnly(MovieSort field) {
+        for (MovieSort other : FIELDS) {
+            if (restricts(other) != (other == field)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the lower bound on a field, or negative infinity if open
+     */
+    double min(MovieSort field) {
+        switch (field) {
+            case YEAR: return bound(minYear, Double.NEGATIVE_INFINITY);
+            case DURATION: return bound(minDuration, Double.NEGATIVE_INFINITY);
+            case RATING: return bound(minRating, Double.NEGATIVE_INFINITY);
+            case AUDIENCE: return bound(minAudienceScore, Double.NEGATIVE_INFINITY);
+            default: return Double.NEGATIVE_INFINITY;
+        }
+    }
+
+    /**
+     * @return the upper bound on a field, or positive infinity if open
+     */
+    double max(MovieSort field) {
+        switch (field) {
+            case YEAR: return bound(maxYear, Double.POSITIVE_INFINITY);
+            case DURATION: return bound(maxDuration, Double.POSITIVE_INFINITY);
+            case RATING: return bound(maxRating, Double.POSITIVE_INFINITY);
+            case AUDIENCE: return bound(maxAudienceScore, Double.POSITIVE_INFINITY);
+            default: return Double.POSITIVE_INFINITY;
+        }
+    }
+
+    private static double bound(Number bound, double open) {
+        return bound != null ? bound.doubleValue() : open;
+    }
+
+    /**
+     * @return true if the movie at a catalog position satisfies every bound except the one on {@code skip}
+     */
+    boolean accepts(MovieColumns columns, int position, MovieSort skip) {
+        for (MovieSort field : FIELDS) {
+            if (field != skip && restricts(field)) {
+                double key = field.key(columns, position);
+                if (key < min(field) || key > max(field)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    long weight() {
+        return 56 + 8 * 16;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MovieRanges)) {
+            return false;
+        }
+        MovieRanges other = (MovieRanges) o;
+        return Objects.equals(minYear, other.minYear) && Objects.equals(maxYear, other.maxYear)
+            && Objects.equals(minDuration, other.minDuration) && Objects.equals(maxDuration, other.maxDuration)
+            && Objects.equals(minRating, other.minRating) && Objects.equals(maxRating, other.maxRating)
+            && Objects.equals(minAudienceScore, other.minAudienceScore) && Objects.equals(maxAudienceScore, other.maxAudienceScore);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(minYear, maxYear, minDuration, maxDuration, minRating, maxRating, minAudienceScore,
+            maxAudienceScore);
+    }
+
+    @Override
+    public String toString() {
+        return "MovieRanges{year=" + minYear + ".." + maxYear + ", duration=" + minDuration + ".." + maxDuration
+            + ", rating=" + minRating + ".." + maxRating + ", audienceScore=" + minAudienceScore + ".." + maxAudienceScore
+            + "}";
+    }
+}
@@ -0,0 +1,17 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.List;
+
+/**
+ * Source of the movie catalog behind {@link MovieService}.
+ * Select an implementation with the {@code movies.catalog.format} property.
+ */
+public interface MovieRepository {
+
+    /**
+     * Loads the whole catalog.
+     *
+     * @return the movies in catalog order, never null; empty if the source cannot be read
+     */
+    List<Movie> findAll();
+}
@@ -0,0 +1,275 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Inverted trigram index over the lower-cased movie names and genres of a catalog.
+ * <p>
+ * Each field is indexed by its distinct values: a trigram maps to the sorted ids of
+ * the values containing it, and each value maps to the sorted catalog positions of
+ * the movies carrying it. A substring query intersects the postings of its trigrams,
+ * confirms the surviving values with {@link String#contains}, and merges their
+ * movie positions. Queries shorter than a trigram are answered by checking the
+ * distinct values directly. Results are therefore identical to a
+ * {@code toLowerCase().contains()} scan, in catalog order.
+ * <p>
+ * The per-field value dictionaries are also exposed to {@link ParallelSearch}, which
+ * evaluates the same value checks in chunks and then scans positions instead of merging
+ * postings.
+ */
+public class MovieSearchIndex {
+    static final int GRAM_LENGTH = 3;
+    private static final int[] NO_MATCHES = new int[0];
+
+    private final FieldIndex names;
+    private final FieldIndex genres;
+
+    public MovieSearchIndex(List<Movie> movies) {
+        this.names = new FieldIndex(movies.size(), pos -> movies.get(pos).getMovieName());
+        this.genres = new FieldIndex(movies.size(), pos -> movies.get(pos).getGenre());
+    }
+
+    MovieSearchIndex(MovieColumns columns) {
+        this.names = new FieldIndex(columns.size(), columns::name);
+        this.genres = new FieldIndex(columns.size(), columns::genre);
+    }
+
+    /**
+     * @param term trimmed, lower-cased search term
+     * @return ascending catalog positions of movies whose name contains the term;
+     *         the array may be shared and must not be modified
+     */
+    public int[] matchName(String term) {
+        return names.match(term);
+    }
+
+    /**
+     * @param term trimmed, lower-cased search term
+     * @return ascending catalog positions of movies whose genre contains the term;
+     *         the array may be shared and must not be modified
+     */
+    public int[] matchGenre(String term) {
+        return genres.match(term);
+    }
+
+    FieldIndex names() {
+        return names;
+    }
+
+    FieldIndex genres() {
+        return genres;
+    }
+
+    /**
+     * @return approximate bytes held by both field indexes
+     */
+    long weight() {
+        return 24 + names.weight() + genres.weight();
+    }
+
+    /**
+     * Intersects two ascending postings lists.
+     */
+    static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    static long gramKey(String s, int start) {
+        return ((long) s.charAt(start) << 32) | ((long) s.charAt(start + 1) << 16) | s.charAt(start + 2);
+    }
+
+    static final class FieldIndex {
+        private final String[] values;
+        private final int[][] positionsByValue;
+        private final int[] valueIdByPosition;
+        private final Map<Long, int[]> valuesByGram;
+
+        FieldIndex(int size, IntFunction<String> field) {
+            this.valueIdByPosition = new int[size];
+            Map<String, Integer> valueIds = new HashMap<>();
+            List<String> distinct = new ArrayList<>();
+            List<IntList> positions = new ArrayList<>();
+            for (int pos = 0; pos < size; pos++) {
+                String value = field.apply(pos).toLowerCase();
+                Integer valueId = valueIds.get(value);
+                if (valueId == null) {
+                    valueId = distinct.size();
+                    valueIds.put(value, valueId);
+                    distinct.add(value);
+                    positions.add(new IntList());
+                }
+                positions.get(valueId).add(pos);
+                valueIdByPosition[pos] = valueId;
+            }
+
+            this.values = distinct.toArray(new String[0]);
+            this.positionsByValue = new int[values.length][];
+            Map<Long, IntList> grams = new HashMap<>();
+            for (int valueId = 0; valueId < values.length; valueId++) {
+                positionsByValue[valueId] = positions.get(valueId).toArray();
+                String value = values[valueId];
+                for (int i = 0; i + GRAM_LENGTH <= value.length(); i++) {
+                    IntList postings = grams.computeIfAbsent(gramKey(value, i), k -> new IntList());
+                    // a value can repeat a trigram; value ids arrive in ascending order
+                    if (postings.size == 0 || postings.last() != valueId) {
+                        postings.add(valueId);
+                    }
+                }
+            }
+            this.valuesByGram = new HashMap<>(grams.size() * 4 / 3 + 1);
+            for (Map.Entry<Long, IntList> entry : grams.entrySet()) {
+                valuesByGram.put(entry.getKey(), entry.getValue().toArray());
+            }
+        }
+
+        int[] match(String term) {
+            int[] candidates = candidateValues(term);
+            if (candidates != null && candidates.length == 0) {
+                return NO_MATCHES;
+            }
+
+            IntList matched = new IntList();
+            int count = candidates == null ? values.length : candidates.length;
+            for (int i = 0; i < count; i++) {
+                int valueId = candidates == null ? i : candidates[i];
+                if (values[valueId].contains(term)) {
+                    matched.add(valueId);
+                }
+            }
+            return positionsOf(matched);
+        }
+
+        int valueCount() {
+            return values.length;
+        }
+
+        /**
+         * @return approximate bytes held by the dictionary, postings and trigram map, counting
+         *         strings as Latin-1 and each map entry with its boxed key
+         */
+        long weight() {
+            long bytes = 32 + 16 + valueIdByPosition.length * 4L + 2 * (16 + values.length * 4L);
+            for (int valueId = 0; valueId < values.length; valueId++) {
+                bytes += 40 + values[valueId].length() + 16 + positionsByValue[valueId].length * 4L;
+            }
+            bytes += 48 + valuesByGram.size() * 8L * 4 / 3;
+            for (int[] postings : valuesByGram.values()) {
+                bytes += 32 + 24 + 16 + postings.length * 4L;
+            }
+            return bytes;
+        }
+
+        /**
+         * @return true if the lower-cased value contains the term
+         */
+        boolean valueContains(int valueId, String term) {
+            return values[valueId].contains(term);
+        }
+
+        int valueIdAt(int position) {
+            return valueIdByPosition[position];
+        }
+
+        /**
+         * @return the number of movies carrying a value
+         */
+        int positionCount(int valueId) {
+            return positionsByValue[valueId].length;
+        }
+
+        /**
+         * @return ascending ids of the values that may contain the term, or null if the term
+         *         is shorter than a trigram and every value is a candidate
+         */
+        int[] candidateValues(String term) {
+            if (term.length() < GRAM_LENGTH) {
+                return null;
+            }
+            int[] candidates = null;
+            for (int i = 0; i + GRAM_LENGTH <= term.length(); i++) {
+                int[] postings = valuesByGram.get(gramKey(term, i));
+                if (postings == null) {
+                    return NO_MATCHES;
+                }
+                candidates = candidates == null ? postings : intersect(candidates, postings);
+                if (candidates.length == 0) {
+                    return NO_MATCHES;
+                }
+            }
+            return candidates;
+        }
+
+        private int[] positionsOf(IntList valueIds) {
+            return positionsOf(valueIds.items, valueIds.size);
+        }
+
+        /**
+         * @return ascending positions of the movies carrying any of the first {@code count} values;
+         *         the array may be shared and must not be modified
+         */
+        int[] positionsOf(int[] valueIds, int count) {
+            if (count == 0) {
+                return NO_MATCHES;
+            }
+            if (count == 1) {
+                return positionsByValue[valueIds[0]];
+            }
+            int total = 0;
+            for (int i = 0; i < count; i++) {
+                total += positionsByValue[valueIds[i]].length;
+            }
+            int[] out = new int[total];
+            int n = 0;
+            for (int i = 0; i < count; i++) {
+                int[] positions = positionsByValue[valueIds[i]];
+                System.arraycopy(positions, 0, out, n, positions.length);
+                n += positions.length;
+            }
+            // every movie has exactly one value, so the lists are disjoint
+            Arrays.sort(out);
+            return out;
+        }
+    }
+
+    private static final class IntList {
+        private int[] items = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = value;
+        }
+
+        int get(int index) {
+            return items[index];
+        }
+
+        int last() {
+            return items[size - 1];
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(items, size);
+        }
+    }
+}
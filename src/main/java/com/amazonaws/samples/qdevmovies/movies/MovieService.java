@@ -1,74 +1,182 @@
 package com.amazonaws.samples.qdevmovies.movies;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Service;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.Scanner;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class MovieService {
     private static final Logger logger = LogManager.getLogger(MovieService.class);
-    private final List<Movie> movies;
-    private final Map<Long, Movie> movieMap;
+    private static final int[] NO_MATCHES = new int[0];
+    static final long DEFAULT_SEARCH_CACHE_WEIGHT = 8L * 1024 * 1024;
+    private final MovieRepository repository;
+    private final BoundedCache.EvictionPolicy searchCachePolicy;
+    private final long searchCacheMaxWeight;
+    private final CatalogLayout layout;
+    private final ParallelSearch parallelSearch;
+    private final MovieMetrics metrics;
+    private final ReviewService reviewService;
+    private final CatalogStore catalogStore;
+    private final MovieIcons icons;
+    private final AtomicReference<CatalogSnapshot> catalog = new AtomicReference<>();
 
     public MovieService() {
-        this.movies = loadMoviesFromJson();
-        this.movieMap = new HashMap<>();
-        for (Movie movie : movies) {
-            movieMap.put(movie.getId(), movie);
+        this(new JsonMovieRepository(), new Options());
+    }
+
+    /**
+     * @param repository source of the catalog
+     * @param options search cache, layout and collaborators; read once, so changing it later
+     *        has no effect on this service
+     */
+    @Autowired
+    public MovieService(MovieRepository repository, Options options) {
+        this.repository = repository;
+        this.searchCachePolicy = options.searchCachePolicy;
+        this.searchCacheMaxWeight = options.searchCacheMaxWeight;
+        this.layout = options.layout;
+        this.parallelSearch = options.parallelSearch;
+        this.metrics = options.metrics;
+        this.reviewService = options.reviewService;
+        this.icons = options.icons;
+        this.catalogStore = repository instanceof CatalogStore ? (CatalogStore) repository : null;
+        catalog.set(newSnapshot(repository.findAll()));
+        if (reviewService != null) {
+            reviewService.publishWith(() -> catalog.get().reviews);
         }
+        metrics.bindCatalog(catalog::get);
+    }
+
+    private CatalogSnapshot newSnapshot(List<Movie> movies) {
+        ReviewSnapshot reviews = reviewService != null ? reviewService.loaded() : ReviewSnapshot.EMPTY;
+        return new CatalogSnapshot(movies, reviews, icons, layout, searchCachePolicy, searchCacheMaxWeight);
     }
 
-    private List<Movie> loadMoviesFromJson() {
-        List<Movie> movieList = new ArrayList<>();
+    /**
+     * Re-reads the repository and atomically replaces the current catalog snapshot, including
+     * its indexes and search cache. Requests already running keep the snapshot they started
+     * with. If the repository yields no movies the previous snapshot is kept, since the
+     * repositories report read failures that way.
+     *
+     * @return true if a new snapshot was published
+     */
+    public synchronized boolean reload() {
         try {
-            InputStream inputStream = getClass().getClassLoader().getResourceAsStream("movies.json");
-            if (inputStream != null) {
-                Scanner scanner = new Scanner(inputStream, StandardCharsets.UTF_8.name());
-                String jsonContent = scanner.useDelimiter("\\A").next();
-                scanner.close();
-                
-                JSONArray moviesArray = new JSONArray(jsonContent);
-                for (int i = 0; i < moviesArray.length(); i++) {
-                    JSONObject movieObj = moviesArray.getJSONObject(i);
-                    movieList.add(new Movie(
-                        movieObj.getLong("id"),
-                        movieObj.getString("movieName"),
-                        movieObj.getString("director"),
-                        movieObj.getInt("year"),
-                        movieObj.getString("genre"),
-                        movieObj.getString("description"),
-                        movieObj.getInt("duration"),
-                        movieObj.getDouble("imdbRating")
-                    ));
-                }
+            List<Movie> loaded = repository.findAll();
+            if (loaded.isEmpty()) {
+                logger.warn("Catalog reload returned no movies; keeping the current catalog");
+                return false;
             }
+            catalog.set(newSnapshot(loaded));
+            logger.info("Reloaded catalog with {} movies", loaded.size());
+            return true;
         } catch (Exception e) {
-            logger.error("Failed to load movies from JSON: {}", e.getMessage());
+            logger.error("Failed to reload catalog: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Arrr! Rebuild the current catalog snapshot with the review service's latest reviews,
+     * after they were reloaded, so audience scores, filters and sorts follow the new
+     * reviews. The movies themselves are not re-read, and their search index, id map and
+     * other sort orders be carried over rather than rebuilt. The reviews and their
+     * aggregates are published together, in the one swap of the catalog snapshot.
+     *
+     * @return true if a new snapshot was published
+     */
+    public synchronized boolean refreshReviews() {
+        if (reviewService == null) {
+            return false;
+        }
+        CatalogSnapshot current = catalog.get();
+        ReviewSnapshot reviews = reviewService.loaded();
+        if (current.reviews == reviews) {
+            return false;
+        }
+        catalog.set(current.withReviews(reviews, layout, searchCachePolicy, searchCacheMaxWeight));
+        logger.debug("Refreshed review aggregates for {} movies", current.movies.size());
+        return true;
+    }
+
+    /**
+     * @return true if the catalog accepts new and updated movies
+     */
+    public boolean isWritable() {
+        return catalogStore != null;
+    }
+
+    /**
+     * Arrr! Stow a new movie in the treasure chest, or replace one already there, and wait
+     * until it be safely written to disk. The movie can be found once this returns.
+     *
+     * @param movie the movie; one with id 0 gets the next free id
+     * @return the stored movie, with its id and audience aggregates
+     * @throws IllegalStateException if the catalog is read-only
+     * @throws CatalogStore.QueueFullException if the store's write queue is full
+     * @throws java.io.UncheckedIOException if the store cannot write the movie
+     */
+    public Movie saveMovie(Movie movie) {
+        if (catalogStore == null) {
+            throw new IllegalStateException("The catalog is read-only");
         }
-        return movieList;
+        Movie saved = CatalogStore.await(catalogStore.putMovie(movie));
+        logger.debug("Arrr! Stowed movie {} in the catalog store", saved.getId());
+        // the commit rebuilt the catalog, so this copy carries the movie's audience aggregates
+        return getMovieById(saved.getId()).orElse(saved);
     }
 
     public List<Movie> getAllMovies() {
-        return movies;
+        return catalog.get().movies;
     }
 
     public Optional<Movie> getMovieById(Long id) {
-        if (id == null || id <= 0) {
+        return id != null ? getMovieById(id.longValue()) : Optional.empty();
+    }
+
+    public Optional<Movie> getMovieById(long id) {
+        if (id <= 0) {
             return Optional.empty();
         }
-        return Optional.ofNullable(movieMap.get(id));
+        long start = metrics.start();
+        Movie movie = catalog.get().movieById(id);
+        metrics.recordMovieLookup(start);
+        return Optional.ofNullable(movie);
+    }
+
+    /**
+     * Look up many movies at once against one catalog snapshot, so the batch is consistent
+     * even if the catalog is reloaded meanwhile.
+     *
+     * @param ids movie ids in the order the caller wants them back
+     * @return the movies in the order of {@code ids}, with null for ids that match no movie
+     */
+    public List<Movie> getMoviesByIds(long[] ids) {
+        long start = metrics.start();
+        CatalogSnapshot current = catalog.get();
+        List<Movie> movies = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            movies.add(id > 0 ? current.movieById(id) : null);
+        }
+        metrics.recordMovieLookup(start);
+        return movies;
+    }
+
+    /**
+     * @return the movie with this id, looked up on subscription; empty if there is none
+     */
+    public Mono<Movie> findMovieById(long id) {
+        return Mono.fromSupplier(() -> getMovieById(id).orElse(null));
     }
 
     /**
@@ -81,58 +189,308 @@ public class MovieService {
      * @return List of movies matching the search criteria, empty if no treasure be found
      */
     public List<Movie> searchMovies(String name, Long id, String genre) {
-        logger.info("Arrr! Starting movie search expedition with name='{}', id='{}', genre='{}'", name, id, genre);
-        
-        List<Movie> treasureChest = new ArrayList<>(movies);
-        
-        // Filter by ID first - exact match required, ye scurvy dog!
-        if (id != null && id > 0) {
-            logger.debug("Searching for movie with ID: {}", id);
-            treasureChest = treasureChest.stream()
-                .filter(movie -> movie.getId() == id)
-                .collect(Collectors.toList());
-            logger.debug("Found {} movies matching ID criteria", treasureChest.size());
-        }
-        
-        // Filter by name - partial match, case-insensitive like a true pirate!
-        if (name != null && !name.trim().isEmpty()) {
-            String searchName = name.trim().toLowerCase();
-            logger.debug("Searching for movies with name containing: '{}'", searchName);
-            treasureChest = treasureChest.stream()
-                .filter(movie -> movie.getMovieName().toLowerCase().contains(searchName))
-                .collect(Collectors.toList());
-            logger.debug("Found {} movies matching name criteria", treasureChest.size());
+        logger.debug("Arrr! Starting movie search expedition with name='{}', id='{}', genre='{}'", name, id, genre);
+
+        long start = metrics.start();
+        CatalogSnapshot current = catalog.get();
+        SearchKey key = SearchKey.of(name, id, genre);
+        SearchMatches matches = findMatches(current, key);
+        List<Movie> treasureChest;
+        if (matches == null) {
+            treasureChest = new ArrayList<>(current.movies);
+        } else {
+            int[] positions = matches.positions();
+            treasureChest = new ArrayList<>(positions.length);
+            for (int position : positions) {
+                treasureChest.add(current.movies.get(position));
+            }
         }
-        
-        // Filter by genre - partial match, case-insensitive, handles multi-genre formats
-        if (genre != null && !genre.trim().isEmpty()) {
-            String searchGenre = genre.trim().toLowerCase();
-            logger.debug("Searching for movies with genre containing: '{}'", searchGenre);
-            treasureChest = treasureChest.stream()
-                .filter(movie -> movie.getGenre().toLowerCase().contains(searchGenre))
-                .collect(Collectors.toList());
-            logger.debug("Found {} movies matching genre criteria", treasureChest.size());
+
+        metrics.recordSearch(key, start, treasureChest.size());
+        if (logger.isDebugEnabled()) {
+            logger.debug("Arrr! Search expedition complete! Found {} movies in our treasure chest", treasureChest.size());
         }
-        
-        logger.info("Arrr! Search expedition complete! Found {} movies in our treasure chest", treasureChest.size());
         return treasureChest;
     }
 
+    /**
+     * Fetch one page of the whole catalog.
+     *
+     * @param pageRequest limit, offset or cursor, and sort order
+     * @return the requested page
+     * @throws IllegalArgumentException if the sort or cursor is invalid
+     */
+    public MoviePage getMoviesPage(MoviePageRequest pageRequest) {
+        return searchPage(null, null, null, pageRequest);
+    }
+
+    /**
+     * Arrr! Search the treasure chest like {@link #searchMovies} but hand back only one page
+     * of the haul. Matches are ordered by sorting their precomputed ranks, and only the
+     * movies on the requested page are fetched from the catalog.
+     *
+     * @param name The movie name to search for (partial matches allowed, case-insensitive)
+     * @param id The exact movie ID to find
+     * @param genre The genre to filter by (partial matches allowed, case-insensitive)
+     * @param pageRequest limit, offset or cursor, sort order and direction
+     * @return the requested page of matching movies
+     * @throws IllegalArgumentException if the sort, order or cursor is invalid
+     */
+    public MoviePage searchPage(String name, Long id, String genre, MoviePageRequest pageRequest) {
+        return searchPage(name, id, genre, null, pageRequest);
+    }
+
+    /**
+     * Arrr! Like {@link #searchPage(String, Long, String, MoviePageRequest)}, but only movies
+     * whose year, duration and rating lie within the given ranges make it aboard.
+     * <p>
+     * When the ranges are the only criteria and bound the field being sorted by, the matches
+     * are one run of the presorted order, so a page costs two binary searches plus the movies
+     * on it; no matches are collected or sorted.
+     *
+     * @param ranges inclusive year, duration and rating bounds, or null for none
+     * @throws IllegalArgumentException if the sort, order or cursor is invalid
+     */
+    public MoviePage searchPage(String name, Long id, String genre, MovieRanges ranges, MoviePageRequest pageRequest) {
+        long start = metrics.start();
+        SearchKey key = SearchKey.of(name, id, genre, ranges);
+        MatchRun run = resolve(key, pageRequest, true);
+        int limit = pageRequest.resolvedLimit();
+        int to = Math.min(run.total, run.from + limit);
+
+        List<Movie> items = new ArrayList<>(to - run.from);
+        for (int i = run.from; i < to; i++) {
+            items.add(run.movieAt(i));
+        }
+        String nextCursor = to < run.total
+            ? PageCursor.after(run.sort, run.descending, items.get(items.size() - 1)).encode() : null;
+        metrics.recordSearch(key, start, run.total);
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Returning {} of {} matching movies sorted by {} {}", items.size(), run.total, run.sort.getParam(),
+                run.descending ? "desc" : "asc");
+        }
+        int offset = pageRequest.hasCursor() ? 0 : pageRequest.resolvedOffset();
+        return new MoviePage(items, run.total, offset, limit, run.sort, nextCursor, run.facets);
+    }
+
+    /**
+     * Arrr! Stream every match of a search in the requested order, starting at the offset or
+     * cursor of the page request. Movies are fetched from the catalog only as the subscriber
+     * requests them, so a slow reader holds no more than its demand; the request's limit caps
+     * the stream only when it is given explicitly.
+     *
+     * @param ranges inclusive year, duration and rating bounds, or null for none
+     * @return the matching movies, against the catalog current at subscription
+     */
+    public Flux<Movie> streamSearch(String name, Long id, String genre, MovieRanges ranges, MoviePageRequest pageRequest) {
+        return Flux.defer(() -> {
+            MatchRun run = resolve(SearchKey.of(name, id, genre, ranges), pageRequest, false);
+            int count = run.total - run.from;
+            if (pageRequest.getLimit() != null) {
+                count = Math.min(count, Math.max(0, pageRequest.getLimit()));
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("Streaming {} of {} matching movies sorted by {}", count, run.total, run.sort.getParam());
+            }
+            return Flux.range(run.from, count).map(run::movieAt);
+        });
+    }
+
+    /**
+     * Find the matches of a search in natural order of the sort, and where the requested
+     * page or stream starts among them.
+     *
+     * @throws IllegalArgumentException if the sort, order or cursor is invalid
+     */
+    private MatchRun resolve(SearchKey key, MoviePageRequest pageRequest, boolean withFacets) {
+        MovieSort sort = pageRequest.resolvedSort();
+        boolean descending = pageRequest.resolvedDescending(sort);
+        boolean reversed = descending != sort.isDescending();
+        PageCursor cursor = pageRequest.hasCursor() ? PageCursor.decode(pageRequest.getCursor().trim()) : null;
+        CatalogSnapshot current = catalog.get();
+        MovieOrder order = current.orders.get(sort);
+
+        // The matches in natural order: either the ranks listed in ranks, or every rank in [first, end)
+        int[] ranks = null;
+        int first = 0;
+        int end = order.size();
+        List<GenreFacet> facets = null;
+        if (key.isRangeOnly() && key.getRanges().restrictsOnly(sort)) {
+            double min = key.getRanges().min(sort);
+            double max = key.getRanges().max(sort);
+            first = order.firstRankInRange(min, max);
+            end = Math.max(first, order.endRankOfRange(min, max));
+            if (withFacets) {
+                facets = current.genreFacets.countForRanks(order, first, end);
+            }
+        } else {
+            SearchMatches matches = findMatches(current, key);
+            ranks = matches == null ? null : matches.sortedRanks(sort, order);
+            if (withFacets) {
+                facets = current.genreFacets.countFor(matches == null ? null : matches.positions());
+            }
+        }
+
+        int total = ranks == null ? end - first : ranks.length;
+        int from;
+        if (cursor != null) {
+            // matches ordered before the cursor in the natural direction are the ones already
+            // served going forwards, and the ones still to come going backwards
+            int boundary = order.firstRankAfter(cursor, reversed);
+            int before = ranks == null ? Math.min(Math.max(boundary, first), end) - first : lowerBound(ranks, boundary);
+            from = reversed ? total - before : before;
+        } else {
+            from = Math.min(pageRequest.resolvedOffset(), total);
+        }
+        return new MatchRun(current, order, sort, descending, ranks, first, total, from, facets);
+    }
+
+    /**
+     * The matches of one search against one snapshot, indexed in the requested direction.
+     */
+    private static final class MatchRun {
+        final CatalogSnapshot catalog;
+        final MovieOrder order;
+        final MovieSort sort;
+        final boolean descending;
+        final boolean reversed;
+        final int[] ranks;
+        final int first;
+        final int total;
+        final int from;
+        final List<GenreFacet> facets;
+
+        MatchRun(CatalogSnapshot catalog, MovieOrder order, MovieSort sort, boolean descending, int[] ranks,
+                 int first, int total, int from, List<GenreFacet> facets) {
+            this.catalog = catalog;
+            this.order = order;
+            this.sort = sort;
+            this.descending = descending;
+            this.reversed = descending != sort.isDescending();
+            this.ranks = ranks;
+            this.first = first;
+            this.total = total;
+            this.from = from;
+            this.facets = facets;
+        }
+
+        /**
+         * @param index position among the matches in the requested direction
+         */
+        Movie movieAt(int index) {
+            int natural = reversed ? total - 1 - index : index;
+            return catalog.movies.get(order.positionAt(ranks == null ? first + natural : ranks[natural]));
+        }
+    }
+
+    private static int lowerBound(int[] sorted, int key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the cached or freshly computed matches, or null if the key matches the whole catalog
+     */
+    private SearchMatches findMatches(CatalogSnapshot current, SearchKey key) {
+        if (key.isEmpty()) {
+            return null;
+        }
+        BoundedCache<SearchKey, SearchMatches> searchCache = current.searchCache;
+        SearchMatches matches = searchCache != null ? searchCache.get(key) : null;
+        if (matches == null) {
+            matches = new SearchMatches(key, matchPositions(current, key));
+            if (searchCache != null) {
+                searchCache.put(key, matches);
+            }
+        } else {
+            logger.debug("Search cache hit for {}", key);
+        }
+        return matches;
+    }
+
+    /**
+     * @return ascending catalog positions matching all criteria of a non-empty key
+     */
+    private int[] matchPositions(CatalogSnapshot current, SearchKey key) {
+        if (key.getId() == null && (key.getName() != null || key.getGenre() != null)
+                && parallelSearch.appliesTo(current.columns.size())) {
+            // Big catalogs are searched in chunks on the search pool when the terms are broad
+            int[] positions = parallelSearch.match(current, key);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Found {} movies with the parallel search", positions.length);
+            }
+            return positions;
+        }
+        // Terms are matched once against the index, then every movie the most selective
+        // criterion leaves is checked against the rest in one pass, ye scurvy dog!
+        int[] positions = MovieQuery.compile(current, key).positions();
+        if (logger.isDebugEnabled()) {
+            logger.debug("Found {} movies matching {}", positions.length, key);
+        }
+        return positions;
+    }
+
+    /**
+     * Compile search criteria against the current catalog, for callers that evaluate the
+     * same search repeatedly. The query keeps answering from the catalog it was compiled
+     * against, even after a reload.
+     *
+     * @param key normalized search criteria
+     * @return the compiled query
+     */
+    public MovieQuery compile(SearchKey key) {
+        return MovieQuery.compile(catalog.get(), key);
+    }
+
     /**
      * Ahoy! Get all available genres from our movie treasure chest.
      * Useful for building search forms and helping landlubbers find what they seek!
      * 
-     * @return List of unique genres found in our movie collection
+     * @return Immutable, sorted list of unique genres found in our movie collection
      */
     public List<String> getAllGenres() {
-        logger.debug("Gathering all genres from our treasure chest");
-        List<String> genres = movies.stream()
-            .map(Movie::getGenre)
-            .distinct()
-            .sorted()
-            .collect(Collectors.toList());
-        logger.debug("Found {} unique genres in our collection", genres.size());
-        return genres;
+        return catalog.get().genreFacets.composites();
+    }
+
+    /**
+     * Ahoy! Count the movies in each atomic genre - "Crime/Drama" counts towards both
+     * "Crime" and "Drama". Computed whenever the catalog is loaded.
+     *
+     * @return Immutable genre facets sorted by genre
+     */
+    public List<GenreFacet> getGenreFacets() {
+        return catalog.get().genreFacets.all();
+    }
+
+    /**
+     * @return search result cache counters, or null if the cache is disabled
+     */
+    public BoundedCache.Stats getSearchCacheStats() {
+        BoundedCache<SearchKey, SearchMatches> searchCache = catalog.get().searchCache;
+        return searchCache != null ? searchCache.stats() : null;
+    }
+
+    /**
+     * Validate search parameters to prevent scurvy bugs from infesting our search!
+     * 
+     * @param name Movie name parameter
+     * @param id Movie ID parameter  
+     * @param genre Genre parameter
+     * @param ranges Year, duration and rating bounds
+     * @return true if at least one valid search parameter or range bound is provided
+     */
+    public boolean isValidSearchRequest(String name, Long id, String genre, MovieRanges ranges) {
+        return isValidSearchRequest(name, id, genre) || ranges != null && !ranges.isEmpty();
     }
 
     /**
@@ -154,4 +512,85 @@ public class MovieService {
         
         return isValid;
     }
+
+    /**
+     * The settings and collaborators of a {@link MovieService}. Spring fills one in from the
+     * {@code movies.*} properties and the application's beans; anywhere else, start from the
+     * defaults and change only what differs.
+     */
+    @Component
+    public static class Options {
+        @Value("${movies.search-cache.policy:lru}")
+        private BoundedCache.EvictionPolicy searchCachePolicy = BoundedCache.EvictionPolicy.LRU;
+
+        @Value("${movies.search-cache.max-weight:" + DEFAULT_SEARCH_CACHE_WEIGHT + "}")
+        private long searchCacheMaxWeight = DEFAULT_SEARCH_CACHE_WEIGHT;
+
+        @Value("${movies.catalog.layout:objects}")
+        private CatalogLayout layout = CatalogLayout.OBJECTS;
+
+        @Autowired
+        private ParallelSearch parallelSearch = ParallelSearch.DISABLED;
+
+        @Autowired
+        private MovieMetrics metrics = MovieMetrics.NONE;
+
+        @Autowired
+        private ReviewService reviewService;
+
+        @Autowired
+        private MovieIcons icons = MovieIcons.DEFAULT;
+
+        /**
+         * @param policy eviction policy of the search result cache
+         * @param maxWeight approximate byte budget of the search result cache; 0 disables it
+         */
+        public Options searchCache(BoundedCache.EvictionPolicy policy, long maxWeight) {
+            this.searchCachePolicy = policy;
+            this.searchCacheMaxWeight = maxWeight;
+            return this;
+        }
+
+        /**
+         * @param layout whether movie objects are kept in memory or built from the column
+         *        store on demand
+         */
+        public Options layout(CatalogLayout layout) {
+            this.layout = layout;
+            return this;
+        }
+
+        /**
+         * @param parallelSearch runs broad text searches over large catalogs on its own pool
+         */
+        public Options parallelSearch(ParallelSearch parallelSearch) {
+            this.parallelSearch = parallelSearch;
+            return this;
+        }
+
+        /**
+         * @param metrics records search and lookup latencies and publishes catalog gauges
+         */
+        public Options metrics(MovieMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * @param reviewService source of the review aggregates attached to the movies, or
+         *        null for none
+         */
+        public Options reviewService(ReviewService reviewService) {
+            this.reviewService = reviewService;
+            return this;
+        }
+
+        /**
+         * @param icons resolves each movie's icon when a catalog snapshot is built
+         */
+        public Options icons(MovieIcons icons) {
+            this.icons = icons;
+            return this;
+        }
+    }
 }
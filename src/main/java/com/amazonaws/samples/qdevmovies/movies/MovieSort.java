@@ -0,0 +1,120 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+/**
+ * Orders a movie listing can be paged in. Every order is total (ties are broken by id),
+ * so keyset cursors stay stable across requests. Each order has a natural direction;
+ * the opposite direction is the same order traversed backwards.
+ */
+public enum MovieSort {
+    ID("id", false),
+    RATING("rating", true),
+    YEAR("year", false),
+    DURATION("duration", false),
+    AUDIENCE("audience", true);
+
+    private final String param;
+    private final boolean descending;
+
+    MovieSort(String param, boolean descending) {
+        this.param = param;
+        this.descending = descending;
+    }
+
+    public String getParam() {
+        return param;
+    }
+
+    /**
+     * @return true if the natural direction of this order is descending by its sort key
+     */
+    public boolean isDescending() {
+        return descending;
+    }
+
+    /**
+     * @return true if movies are ordered by a field other than their id first
+     */
+    boolean hasKey() {
+        return this != ID;
+    }
+
+    /**
+     * @return the sort key of a movie; only meaningful if {@link #hasKey()}
+     */
+    double key(Movie movie) {
+        switch (this) {
+            case RATING: return movie.getImdbRating();
+            case YEAR: return movie.getYear();
+            case DURATION: return movie.getDuration();
+            case AUDIENCE: return movie.getAudience().getAudienceScore();
+            default: return 0;
+        }
+    }
+
+    /**
+     * @return the sort key at a catalog position; only meaningful if {@link #hasKey()}
+     */
+    double key(MovieColumns columns, int position) {
+        switch (this) {
+            case RATING: return columns.ratings[position];
+            case YEAR: return columns.years[position];
+            case DURATION: return columns.durations[position];
+            case AUDIENCE: return columns.audienceScores[position];
+            default: return 0;
+        }
+    }
+
+    /**
+     * Compares two sort keys in the natural direction.
+     */
+    int compareKeys(double a, double b) {
+        return descending ? Double.compare(b, a) : Double.compare(a, b);
+    }
+
+    /**
+     * Compares two catalog positions in the natural direction, reading the sort keys from the columns.
+     */
+    int compare(MovieColumns columns, int a, int b) {
+        if (hasKey()) {
+            int byKey = compareKeys(key(columns, a), key(columns, b));
+            if (byKey != 0) {
+                return byKey;
+            }
+        }
+        return Long.compare(columns.ids[a], columns.ids[b]);
+    }
+
+    /**
+     * @param value request parameter value, case-insensitive; null or blank means {@link #ID}
+     * @throws IllegalArgumentException if the value names no known order
+     */
+    public static MovieSort fromParam(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return ID;
+        }
+        for (MovieSort sort : values()) {
+            if (sort.param.equalsIgnoreCase(value.trim())) {
+                return sort;
+            }
+        }
+        throw new IllegalArgumentException("Unknown sort '" + value + "'");
+    }
+
+    /**
+     * @param value {@code asc} or {@code desc}, case-insensitive; null or blank means the natural direction
+     * @return true for a descending traversal
+     * @throws IllegalArgumentException if the value is neither
+     */
+    public boolean descendingFromParam(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return descending;
+        }
+        if ("asc".equalsIgnoreCase(value.trim())) {
+            return false;
+        }
+        if ("desc".equalsIgnoreCase(value.trim())) {
+            return true;
+        }
+        throw new IllegalArgumentException("Unknown order '" + value + "'");
+    }
+}
@@ -1,24 +1,38 @@
 package com.amazonaws.samples.qdevmovies.movies;
 
-import com.amazonaws.samples.qdevmovies.utils.MovieIconUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 @Controller
 public class MoviesController {
     private static final Logger logger = LogManager.getLogger(MoviesController.class);
+    static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String GENRE_FACETS_HEADER = "X-Genre-Facets";
+    static final int MAX_BATCH_IDS = 500;
+    static final int DETAILS_REVIEWS = 10;
 
     @Autowired
     private MovieService movieService;
@@ -26,21 +40,118 @@ public class MoviesController {
     @Autowired
     private ReviewService reviewService;
 
+    @Autowired
+    private MovieMetrics metrics = MovieMetrics.NONE;
+
+    /**
+     * Lists the catalog one page at a time.
+     *
+     * @param pageRequest limit, offset or cursor, and sort order
+     * @param model Spring model for HTML responses
+     * @return JSON page for API calls, HTML template for browser requests
+     */
     @GetMapping("/movies")
-    public String getMovies(org.springframework.ui.Model model) {
-        logger.info("Fetching movies");
-        model.addAttribute("movies", movieService.getAllMovies());
+    public Object getMovies(
+            MoviePageRequest pageRequest,
+            org.springframework.ui.Model model,
+            javax.servlet.http.HttpServletRequest request) {
+        logger.debug("Fetching movies");
+        boolean isApiRequest = isApiRequest(request);
+
+        MoviePage page;
+        try {
+            page = movieService.getMoviesPage(pageRequest);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid paging request: {}", e.getMessage());
+            metrics.recordInvalidRequest(MovieMetrics.REASON_INVALID_PARAMETER);
+            if (isApiRequest) {
+                return ResponseEntity.badRequest().body(new SearchErrorResponse("Arrr! " + e.getMessage() + ", matey!"));
+            }
+            page = movieService.getMoviesPage(new MoviePageRequest());
+            model.addAttribute("searchError", "Arrr! " + e.getMessage() + ", matey!");
+        }
+
+        if (isApiRequest) {
+            return pageResponse(page);
+        }
+        addPage(model, page, "/movies", null, null, null, null);
         model.addAttribute("genres", movieService.getAllGenres());
         return "movies";
     }
 
+    /**
+     * Arrr! Fetch a whole watchlist of movies in one request, looked up by id rather than
+     * searched for. Always answers with JSON.
+     *
+     * @param ids comma-separated movie ids, at most {@value #MAX_BATCH_IDS}
+     * @param reviews whether to add each movie's review count and mean rating
+     * @return the movies as a JSON array in the order of {@code ids}, with null for unknown ids
+     */
+    @GetMapping(value = "/movies", params = "ids", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public ResponseEntity<?> getMoviesByIds(@RequestParam String ids,
+                                            @RequestParam(defaultValue = "false") boolean reviews) {
+        long[] movieIds;
+        try {
+            movieIds = parseIds(ids);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid batch request: {}", e.getMessage());
+            metrics.recordInvalidRequest(MovieMetrics.REASON_INVALID_PARAMETER);
+            return ResponseEntity.badRequest().body(new SearchErrorResponse("Arrr! " + e.getMessage() + ", matey!"));
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Fetching a batch of {} movies", movieIds.length);
+        }
+
+        List<Movie> movies = movieService.getMoviesByIds(movieIds);
+        if (!reviews) {
+            return ResponseEntity.ok(movies);
+        }
+        List<MovieBatchItem> items = new ArrayList<>(movies.size());
+        for (Movie movie : movies) {
+            // the summary the movie was built with, from the same snapshot as the rest of the batch
+            items.add(movie != null ? new MovieBatchItem(movie, movie.getAudience()) : null);
+        }
+        return ResponseEntity.ok(items);
+    }
+
+    /**
+     * @throws IllegalArgumentException if an id is not a number or there are too many
+     */
+    static long[] parseIds(String ids) {
+        String[] parts = ids.split(",");
+        if (parts.length > MAX_BATCH_IDS) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_IDS + " ids may be fetched at once");
+        }
+        long[] parsed = new long[parts.length];
+        int count = 0;
+        for (String part : parts) {
+            String id = part.trim();
+            if (id.isEmpty()) {
+                continue;
+            }
+            try {
+                parsed[count++] = Long.parseLong(id);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid id '" + id + "'");
+            }
+        }
+        if (count == 0) {
+            throw new IllegalArgumentException("Ye must provide at least one id");
+        }
+        return count == parsed.length ? parsed : Arrays.copyOf(parsed, count);
+    }
+
     /**
      * Ahoy matey! This be our movie search endpoint that handles both API requests and HTML form submissions.
-     * Supports searching by name, id, and genre - perfect for finding buried treasure!
+     * Supports searching by name, id, and genre, and narrowing by year, duration and rating
+     * ranges - perfect for finding buried treasure!
      * 
      * @param name Movie name to search for (partial matches, case-insensitive)
      * @param id Exact movie ID to find
      * @param genre Genre to filter by (partial matches, case-insensitive)
+     * @param ranges minYear/maxYear, minDuration/maxDuration and minRating/maxRating bounds, inclusive
+     * @param pageRequest limit, offset or cursor, sort order and direction
      * @param model Spring model for HTML responses
      * @return JSON response for API calls, HTML template for browser requests
      */
@@ -49,51 +160,72 @@ public class MoviesController {
             @RequestParam(required = false) String name,
             @RequestParam(required = false) Long id,
             @RequestParam(required = false) String genre,
+            MovieRanges ranges,
+            MoviePageRequest pageRequest,
             org.springframework.ui.Model model,
             javax.servlet.http.HttpServletRequest request) {
         
-        logger.info("Arrr! Movie search request received - name='{}', id='{}', genre='{}'", name, id, genre);
+        logger.debug("Arrr! Movie search request received - name='{}', id='{}', genre='{}', ranges={}", name, id, genre, ranges);
         
         // Check if this be an API request (JSON response expected)
-        String acceptHeader = request.getHeader("Accept");
-        boolean isApiRequest = acceptHeader != null && acceptHeader.contains("application/json");
+        boolean isApiRequest = isApiRequest(request);
         
         // Validate search parameters - at least one must be provided, ye scurvy dog!
-        if (!movieService.isValidSearchRequest(name, id, genre)) {
+        if (!movieService.isValidSearchRequest(name, id, genre, ranges)) {
             logger.warn("Invalid search request - no valid parameters provided");
+            metrics.recordInvalidRequest(MovieMetrics.REASON_NO_CRITERIA);
             
             if (isApiRequest) {
                 return ResponseEntity.badRequest()
-                    .body(new SearchErrorResponse("Arrr! Ye must provide at least one search parameter (name, id, or genre), matey!"));
+                    .body(new SearchErrorResponse("Arrr! Ye must provide at least one search parameter (name, id, genre, or a year, duration or rating range), matey!"));
             } else {
-                model.addAttribute("movies", movieService.getAllMovies());
+                addPage(model, movieService.getMoviesPage(new MoviePageRequest()), "/movies", null, null, null, null);
                 model.addAttribute("genres", movieService.getAllGenres());
                 model.addAttribute("searchError", "Arrr! Ye must provide at least one search parameter, matey!");
                 model.addAttribute("searchName", name);
                 model.addAttribute("searchId", id);
                 model.addAttribute("searchGenre", genre);
+                model.addAttribute("searchRanges", ranges);
                 return "movies";
             }
         }
         
-        // Perform the search expedition!
-        List<Movie> searchResults = movieService.searchMovies(name, id, genre);
+        // Perform the search expedition, one page at a time!
+        MoviePage page;
+        try {
+            page = movieService.searchPage(name, id, genre, ranges, pageRequest);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid paging request: {}", e.getMessage());
+            metrics.recordInvalidRequest(MovieMetrics.REASON_INVALID_PARAMETER);
+            if (isApiRequest) {
+                return ResponseEntity.badRequest().body(new SearchErrorResponse("Arrr! " + e.getMessage() + ", matey!"));
+            }
+            page = movieService.searchPage(name, id, genre, ranges, new MoviePageRequest());
+            model.addAttribute("searchError", "Arrr! " + e.getMessage() + ", matey!");
+        }
         
         if (isApiRequest) {
             // Return JSON response for API requests
-            logger.info("Returning JSON response with {} movies", searchResults.size());
-            return ResponseEntity.ok(searchResults);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Returning JSON response with {} of {} movies", page.getItems().size(), page.getTotalMatches());
+            }
+            return pageResponse(page);
         } else {
             // Return HTML template for browser requests
-            logger.info("Returning HTML response with {} movies", searchResults.size());
-            model.addAttribute("movies", searchResults);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Returning HTML response with {} of {} movies", page.getItems().size(), page.getTotalMatches());
+            }
+            addPage(model, page, "/movies/search", name, id, genre, ranges);
             model.addAttribute("genres", movieService.getAllGenres());
             model.addAttribute("searchPerformed", true);
             model.addAttribute("searchName", name);
             model.addAttribute("searchId", id);
             model.addAttribute("searchGenre", genre);
+            model.addAttribute("searchRanges", ranges);
+            model.addAttribute("searchSort", pageRequest.getSort());
+            model.addAttribute("searchOrder", pageRequest.getOrder());
             
-            if (searchResults.isEmpty()) {
+            if (page.getTotalMatches() == 0) {
                 model.addAttribute("noResults", true);
                 model.addAttribute("noResultsMessage", 
                     "Arrr! No treasure found with those search criteria, matey! Try adjusting yer search parameters.");
@@ -103,6 +235,64 @@ public class MoviesController {
         }
     }
 
+    private static boolean isApiRequest(HttpServletRequest request) {
+        String acceptHeader = request.getHeader("Accept");
+        return acceptHeader != null && acceptHeader.contains("application/json");
+    }
+
+    /**
+     * JSON pages keep the plain array body; paging metadata travels in headers.
+     */
+    private static ResponseEntity<List<Movie>> pageResponse(MoviePage page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .header(TOTAL_COUNT_HEADER, String.valueOf(page.getTotalMatches()));
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        response.header(GENRE_FACETS_HEADER, formatFacets(page.getGenreFacets()));
+        return response.body(page.getItems());
+    }
+
+    /**
+     * Formats facets as {@code genre=count} pairs, e.g. {@code Crime=3, Drama=7}, with genres URL-encoded.
+     */
+    static String formatFacets(List<GenreFacet> facets) {
+        StringBuilder header = new StringBuilder();
+        for (GenreFacet facet : facets) {
+            if (header.length() > 0) {
+                header.append(", ");
+            }
+            header.append(UriUtils.encode(facet.getGenre(), StandardCharsets.UTF_8)).append('=').append(facet.getCount());
+        }
+        return header.toString();
+    }
+
+    private static void addPage(org.springframework.ui.Model model, MoviePage page, String path,
+                                String name, Long id, String genre, MovieRanges ranges) {
+        model.addAttribute("movies", page.getItems());
+        model.addAttribute("page", page);
+        model.addAttribute("genreFacets", page.getGenreFacets());
+        if (page.getNextCursor() != null) {
+            MovieRanges bounds = ranges != null ? ranges : MovieRanges.NONE;
+            model.addAttribute("nextPageUrl", UriComponentsBuilder.fromPath(path)
+                .queryParamIfPresent("name", Optional.ofNullable(name))
+                .queryParamIfPresent("id", Optional.ofNullable(id))
+                .queryParamIfPresent("genre", Optional.ofNullable(genre))
+                .queryParamIfPresent("minYear", Optional.ofNullable(bounds.getMinYear()))
+                .queryParamIfPresent("maxYear", Optional.ofNullable(bounds.getMaxYear()))
+                .queryParamIfPresent("minDuration", Optional.ofNullable(bounds.getMinDuration()))
+                .queryParamIfPresent("maxDuration", Optional.ofNullable(bounds.getMaxDuration()))
+                .queryParamIfPresent("minRating", Optional.ofNullable(bounds.getMinRating()))
+                .queryParamIfPresent("maxRating", Optional.ofNullable(bounds.getMaxRating()))
+                .queryParamIfPresent("minAudienceScore", Optional.ofNullable(bounds.getMinAudienceScore()))
+                .queryParamIfPresent("maxAudienceScore", Optional.ofNullable(bounds.getMaxAudienceScore()))
+                .queryParam("limit", page.getLimit())
+                .queryParam("cursor", page.getNextCursor())
+                .encode()
+                .toUriString());
+        }
+    }
+
     /**
      * Simple error response class for API requests
      */
@@ -118,9 +308,150 @@ public class MoviesController {
         }
     }
 
+    /**
+     * Arrr! Page through the crew's reviews of one movie, in source order or best rated
+     * first. Always answers with JSON.
+     *
+     * @param pageRequest limit, offset or cursor, sort ({@code source} or {@code rating}) and order
+     * @return the page as a JSON array with {@code X-Total-Count} and {@code X-Next-Cursor} headers
+     */
+    @GetMapping(value = "/movies/{id}/reviews", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public ResponseEntity<?> getMovieReviews(@PathVariable("id") Long movieId, ReviewPageRequest pageRequest) {
+        logger.debug("Fetching reviews for movie ID: {}", movieId);
+        if (!movieService.getMovieById(movieId).isPresent()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new SearchErrorResponse("Arrr! No movie with ID " + movieId + " be in our treasure chest, matey!"));
+        }
+        ReviewPage page;
+        try {
+            page = reviewService.getReviewsPage(movieId, pageRequest);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid reviews request: {}", e.getMessage());
+            metrics.recordInvalidRequest(MovieMetrics.REASON_INVALID_PARAMETER);
+            return ResponseEntity.badRequest().body(new SearchErrorResponse("Arrr! " + e.getMessage() + ", matey!"));
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .header(TOTAL_COUNT_HEADER, String.valueOf(page.getTotalReviews()));
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+
+    /**
+     * Arrr! Add a new movie to the treasure chest. Answers with the stored movie and its
+     * assigned id once it be safely on disk.
+     *
+     * @return 201 with the movie, 400 if a field is invalid, 405 if the catalog is read-only,
+     *         429 if the store is too busy
+     */
+    @PostMapping(value = "/movies", consumes = MediaType.APPLICATION_JSON_VALUE,
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public ResponseEntity<?> createMovie(@RequestBody MovieInput input) {
+        if (!movieService.isWritable()) {
+            return readOnly();
+        }
+        try {
+            Movie saved = movieService.saveMovie(input.toMovie(0));
+            logger.info("Created movie {}", saved.getId());
+            return ResponseEntity.created(UriComponentsBuilder.fromPath("/movies/{id}/details").build(saved.getId()))
+                .body(saved);
+        } catch (RuntimeException e) {
+            return writeFailed(e);
+        }
+    }
+
+    /**
+     * Arrr! Replace a movie in the treasure chest, or stow it under this id if it be new.
+     *
+     * @return 200 with the movie, 400 if a field is invalid, 405 if the catalog is read-only,
+     *         429 if the store is too busy
+     */
+    @PutMapping(value = "/movies/{id}", consumes = MediaType.APPLICATION_JSON_VALUE,
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public ResponseEntity<?> updateMovie(@PathVariable("id") Long movieId, @RequestBody MovieInput input) {
+        if (!movieService.isWritable()) {
+            return readOnly();
+        }
+        if (movieId == null || movieId <= 0) {
+            return ResponseEntity.badRequest().body(new SearchErrorResponse("Arrr! Invalid id '" + movieId + "', matey!"));
+        }
+        try {
+            Movie saved = movieService.saveMovie(input.toMovie(movieId));
+            logger.info("Updated movie {}", saved.getId());
+            return ResponseEntity.ok(saved);
+        } catch (RuntimeException e) {
+            return writeFailed(e);
+        }
+    }
+
+    /**
+     * Arrr! Add a crew member's review to a movie.
+     *
+     * @return 201 with the review, 400 if a field is invalid, 404 if there is no such movie,
+     *         405 if reviews are read-only, 429 if the store is too busy
+     */
+    @PostMapping(value = "/movies/{id}/reviews", consumes = MediaType.APPLICATION_JSON_VALUE,
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public ResponseEntity<?> addReview(@PathVariable("id") Long movieId, @RequestBody ReviewInput input) {
+        if (!reviewService.isWritable()) {
+            return readOnly();
+        }
+        if (!movieService.getMovieById(movieId).isPresent()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new SearchErrorResponse("Arrr! No movie with ID " + movieId + " be in our treasure chest, matey!"));
+        }
+        try {
+            Review saved = reviewService.addReview(movieId, input.toReview());
+            return ResponseEntity.status(HttpStatus.CREATED).body(saved);
+        } catch (RuntimeException e) {
+            return writeFailed(e);
+        }
+    }
+
+    private static ResponseEntity<SearchErrorResponse> readOnly() {
+        return ResponseEntity.status(HttpStatus.METHOD_NOT_ALLOWED)
+            .body(new SearchErrorResponse("Arrr! This catalog be read-only; set movies.catalog.format=store to accept writes, matey!"));
+    }
+
+    /**
+     * @return 400 for an invalid movie or review, 429 with {@code Retry-After} if the store's
+     *         write queue is full, 503 if the store could not write it
+     */
+    private ResponseEntity<SearchErrorResponse> writeFailed(RuntimeException e) {
+        if (e instanceof CatalogStore.QueueFullException) {
+            long retryAfter = ((CatalogStore.QueueFullException) e).getRetryAfterSeconds();
+            logger.warn("Rejected a write, the catalog store queue is full");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                .body(new SearchErrorResponse("Arrr! Too many scallywags be writing at once; try again in "
+                    + retryAfter + " seconds, matey!"));
+        }
+        if (e instanceof IllegalArgumentException) {
+            logger.warn("Invalid write request: {}", e.getMessage());
+            metrics.recordInvalidRequest(MovieMetrics.REASON_INVALID_PARAMETER);
+            return ResponseEntity.badRequest().body(new SearchErrorResponse("Arrr! " + e.getMessage() + ", matey!"));
+        }
+        logger.error("Failed to write to the catalog store: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .body(new SearchErrorResponse("Arrr! The catalog store could not write that, matey! Try again later."));
+    }
+
+    /**
+     * Shows a movie with its first {@value #DETAILS_REVIEWS} reviews; the page fetches the
+     * rest from {@link #getMovieReviews} as they are asked for.
+     *
+     * @param reviewCursor cursor of the reviews to show, for browsers without JavaScript
+     */
     @GetMapping("/movies/{id}/details")
-    public String getMovieDetails(@PathVariable("id") Long movieId, org.springframework.ui.Model model) {
-        logger.info("Fetching details for movie ID: {}", movieId);
+    public String getMovieDetails(@PathVariable("id") Long movieId,
+                                  @RequestParam(value = "reviewCursor", required = false) String reviewCursor,
+                                  org.springframework.ui.Model model) {
+        logger.debug("Fetching details for movie ID: {}", movieId);
         
         Optional<Movie> movieOpt = movieService.getMovieById(movieId);
         if (!movieOpt.isPresent()) {
@@ -132,9 +463,20 @@ public class MoviesController {
         
         Movie movie = movieOpt.get();
         model.addAttribute("movie", movie);
-        model.addAttribute("movieIcon", MovieIconUtils.getMovieIcon(movie.getMovieName()));
-        model.addAttribute("allReviews", reviewService.getReviewsForMovie(movie.getId()));
+        model.addAttribute("movieIcon", movie.getIcon());
+
+        ReviewPage reviews;
+        try {
+            reviews = reviewService.getReviewsPage(movie.getId(),
+                new ReviewPageRequest(DETAILS_REVIEWS, null, reviewCursor, null, null));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid review cursor on details page: {}", e.getMessage());
+            reviews = reviewService.getReviewsPage(movie.getId(), new ReviewPageRequest(DETAILS_REVIEWS, null, null, null, null));
+        }
+        model.addAttribute("reviews", reviews.getItems());
+        model.addAttribute("reviewCount", reviews.getTotalReviews());
+        model.addAttribute("nextReviewCursor", reviews.getNextCursor());
         
         return "movie-details";
     }
-}
\ No newline at end of file
+}
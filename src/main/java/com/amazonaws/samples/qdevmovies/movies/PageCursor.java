@@ -0,0 +1,97 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor: the sort order and direction plus the sort key of the last movie
+ * on a page. The next page starts at the first movie ordered strictly after that key.
+ */
+public final class PageCursor {
+    private final MovieSort sort;
+    private final boolean descending;
+    private final double key;
+    private final long id;
+
+    private PageCursor(MovieSort sort, boolean descending, double key, long id) {
+        this.sort = sort;
+        this.descending = descending;
+        this.key = key;
+        this.id = id;
+    }
+
+    public static PageCursor after(MovieSort sort, Movie movie) {
+        return after(sort, sort.isDescending(), movie);
+    }
+
+    public static PageCursor after(MovieSort sort, boolean descending, Movie movie) {
+        return new PageCursor(sort, descending, sort.key(movie), movie.getId());
+    }
+
+    public MovieSort getSort() {
+        return sort;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    /**
+     * Compares a movie with the cursor position in the cursor's order and direction.
+     *
+     * @return a positive number if the movie comes after the cursor
+     */
+    public int compareTo(Movie movie) {
+        int natural = compareNatural(sort.key(movie), movie.getId());
+        return descending == sort.isDescending() ? natural : -natural;
+    }
+
+    /**
+     * Compares the movie at a catalog position with the cursor position in the natural
+     * direction of the cursor's order, regardless of the cursor's own direction.
+     *
+     * @return a positive number if the movie comes after the cursor
+     */
+    int compareNatural(MovieColumns columns, int position) {
+        return compareNatural(sort.key(columns, position), columns.ids[position]);
+    }
+
+    private int compareNatural(double movieKey, long movieId) {
+        if (sort.hasKey()) {
+            int byKey = sort.compareKeys(movieKey, key);
+            if (byKey != 0) {
+                return byKey;
+            }
+        }
+        return Long.compare(movieId, id);
+    }
+
+    public String encode() {
+        String raw = sort.getParam() + ":" + (descending ? "desc" : "asc") + ":"
+            + Long.toHexString(Double.doubleToLongBits(key)) + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Also accepts cursors issued before directions existed, which carry no direction
+     * and continue in the natural one.
+     *
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static PageCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            if (parts.length != 3 && parts.length != 4) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            MovieSort sort = MovieSort.fromParam(parts[0]);
+            boolean descending = parts.length == 4 ? sort.descendingFromParam(parts[1]) : sort.isDescending();
+            return new PageCursor(sort, descending,
+                Double.longBitsToDouble(Long.parseUnsignedLong(parts[parts.length - 2], 16)),
+                Long.parseLong(parts[parts.length - 1]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
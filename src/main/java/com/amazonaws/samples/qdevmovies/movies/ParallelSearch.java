@@ -0,0 +1,167 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Evaluates broad text searches over large catalogs on a dedicated {@link ForkJoinPool}.
+ * <p>
+ * The search is compiled into a {@link MovieQuery}; terms shorter than a trigram, which
+ * must be checked against every distinct value, are checked in chunks of values on the pool.
+ * The query's candidate positions are then split into fixed chunks, and each chunk applies
+ * every remaining criterion in one pass. The chunk results are concatenated in chunk order,
+ * so matches come out in catalog order exactly as from the sequential path.
+ * <p>
+ * The pool is used only when the catalog has at least {@code threshold} movies. Searches
+ * that leave fewer than a chunk of candidates are evaluated on the calling thread.
+ */
+@Component
+public class ParallelSearch {
+    private static final Logger logger = LogManager.getLogger(ParallelSearch.class);
+    public static final ParallelSearch DISABLED = new ParallelSearch(false, Integer.MAX_VALUE, 1, 1);
+
+    private final int threshold;
+    private final int chunkSize;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param enabled whether searches may run on the pool at all
+     * @param threshold smallest catalog size searched in parallel
+     * @param chunkSize positions or values per task
+     * @param parallelism worker threads; 0 or less means one per available processor
+     */
+    public ParallelSearch(@Value("${movies.parallel-search.enabled:false}") boolean enabled,
+                          @Value("${movies.parallel-search.threshold:100000}") int threshold,
+                          @Value("${movies.parallel-search.chunk-size:16384}") int chunkSize,
+                          @Value("${movies.parallel-search.parallelism:0}") int parallelism) {
+        this.threshold = threshold;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.pool = enabled ? newPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors()) : null;
+        if (pool != null) {
+            logger.info("Parallel search enabled for catalogs of {}+ movies with {} workers", threshold, pool.getParallelism());
+        }
+    }
+
+    private static ForkJoinPool newPool(int parallelism) {
+        return new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            worker.setName("movie-search-" + worker.getPoolIndex());
+            worker.setDaemon(true);
+            return worker;
+        }, null, false);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * @return true if searches over a catalog of this size run on the pool
+     */
+    public boolean appliesTo(int catalogSize) {
+        return pool != null && catalogSize >= threshold;
+    }
+
+    /**
+     * @param key a key with a name or genre term and no id
+     * @return ascending catalog positions matching every criterion
+     */
+    int[] match(CatalogSnapshot current, SearchKey key) {
+        MovieQuery query = MovieQuery.compile(current, key, this::matchTerm);
+        int candidates = query.candidateCount();
+        if (candidates < chunkSize) {
+            // too few candidates to be worth splitting up
+            return query.positions();
+        }
+        int[][] chunks = new int[chunkCount(candidates)][];
+        invoke(candidates, (chunk, start, end) -> chunks[chunk] = query.positions(start, end));
+        return concat(chunks);
+    }
+
+    /**
+     * Like {@link MovieQuery.TermMatch#of}, but a term shorter than a trigram, which has to be
+     * checked against every value, is checked in chunks on the pool.
+     */
+    private MovieQuery.TermMatch matchTerm(MovieSearchIndex.FieldIndex field, String term) {
+        int[] candidates = field.candidateValues(term);
+        if (candidates != null) {
+            return MovieQuery.TermMatch.ofCandidates(field, term, candidates);
+        }
+        boolean[] flags = new boolean[field.valueCount()];
+        invoke(flags.length, (chunk, start, end) -> {
+            for (int valueId = start; valueId < end; valueId++) {
+                flags[valueId] = field.valueContains(valueId, term);
+            }
+        });
+        return MovieQuery.TermMatch.ofFlags(field, flags);
+    }
+
+    private int chunkCount(int size) {
+        return (int) (((long) size + chunkSize - 1) / chunkSize);
+    }
+
+    private void invoke(int size, ChunkBody body) {
+        int chunks = chunkCount(size);
+        if (chunks > 0) {
+            pool.invoke(new ChunkTask(body, size, 0, chunks));
+        }
+    }
+
+    private static int[] concat(int[][] chunks) {
+        int total = 0;
+        for (int[] chunk : chunks) {
+            total += chunk.length;
+        }
+        int[] out = new int[total];
+        int n = 0;
+        for (int[] chunk : chunks) {
+            System.arraycopy(chunk, 0, out, n, chunk.length);
+            n += chunk.length;
+        }
+        return out;
+    }
+
+    private interface ChunkBody {
+        void run(int chunk, int start, int end);
+    }
+
+    /**
+     * Splits a run of chunks in halves until one chunk is left, then runs the body on it.
+     */
+    private final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ChunkBody body;
+        private final int size;
+        private final int fromChunk;
+        private final int toChunk;
+
+        ChunkTask(ChunkBody body, int size, int fromChunk, int toChunk) {
+            this.body = body;
+            this.size = size;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (toChunk - fromChunk == 1) {
+                int start = fromChunk * chunkSize;
+                body.run(fromChunk, start, (int) Math.min(size, (long) start + chunkSize));
+                return;
+            }
+            int middle = (fromChunk + toChunk) >>> 1;
+            invokeAll(new ChunkTask(body, size, fromChunk, middle), new ChunkTask(body, size, middle, toChunk));
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Functional WebFlux routes for the JSON movie API, served by {@link ReactiveMovieServer}:
+ * <ul>
+ *   <li>{@code GET /movies/search} takes the same parameters as the servlet search API. It
+ *   answers with one page as a JSON array, with the paging headers of
+ *   {@link MoviesController}. With {@code Accept: application/x-ndjson} it streams every
+ *   match from the offset or cursor instead, one movie per line, fetched as the client
+ *   reads them.</li>
+ *   <li>{@code GET /movies/{id}} returns a movie.</li>
+ *   <li>{@code GET /movies/{id}/reviews} returns one page of the movie's reviews as a JSON
+ *   array, taking the paging parameters and headers of the servlet reviews API, or streams
+ *   all of them as NDJSON.</li>
+ * </ul>
+ */
+@Component
+public class ReactiveMovieRoutes {
+    private static final Logger logger = LogManager.getLogger(ReactiveMovieRoutes.class);
+
+    private final MovieService movieService;
+    private final ReviewService reviewService;
+    private final MovieMetrics metrics;
+
+    @Autowired
+    public ReactiveMovieRoutes(MovieService movieService, ReviewService reviewService, MovieMetrics metrics) {
+        this.movieService = movieService;
+        this.reviewService = reviewService;
+        this.metrics = metrics;
+    }
+
+    public RouterFunction<ServerResponse> routes() {
+        return RouterFunctions.route()
+            .GET("/movies/search", this::search)
+            .GET("/movies/{id}/reviews", this::reviews)
+            .GET("/movies/{id}", this::details)
+            .build();
+    }
+
+    Mono<ServerResponse> search(ServerRequest request) {
+        String name = request.queryParam("name").orElse(null);
+        String genre = request.queryParam("genre").orElse(null);
+        Long id;
+        MovieRanges ranges;
+        MoviePageRequest pageRequest;
+        try {
+            id = param(request, "id", Long::valueOf);
+            ranges = new MovieRanges(param(request, "minYear", Integer::valueOf), param(request, "maxYear", Integer::valueOf),
+                param(request, "minDuration", Integer::valueOf), param(request, "maxDuration", Integer::valueOf),
+                param(request, "minRating", Double::valueOf), param(request, "maxRating", Double::valueOf),
+                param(request, "minAudienceScore", Double::valueOf), param(request, "maxAudienceScore", Double::valueOf));
+            pageRequest = new MoviePageRequest(param(request, "limit", Integer::valueOf), param(request, "offset", Integer::valueOf),
+                request.queryParam("cursor").orElse(null), request.queryParam("sort").orElse(null),
+                request.queryParam("order").orElse(null));
+            // fail before the response is committed rather than part way through a stream
+            pageRequest.resolvedDescending(pageRequest.resolvedSort());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid reactive search request: {}", e.getMessage());
+            metrics.recordInvalidRequest(MovieMetrics.REASON_INVALID_PARAMETER);
+            return badRequest("Arrr! " + e.getMessage() + ", matey!");
+        }
+        if (!movieService.isValidSearchRequest(name, id, genre, ranges)) {
+            metrics.recordInvalidRequest(MovieMetrics.REASON_NO_CRITERIA);
+            return badRequest("Arrr! Ye must provide at least one search parameter (name, id, genre, "
+                + "or a year, duration or rating range), matey!");
+        }
+
+        if (acceptsNdjson(request)) {
+            return ServerResponse.ok().contentType(MediaType.APPLICATION_NDJSON)
+                .body(movieService.streamSearch(name, id, genre, ranges, pageRequest), Movie.class);
+        }
+        return Mono.fromCallable(() -> movieService.searchPage(name, id, genre, ranges, pageRequest))
+            .flatMap(page -> {
+                ServerResponse.BodyBuilder response = ServerResponse.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(MoviesController.TOTAL_COUNT_HEADER, String.valueOf(page.getTotalMatches()))
+                    .header(MoviesController.GENRE_FACETS_HEADER, MoviesController.formatFacets(page.getGenreFacets()));
+                if (page.getNextCursor() != null) {
+                    response.header(MoviesController.NEXT_CURSOR_HEADER, page.getNextCursor());
+                }
+                return response.bodyValue(page.getItems());
+            });
+    }
+
+    Mono<ServerResponse> details(ServerRequest request) {
+        Long id = pathId(request);
+        if (id == null) {
+            return ServerResponse.notFound().build();
+        }
+        return movieService.findMovieById(id)
+            .flatMap(movie -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(movie))
+            .switchIfEmpty(ServerResponse.notFound().build());
+    }
+
+    Mono<ServerResponse> reviews(ServerRequest request) {
+        Long id = pathId(request);
+        if (id == null) {
+            return ServerResponse.notFound().build();
+        }
+        if (acceptsNdjson(request)) {
+            return movieService.findMovieById(id)
+                .flatMap(movie -> ServerResponse.ok().contentType(MediaType.APPLICATION_NDJSON)
+                    .body(reviewService.streamReviewsForMovie(movie.getId()), Review.class))
+                .switchIfEmpty(ServerResponse.notFound().build());
+        }
+        ReviewPageRequest pageRequest;
+        try {
+            pageRequest = new ReviewPageRequest(param(request, "limit", Integer::valueOf),
+                param(request, "offset", Integer::valueOf), request.queryParam("cursor").orElse(null),
+                request.queryParam("sort").orElse(null), request.queryParam("order").orElse(null));
+        } catch (IllegalArgumentException e) {
+            metrics.recordInvalidRequest(MovieMetrics.REASON_INVALID_PARAMETER);
+            return badRequest("Arrr! " + e.getMessage() + ", matey!");
+        }
+        return movieService.findMovieById(id)
+            .flatMap(movie -> {
+                ReviewPage page;
+                try {
+                    page = reviewService.getReviewsPage(movie.getId(), pageRequest);
+                } catch (IllegalArgumentException e) {
+                    logger.warn("Invalid reactive reviews request: {}", e.getMessage());
+                    metrics.recordInvalidRequest(MovieMetrics.REASON_INVALID_PARAMETER);
+                    return badRequest("Arrr! " + e.getMessage() + ", matey!");
+                }
+                ServerResponse.BodyBuilder response = ServerResponse.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(MoviesController.TOTAL_COUNT_HEADER, String.valueOf(page.getTotalReviews()));
+                if (page.getNextCursor() != null) {
+                    response.header(MoviesController.NEXT_CURSOR_HEADER, page.getNextCursor());
+                }
+                return response.bodyValue(page.getItems());
+            })
+            .switchIfEmpty(ServerResponse.notFound().build());
+    }
+
+    /**
+     * Only an explicit {@code application/x-ndjson}; wildcards get the JSON array.
+     */
+    private static boolean acceptsNdjson(ServerRequest request) {
+        List<MediaType> accept = request.headers().accept();
+        return accept.stream().anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype);
+    }
+
+    private static Mono<ServerResponse> badRequest(String message) {
+        return ServerResponse.badRequest().contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(new MoviesController.SearchErrorResponse(message));
+    }
+
+    private static Long pathId(ServerRequest request) {
+        try {
+            return Long.valueOf(request.pathVariable("id"));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the parsed query parameter, or null if it is absent or blank
+     * @throws IllegalArgumentException if it cannot be parsed
+     */
+    private static <T> T param(ServerRequest request, String name, Function<String, T> parser) {
+        String value = request.queryParam(name).map(String::trim).filter(v -> !v.isEmpty()).orElse(null);
+        try {
+            return value != null ? parser.apply(value) : null;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + " '" + value + "'");
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import javax.annotation.PreDestroy;
+
+/**
+ * Serves {@link ReactiveMovieRoutes} from a Reactor Netty server on its own port,
+ * {@code movies.reactive.port}, next to the servlet application. Connections are handled
+ * by Netty's event loops, so an idle or slowly reading client holds no thread. Enabled with
+ * {@code movies.reactive.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "movies.reactive.enabled", havingValue = "true")
+public class ReactiveMovieServer {
+    private static final Logger logger = LogManager.getLogger(ReactiveMovieServer.class);
+
+    private final DisposableServer server;
+
+    /**
+     * @param objectMapper the application's mapper, so both APIs serialize movies alike
+     * @param port port to listen on; 0 picks a free one
+     */
+    public ReactiveMovieServer(ReactiveMovieRoutes routes, ObjectMapper objectMapper,
+                               @Value("${movies.reactive.port:8081}") int port) {
+        HandlerStrategies strategies = HandlerStrategies.builder()
+            .codecs(codecs -> {
+                codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+            })
+            .build();
+        HttpHandler handler = RouterFunctions.toHttpHandler(routes.routes(), strategies);
+        this.server = HttpServer.create()
+            .port(port)
+            .handle(new ReactorHttpHandlerAdapter(handler))
+            .bindNow();
+        logger.info("Reactive movie API listening on port {}", server.port());
+    }
+
+    public int getPort() {
+        return server.port();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        server.disposeNow();
+    }
+}
@@ -0,0 +1,207 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches rendered {@code GET /movies...} responses (HTML and JSON) keyed by path, query
+ * parameters and representation.
+ * <p>
+ * Cached responses carry a strong ETag computed from the body. For a read-only catalog they
+ * also carry a {@code Cache-Control} max-age; a writable one ({@code movies.catalog.format=store})
+ * can change with any request, so clients are told to revalidate every time instead, which the
+ * ETag keeps cheap. A request whose {@code If-None-Match} matches a cached entry gets a 304, and
+ * any other hit is served from the cache; neither reaches the controller or the services.
+ * Entries only go stale when the catalog changes, which is followed by a call to
+ * {@link #invalidateAll()}.
+ * <p>
+ * A render can start on the catalog from before a change and finish after the invalidation.
+ * To keep such a page out of the cache, every invalidation starts a new generation. Each
+ * entry records the generation that was current when its render started. Entries from an
+ * earlier generation are treated as misses, including ones stored after the invalidation.
+ */
+@Component
+@ConditionalOnProperty(name = "movies.response-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class ResponseCacheFilter extends OncePerRequestFilter {
+    private static final Logger logger = LogManager.getLogger(ResponseCacheFilter.class);
+    private static final List<String> UNCACHED_HEADERS = Arrays.asList(
+        HttpHeaders.SET_COOKIE, HttpHeaders.DATE, HttpHeaders.CONTENT_LENGTH, HttpHeaders.TRANSFER_ENCODING);
+
+    private final BoundedCache<String, CachedResponse> cache;
+    private final String cacheControl;
+    private final AtomicLong generation = new AtomicLong();
+
+    public ResponseCacheFilter(
+            @Value("${movies.response-cache.max-bytes:16777216}") long maxBytes,
+            @Value("${movies.response-cache.max-age-seconds:60}") long maxAgeSeconds,
+            @Value("${movies.catalog.format:json}") String catalogFormat) {
+        this.cache = new BoundedCache<>(maxBytes, CachedResponse::weight);
+        // a client must see its own write on the next reload, so it may not reuse a page unasked
+        this.cacheControl = "store".equals(catalogFormat) ? "no-cache" : "public, max-age=" + maxAgeSeconds;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"GET".equals(request.getMethod()) || !request.getRequestURI().startsWith("/movies");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = cacheKey(request);
+        // read before rendering: a page rendered from an older catalog must not outlive an invalidation
+        long renderGeneration = generation.get();
+        CachedResponse cached = cache.get(key);
+        if (cached != null && cached.generation == renderGeneration) {
+            if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), cached.etag)) {
+                notModified(response, cached.etag);
+            } else {
+                cached.writeTo(response, cacheControl);
+            }
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, wrapper);
+        if (wrapper.getStatus() != HttpServletResponse.SC_OK || request.isAsyncStarted()) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+
+        CachedResponse fresh = CachedResponse.capture(wrapper, renderGeneration);
+        cache.put(key, fresh);
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), fresh.etag)) {
+            response.reset();
+            notModified(response, fresh.etag);
+            return;
+        }
+        wrapper.setHeader(HttpHeaders.ETAG, fresh.etag);
+        wrapper.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        wrapper.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        wrapper.copyBodyToResponse();
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+        logger.debug("Response cache invalidated");
+    }
+
+    public BoundedCache.Stats stats() {
+        return cache.stats();
+    }
+
+    private void notModified(HttpServletResponse response, String etag) {
+        response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+    }
+
+    /**
+     * Path, sorted query parameters and the representation the controller will pick.
+     */
+    static String cacheKey(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        boolean json = accept != null && accept.contains("application/json");
+        StringBuilder key = new StringBuilder(json ? "json:" : "html:").append(request.getRequestURI());
+        Map<String, String[]> params = new TreeMap<>(request.getParameterMap());
+        char separator = '?';
+        for (Map.Entry<String, String[]> param : params.entrySet()) {
+            for (String value : param.getValue()) {
+                key.append(separator).append(param.getKey()).append('=').append(value);
+                separator = '&';
+            }
+        }
+        return key.toString();
+    }
+
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class CachedResponse {
+        private final byte[] body;
+        private final String etag;
+        private final Map<String, List<String>> headers;
+        private final long generation;
+
+        private CachedResponse(byte[] body, Map<String, List<String>> headers, long generation) {
+            this.body = body;
+            this.etag = "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+            this.headers = headers;
+            this.generation = generation;
+        }
+
+        static CachedResponse capture(ContentCachingResponseWrapper wrapper, long generation) {
+            Map<String, List<String>> headers = new LinkedHashMap<>();
+            for (String name : wrapper.getHeaderNames()) {
+                if (!UNCACHED_HEADERS.contains(name)) {
+                    headers.put(name, Collections.unmodifiableList(new ArrayList<>(wrapper.getHeaders(name))));
+                }
+            }
+            if (wrapper.getContentType() != null) {
+                headers.put(HttpHeaders.CONTENT_TYPE, Collections.singletonList(wrapper.getContentType()));
+            }
+            return new CachedResponse(wrapper.getContentAsByteArray(), headers, generation);
+        }
+
+        void writeTo(HttpServletResponse response, String cacheControl) throws IOException {
+            response.setStatus(HttpServletResponse.SC_OK);
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                for (String value : header.getValue()) {
+                    response.addHeader(header.getKey(), value);
+                }
+            }
+            response.setHeader(HttpHeaders.ETAG, etag);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+
+        long weight() {
+            long weight = body.length + 128;
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                weight += header.getKey().length() * 2L;
+                for (String value : header.getValue()) {
+                    weight += value.length() * 2L;
+                }
+            }
+            return weight;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.Arrays;
+
+/**
+ * Per-movie review aggregates, computed in one pass over the {@link ReviewColumns} ratings
+ * when the reviews are loaded, and held in primitive arrays sorted by movie id: review count, rating sum and a histogram
+ * in 0.5 steps, from which the mean rating and a Bayesian audience score are derived when they are read.
+ * <p>
+ * The audience score is {@code (C * m + sum) / (C + n)}: the mean of a movie's {@code n}
+ * ratings with {@code C} phantom ratings of the global mean {@code m} added, where
+ * {@code C} is the mean number of reviews per reviewed movie. A movie with a single 5.0
+ * review thus scores close to the global mean, while one with many reviews scores close
+ * to its own mean; a movie without reviews scores {@code m}.
+ * <p>
+ * Reviews added later are folded in with {@link #appended}, which updates the counts, sums
+ * and histograms of only the movies they belong to, plus the two global totals.
+ * <p>
+ * {@link MovieColumns} copies the aggregates into columns aligned with the catalog, so
+ * requests read them by position and never touch a {@link Review}.
+ */
+public final class ReviewAggregates {
+    static final int HISTOGRAM_BUCKETS = 11;
+    static final ReviewAggregates NONE = new ReviewAggregates(new long[0], new int[0], new double[0],
+        new int[0], 0, 0.0);
+
+    private final long[] movieIds;
+    private final int[] counts;
+    private final double[] sums;
+    private final int[] histograms;
+    private final long total;
+    private final double totalSum;
+    private final double globalMean;
+    private final double priorWeight;
+
+    private ReviewAggregates(long[] movieIds, int[] counts, double[] sums, int[] histograms,
+                             long total, double totalSum) {
+        this.movieIds = movieIds;
+        this.counts = counts;
+        this.sums = sums;
+        this.histograms = histograms;
+        this.total = total;
+        this.totalSum = totalSum;
+        this.globalMean = total > 0 ? totalSum / total : 0.0;
+        this.priorWeight = movieIds.length > 0 ? (double) total / movieIds.length : 0.0;
+    }
+
+    static ReviewAggregates of(ReviewColumns reviews) {
+        return NONE.appended(reviews);
+    }
+
+    /**
+     * Returns the aggregates of these reviews followed by {@code added}. Only the movies in
+     * {@code added} are aggregated; the others' counts, sums and histograms are copied over.
+     */
+    ReviewAggregates appended(ReviewColumns added) {
+        if (added.size() == 0) {
+            return this;
+        }
+        int newMovies = 0;
+        for (int b = 0; b < added.movieCount(); b++) {
+            newMovies += indexOf(added.movieIdAt(b)) < 0 ? 1 : 0;
+        }
+        long[] mergedIds = movieIds;
+        int[] mergedCounts;
+        double[] mergedSums;
+        int[] mergedHistograms;
+        if (newMovies == 0) {
+            mergedCounts = counts.clone();
+            mergedSums = sums.clone();
+            mergedHistograms = histograms.clone();
+        } else {
+            mergedIds = new long[movieIds.length + newMovies];
+            mergedCounts = new int[mergedIds.length];
+            mergedSums = new double[mergedIds.length];
+            mergedHistograms = new int[mergedIds.length * HISTOGRAM_BUCKETS];
+            int a = 0;
+            int movie = 0;
+            for (int b = 0; b < added.movieCount(); b++) {
+                int existing = indexOf(added.movieIdAt(b));
+                if (existing >= 0) {
+                    continue;
+                }
+                int insertAt = -existing - 1;
+                movie = copyMovies(a, insertAt, mergedIds, mergedCounts, mergedSums, mergedHistograms, movie);
+                a = insertAt;
+                mergedIds[movie++] = added.movieIdAt(b);
+            }
+            copyMovies(a, movieIds.length, mergedIds, mergedCounts, mergedSums, mergedHistograms, movie);
+        }
+        long mergedTotal = total;
+        double mergedTotalSum = totalSum;
+        for (int b = 0; b < added.movieCount(); b++) {
+            int movie = Arrays.binarySearch(mergedIds, added.movieIdAt(b));
+            double sum = 0;
+            for (int index = 0; index < added.count(b); index++) {
+                double rating = added.rating(b, index);
+                sum += rating;
+                mergedHistograms[movie * HISTOGRAM_BUCKETS + bucket(rating)]++;
+            }
+            mergedCounts[movie] += added.count(b);
+            mergedSums[movie] += sum;
+            mergedTotal += added.count(b);
+            mergedTotalSum += sum;
+        }
+        return new ReviewAggregates(mergedIds, mergedCounts, mergedSums, mergedHistograms, mergedTotal, mergedTotalSum);
+    }
+
+    /**
+     * Copies the aggregates of the movies in {@code [from, to)} to {@code target} onwards.
+     *
+     * @return the index past the copied movies
+     */
+    private int copyMovies(int from, int to, long[] targetIds, int[] targetCounts, double[] targetSums,
+                           int[] targetHistograms, int target) {
+        System.arraycopy(movieIds, from, targetIds, target, to - from);
+        System.arraycopy(counts, from, targetCounts, target, to - from);
+        System.arraycopy(sums, from, targetSums, target, to - from);
+        System.arraycopy(histograms, from * HISTOGRAM_BUCKETS, targetHistograms, target * HISTOGRAM_BUCKETS,
+            (to - from) * HISTOGRAM_BUCKETS);
+        return target + to - from;
+    }
+
+    /**
+     * @return the histogram bucket of a rating, rounded to the nearest 0.5 and clamped to [0, 5]
+     */
+    static int bucket(double rating) {
+        return (int) Math.max(0, Math.min(HISTOGRAM_BUCKETS - 1, Math.round(rating * 2)));
+    }
+
+    /**
+     * @return the number of movies with reviews
+     */
+    int size() {
+        return movieIds.length;
+    }
+
+    /**
+     * @return the index of a movie's aggregates, or a negative number if it has no reviews
+     */
+    int indexOf(long movieId) {
+        return Arrays.binarySearch(movieIds, movieId);
+    }
+
+    int count(int index) {
+        return counts[index];
+    }
+
+    double sum(int index) {
+        return sums[index];
+    }
+
+    double mean(int index) {
+        return sums[index] / counts[index];
+    }
+
+    double score(int index) {
+        return score(counts[index], sums[index]);
+    }
+
+    /**
+     * @return the audience score of a movie with {@code count} reviews whose ratings add up
+     *         to {@code sum}; the global mean if it has none
+     */
+    double score(int count, double sum) {
+        return count > 0 ? (priorWeight * globalMean + sum) / (priorWeight + count) : globalMean;
+    }
+
+    /**
+     * Copies the histogram of the movie at {@code index} into {@code target} at {@code offset}.
+     */
+    void copyHistogram(int index, int[] target, int offset) {
+        System.arraycopy(histograms, index * HISTOGRAM_BUCKETS, target, offset, HISTOGRAM_BUCKETS);
+    }
+
+    /**
+     * @return the mean rating over all reviews
+     */
+    double globalMean() {
+        return globalMean;
+    }
+
+    /**
+     * @return the number of phantom global-mean ratings added to each movie's score
+     */
+    double priorWeight() {
+        return priorWeight;
+    }
+
+    /**
+     * @return the aggregates of one movie; one without reviews scores the global mean
+     */
+    ReviewSummary summary(long movieId) {
+        int index = indexOf(movieId);
+        if (index < 0) {
+            return new ReviewSummary(0, 0.0, globalMean, new int[HISTOGRAM_BUCKETS]);
+        }
+        int[] histogram = new int[HISTOGRAM_BUCKETS];
+        copyHistogram(index, histogram, 0);
+        return new ReviewSummary(counts[index], mean(index), score(index), histogram);
+    }
+}
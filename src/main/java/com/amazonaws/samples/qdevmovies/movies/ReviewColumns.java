@@ -0,0 +1,386 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Struct-of-arrays store of all reviews. Ratings live in a primitive array, and user names,
+ * avatars and comments are stored as UTF-8 in one shared byte array with an offset per
+ * field, both in the order the reviews were added. Each movie lists the positions of its
+ * reviews in source order, and their indexes presorted by rating, best first with ties in
+ * source order, for pages sorted by rating.
+ * <p>
+ * A {@link Review} is decoded only when it is read, so a page can start at any offset of a
+ * movie's reviews without decoding the ones before it.
+ * <p>
+ * The review arrays only ever grow at the end. {@link #appended} writes the new reviews
+ * past the end of the arrays it shares with this store, which never reads beyond its own
+ * size, and copies only the position lists of the movies it adds reviews to. The arrays
+ * themselves are copied only when they are full, doubling their capacity, or when a
+ * second store is appended to the same one.
+ */
+public final class ReviewColumns {
+    static final ReviewColumns EMPTY = new Builder().build();
+
+    private static final int FIELDS = 3;
+    private static final int[] NO_REVIEWS = new int[0];
+
+    private final long[] movieIds;
+    /** positions of the reviews of movie {@code m}, in source order */
+    private final int[][] positions;
+    /** indexes into {@code positions[m]}, sorted by {@link ReviewSort#RATING} */
+    private final int[][] byRating;
+    private final int size;
+    /** review arrays, which may have room for reviews past {@code size} */
+    private final double[] ratings;
+    private final byte[] text;
+    /** user name, avatar and comment of review {@code r} start at {@code textOffsets[3r..3r+2]} */
+    private final int[] textOffsets;
+    /** number of reviews in the review arrays, counting those of the stores appended to this one */
+    private final AtomicInteger written;
+    /** each movie's list of reviews, created when it is first read */
+    private final List<Review>[] lists;
+
+    private ReviewColumns(long[] movieIds, int[][] positions, int[][] byRating, int size, double[] ratings,
+                          byte[] text, int[] textOffsets, AtomicInteger written) {
+        this.movieIds = movieIds;
+        this.positions = positions;
+        this.byRating = byRating;
+        this.size = size;
+        this.ratings = ratings;
+        this.text = text;
+        this.textOffsets = textOffsets;
+        this.written = written;
+        @SuppressWarnings("unchecked")
+        List<Review>[] views = (List<Review>[]) new List<?>[movieIds.length];
+        this.lists = views;
+    }
+
+    private static int[] sortByRating(int[] run, double[] ratings) {
+        int[] indexes = IntStream.range(0, run.length).toArray();
+        IntSort.sort(indexes, (a, b) -> ReviewSort.RATING.compare(ratings[run[a]], a, ratings[run[b]], b));
+        return indexes;
+    }
+
+    /**
+     * Returns a store holding these reviews followed by {@code added}, each movie's new
+     * reviews after its existing ones. The new reviews are copied past the end of the review
+     * arrays, and nothing is decoded; a movie's rating order is merged from its existing
+     * order and the order of its new reviews. Apart from copying the arrays when they are
+     * full, the cost is that of the added reviews and the reviews of the movies they belong
+     * to, plus one copy of the per-movie references, rather than that of all reviews.
+     */
+    ReviewColumns appended(ReviewColumns added) {
+        if (added.size == 0) {
+            return this;
+        }
+        int total = size + added.size;
+        int textLength = textOffsets[size * FIELDS];
+        int addedText = added.textOffsets[added.size * FIELDS];
+        double[] newRatings = ratings;
+        byte[] newText = text;
+        int[] newOffsets = textOffsets;
+        AtomicInteger newWritten = written;
+        boolean fits = total <= ratings.length && textLength + addedText <= text.length;
+        // claiming the space past this store's size fails if another store was appended to it first
+        if (!fits || !written.compareAndSet(size, total)) {
+            int capacity = Math.max(total, size * 2);
+            newRatings = new double[capacity];
+            System.arraycopy(ratings, 0, newRatings, 0, size);
+            newText = new byte[Math.max(textLength + addedText, textLength * 2)];
+            System.arraycopy(text, 0, newText, 0, textLength);
+            newOffsets = new int[capacity * FIELDS + 1];
+            System.arraycopy(textOffsets, 0, newOffsets, 0, size * FIELDS + 1);
+            newWritten = new AtomicInteger(total);
+        }
+        System.arraycopy(added.ratings, 0, newRatings, size, added.size);
+        System.arraycopy(added.text, 0, newText, textLength, addedText);
+        for (int field = 1; field <= added.size * FIELDS; field++) {
+            newOffsets[size * FIELDS + field] = added.textOffsets[field] + textLength;
+        }
+
+        int newMovies = 0;
+        for (long movieId : added.movieIds) {
+            newMovies += movieIndex(movieId) < 0 ? 1 : 0;
+        }
+        long[] mergedIds = movieIds;
+        int[][] mergedPositions;
+        int[][] mergedByRating;
+        if (newMovies == 0) {
+            mergedPositions = positions.clone();
+            mergedByRating = byRating.clone();
+        } else {
+            mergedIds = new long[movieIds.length + newMovies];
+            mergedPositions = new int[mergedIds.length][];
+            mergedByRating = new int[mergedIds.length][];
+            int a = 0;
+            int movie = 0;
+            for (long movieId : added.movieIds) {
+                int existing = movieIndex(movieId);
+                if (existing >= 0) {
+                    continue;
+                }
+                int insertAt = -existing - 1;
+                movie = copyMovies(a, insertAt, mergedIds, mergedPositions, mergedByRating, movie);
+                a = insertAt;
+                mergedIds[movie] = movieId;
+                mergedPositions[movie] = NO_REVIEWS;
+                mergedByRating[movie] = NO_REVIEWS;
+                movie++;
+            }
+            copyMovies(a, movieIds.length, mergedIds, mergedPositions, mergedByRating, movie);
+        }
+        for (int b = 0; b < added.movieIds.length; b++) {
+            int movie = Arrays.binarySearch(mergedIds, added.movieIds[b]);
+            int[] run = mergedPositions[movie];
+            int[] addedRun = added.positions[b];
+            int[] mergedRun = Arrays.copyOf(run, run.length + addedRun.length);
+            for (int i = 0; i < addedRun.length; i++) {
+                mergedRun[run.length + i] = addedRun[i] + size;
+            }
+            mergedPositions[movie] = mergedRun;
+            mergedByRating[movie] = mergeRatingOrders(mergedByRating[movie], added.byRating[b], mergedRun, newRatings);
+        }
+        return new ReviewColumns(mergedIds, mergedPositions, mergedByRating, total, newRatings, newText, newOffsets,
+            newWritten);
+    }
+
+    /**
+     * Copies the ids and runs of the movies in {@code [from, to)} to {@code target} onwards.
+     *
+     * @return the index past the copied movies
+     */
+    private int copyMovies(int from, int to, long[] targetIds, int[][] targetPositions, int[][] targetByRating,
+                           int target) {
+        System.arraycopy(movieIds, from, targetIds, target, to - from);
+        System.arraycopy(positions, from, targetPositions, target, to - from);
+        System.arraycopy(byRating, from, targetByRating, target, to - from);
+        return target + to - from;
+    }
+
+    /**
+     * Merges the rating order of one movie's existing reviews, the first {@code existing.length}
+     * of {@code run}, with that of its added reviews, which follow them. On equal ratings the
+     * existing review, which comes first in the source, goes first.
+     */
+    private static int[] mergeRatingOrders(int[] existing, int[] added, int[] run, double[] ratings) {
+        int split = existing.length;
+        int[] merged = new int[run.length];
+        int i = 0;
+        int j = 0;
+        for (int out = 0; out < merged.length; out++) {
+            int fromLeft = i < existing.length ? existing[i] : -1;
+            int fromRight = j < added.length ? added[j] + split : -1;
+            boolean takeLeft = fromRight < 0 || fromLeft >= 0
+                && ReviewSort.RATING.compare(ratings[run[fromLeft]], fromLeft, ratings[run[fromRight]], fromRight) <= 0;
+            if (takeLeft) {
+                merged[out] = fromLeft;
+                i++;
+            } else {
+                merged[out] = fromRight;
+                j++;
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * @return the number of reviews
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of movies with reviews
+     */
+    int movieCount() {
+        return movieIds.length;
+    }
+
+    long movieIdAt(int movie) {
+        return movieIds[movie];
+    }
+
+    /**
+     * @return the index of a movie, or a negative number if it has no reviews
+     */
+    int movieIndex(long movieId) {
+        return Arrays.binarySearch(movieIds, movieId);
+    }
+
+    /**
+     * @return the number of reviews of the movie
+     */
+    int count(int movie) {
+        return positions[movie].length;
+    }
+
+    /**
+     * @param index index among the movie's reviews in source order
+     */
+    double rating(int movie, int index) {
+        return ratings[positions[movie][index]];
+    }
+
+    /**
+     * @param rank rank among the movie's reviews in the natural direction of the sort
+     * @return the source order index of the review at that rank
+     */
+    int indexAt(int movie, ReviewSort sort, int rank) {
+        return sort == ReviewSort.RATING ? byRating[movie][rank] : rank;
+    }
+
+    /**
+     * @param inclusive whether the cursor's own review counts as being after it
+     * @return the first rank among the movie's reviews that sorts after the cursor in the
+     *         natural direction of its sort
+     */
+    int firstRankAfter(int movie, ReviewCursor cursor, boolean inclusive) {
+        int low = 0;
+        int high = count(movie);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int index = indexAt(movie, cursor.getSort(), mid);
+            int comparison = cursor.compareNatural(rating(movie, index), index);
+            if (comparison > 0 || inclusive && comparison == 0) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Decodes one of a movie's reviews.
+     *
+     * @param index index among the movie's reviews in source order
+     */
+    Review review(int movie, int index) {
+        int position = positions[movie][index];
+        int field = position * FIELDS;
+        return new Review(field(field), field(field + 1), ratings[position], field(field + 2));
+    }
+
+    private String field(int field) {
+        return new String(text, textOffsets[field], textOffsets[field + 1] - textOffsets[field], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the movie's reviews in source order, as a read-only list that decodes each
+     *         review on access; the same list for every call
+     */
+    List<Review> reviewsOf(long movieId) {
+        int movie = movieIndex(movieId);
+        if (movie < 0) {
+            return Collections.emptyList();
+        }
+        List<Review> list = lists[movie];
+        if (list == null) {
+            list = new ReviewList(movie);
+            lists[movie] = list;
+        }
+        return list;
+    }
+
+    /**
+     * Collects reviews in any movie order and builds the store. Each review is encoded as it
+     * is added, so no {@link Review} objects are retained.
+     */
+    static final class Builder {
+        private long[] movieIds = new long[64];
+        private double[] ratings = new double[64];
+        private int[] textOffsets = new int[64 * FIELDS + 1];
+        private byte[] text = new byte[1024];
+        private int size;
+        private boolean grouped = true;
+
+        void add(long movieId, Review review) {
+            if (size == movieIds.length) {
+                movieIds = Arrays.copyOf(movieIds, size * 2);
+                ratings = Arrays.copyOf(ratings, size * 2);
+                textOffsets = Arrays.copyOf(textOffsets, size * 2 * FIELDS + 1);
+            }
+            grouped &= size == 0 || movieIds[size - 1] <= movieId;
+            movieIds[size] = movieId;
+            ratings[size] = review.getRating();
+            int field = size * FIELDS;
+            field = append(field, review.getUserName());
+            field = append(field, review.getAvatarEmoji());
+            append(field, review.getComment());
+            size++;
+        }
+
+        private int append(int field, String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            int offset = textOffsets[field];
+            if (offset + bytes.length > text.length) {
+                text = Arrays.copyOf(text, Math.max(text.length * 2, offset + bytes.length));
+            }
+            System.arraycopy(bytes, 0, text, offset, bytes.length);
+            textOffsets[field + 1] = offset + bytes.length;
+            return field + 1;
+        }
+
+        ReviewColumns build() {
+            // a stable order of the reviews by movie; the reviews themselves stay where they were added
+            int[] order = grouped ? IntStream.range(0, size).toArray() : sortByMovie();
+            int movies = 0;
+            for (int i = 0; i < size; i++) {
+                movies += i == 0 || movieIds[order[i]] != movieIds[order[i - 1]] ? 1 : 0;
+            }
+            double[] builtRatings = Arrays.copyOf(ratings, size);
+            long[] distinctIds = new long[movies];
+            int[][] runs = new int[movies][];
+            int[][] byRating = new int[movies][];
+            for (int i = 0, movie = 0; i < size; movie++) {
+                int end = i + 1;
+                while (end < size && movieIds[order[end]] == movieIds[order[i]]) {
+                    end++;
+                }
+                distinctIds[movie] = movieIds[order[i]];
+                runs[movie] = Arrays.copyOfRange(order, i, end);
+                byRating[movie] = sortByRating(runs[movie], builtRatings);
+                i = end;
+            }
+            return new ReviewColumns(distinctIds, runs, byRating, size, builtRatings,
+                Arrays.copyOf(text, textOffsets[size * FIELDS]), Arrays.copyOf(textOffsets, size * FIELDS + 1),
+                new AtomicInteger(size));
+        }
+
+        private int[] sortByMovie() {
+            long[] ids = movieIds;
+            int[] order = IntStream.range(0, size).toArray();
+            IntSort.sort(order, (a, b) -> Long.compare(ids[a], ids[b]));
+            return order;
+        }
+    }
+
+    private final class ReviewList extends AbstractList<Review> implements RandomAccess {
+        private final int movie;
+
+        ReviewList(int movie) {
+            this.movie = movie;
+        }
+
+        @Override
+        public Review get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            return review(movie, index);
+        }
+
+        @Override
+        public int size() {
+            return count(movie);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor into a movie's reviews: the sort order and direction plus the
+ * rating and source index of the last review on a page. The next page starts at the first
+ * review ordered strictly after it.
+ */
+public final class ReviewCursor {
+    private static final String PREFIX = "r";
+
+    private final ReviewSort sort;
+    private final boolean descending;
+    private final double rating;
+    private final int index;
+
+    ReviewCursor(ReviewSort sort, boolean descending, double rating, int index) {
+        this.sort = sort;
+        this.descending = descending;
+        this.rating = rating;
+        this.index = index;
+    }
+
+    public ReviewSort getSort() {
+        return sort;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    /**
+     * Compares a review with the cursor position in the natural direction of the cursor's
+     * order, regardless of the cursor's own direction.
+     *
+     * @param reviewIndex position of the review among the movie's reviews in the review source
+     * @return a positive number if the review comes after the cursor
+     */
+    int compareNatural(double reviewRating, int reviewIndex) {
+        return sort.compare(reviewRating, reviewIndex, rating, index);
+    }
+
+    public String encode() {
+        String raw = PREFIX + ":" + sort.getParam() + ":" + (descending ? "desc" : "asc") + ":"
+            + Long.toHexString(Double.doubleToLongBits(rating)) + ":" + index;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static ReviewCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            if (parts.length != 5 || !PREFIX.equals(parts[0])) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            ReviewSort sort = ReviewSort.fromParam(parts[1]);
+            return new ReviewCursor(sort, sort.descendingFromParam(parts[2]),
+                Double.longBitsToDouble(Long.parseUnsignedLong(parts[3], 16)), Integer.parseInt(parts[4]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
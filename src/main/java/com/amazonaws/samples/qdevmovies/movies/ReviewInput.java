@@ -0,0 +1,34 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+/**
+ * JSON body of a new review. The user name and rating are required.
+ */
+public class ReviewInput {
+    static final String DEFAULT_AVATAR = "🏴‍☠️";
+
+    private String userName;
+    private String avatarEmoji;
+    private Double rating;
+    private String comment;
+
+    public String getUserName() { return userName; }
+    public void setUserName(String userName) { this.userName = userName; }
+    public String getAvatarEmoji() { return avatarEmoji; }
+    public void setAvatarEmoji(String avatarEmoji) { this.avatarEmoji = avatarEmoji; }
+    public Double getRating() { return rating; }
+    public void setRating(Double rating) { this.rating = rating; }
+    public String getComment() { return comment; }
+    public void setComment(String comment) { this.comment = comment; }
+
+    /**
+     * @throws IllegalArgumentException if a field is missing or out of range
+     */
+    public Review toReview() {
+        MovieInput.require(userName, "userName");
+        if (rating == null || rating < 0 || rating > 5) {
+            throw new IllegalArgumentException("rating must be between 0 and 5");
+        }
+        String avatar = avatarEmoji != null && !avatarEmoji.trim().isEmpty() ? avatarEmoji.trim() : DEFAULT_AVATAR;
+        return new Review(userName.trim(), avatar, rating, comment != null ? comment.trim() : "");
+    }
+}
@@ -0,0 +1,29 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.List;
+
+/**
+ * One page of a movie's reviews plus the cursor of the next one.
+ */
+public class ReviewPage {
+    private final List<Review> items;
+    private final int totalReviews;
+    private final ReviewSort sort;
+    private final String nextCursor;
+
+    public ReviewPage(List<Review> items, int totalReviews, ReviewSort sort, String nextCursor) {
+        this.items = items;
+        this.totalReviews = totalReviews;
+        this.sort = sort;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Review> getItems() { return items; }
+    public int getTotalReviews() { return totalReviews; }
+    public ReviewSort getSort() { return sort; }
+    public String getNextCursor() { return nextCursor; }
+
+    public boolean isHasMore() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,75 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+/**
+ * Paging parameters of a movie's reviews, bound from the {@code limit}, {@code offset},
+ * {@code cursor}, {@code sort} and {@code order} query parameters. A cursor takes precedence
+ * over an offset.
+ */
+public class ReviewPageRequest {
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    private Integer limit;
+    private Integer offset;
+    private String cursor;
+    private String sort;
+    private String order;
+
+    public ReviewPageRequest() {
+    }
+
+    public ReviewPageRequest(Integer limit, Integer offset, String cursor, String sort, String order) {
+        this.limit = limit;
+        this.offset = offset;
+        this.cursor = cursor;
+        this.sort = sort;
+        this.order = order;
+    }
+
+    public Integer getLimit() { return limit; }
+    public void setLimit(Integer limit) { this.limit = limit; }
+    public Integer getOffset() { return offset; }
+    public void setOffset(Integer offset) { this.offset = offset; }
+    public String getCursor() { return cursor; }
+    public void setCursor(String cursor) { this.cursor = cursor; }
+    public String getSort() { return sort; }
+    public void setSort(String sort) { this.sort = sort; }
+    public String getOrder() { return order; }
+    public void setOrder(String order) { this.order = order; }
+
+    /**
+     * @return the page size, clamped to [1, {@link #MAX_LIMIT}]
+     */
+    public int resolvedLimit() {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.max(1, Math.min(MAX_LIMIT, limit));
+    }
+
+    public int resolvedOffset() {
+        return offset == null || offset < 0 ? 0 : offset;
+    }
+
+    public boolean hasCursor() {
+        return cursor != null && !cursor.trim().isEmpty();
+    }
+
+    /**
+     * @return the decoded cursor, or null if there is none
+     * @throws IllegalArgumentException if the cursor is malformed or disagrees with an explicit sort or order
+     */
+    ReviewCursor resolvedCursor() {
+        if (!hasCursor()) {
+            return null;
+        }
+        ReviewCursor decoded = ReviewCursor.decode(cursor.trim());
+        if (sort != null && !sort.trim().isEmpty() && ReviewSort.fromParam(sort) != decoded.getSort()) {
+            throw new IllegalArgumentException("Cursor does not match sort '" + sort + "'");
+        }
+        if (order != null && !order.trim().isEmpty() && decoded.getSort().descendingFromParam(order) != decoded.isDescending()) {
+            throw new IllegalArgumentException("Cursor does not match order '" + order + "'");
+        }
+        return decoded;
+    }
+}
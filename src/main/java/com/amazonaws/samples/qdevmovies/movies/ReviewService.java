@@ -1,47 +1,236 @@
 package com.amazonaws.samples.qdevmovies.movies;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import reactor.core.publisher.Flux;
 
+import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
-import java.util.List;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Scanner;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
+/**
+ * Serves customer reviews from an in-memory store built from {@code mock-reviews.json}
+ * on the classpath, or from the file named by {@code movies.reviews.path} when it is
+ * set, or from the {@link CatalogStore} when the catalog is stored there. The reviews are
+ * held as {@link ReviewColumns}, next to their {@link ReviewAggregates} computed at load,
+ * in a {@link ReviewSnapshot} that {@link #reload()} replaces as a whole, so readers never
+ * see a partially built one. Reviews can be added only to a {@link CatalogStore}.
+ * <p>
+ * Once a {@link MovieService} attaches the reviews to its catalog, reviews are served
+ * from the snapshot published with the catalog instead: a reload takes effect when the
+ * movie service publishes it, together with the aggregates it attaches to the movies.
+ */
 @Service
 public class ReviewService {
     private static final Logger logger = LogManager.getLogger(ReviewService.class);
+    private static final String REVIEWS_RESOURCE = "mock-reviews.json";
+
+    private final AtomicReference<ReviewSnapshot> loaded = new AtomicReference<>(ReviewSnapshot.EMPTY);
+    private volatile Supplier<ReviewSnapshot> published = loaded::get;
+
+    private final Path path;
+    private final MovieMetrics metrics;
+    private final CatalogStore catalogStore;
+
+    public ReviewService() {
+        this((Path) null);
+    }
+
+    @Autowired
+    public ReviewService(@Value("${movies.reviews.path:}") String path, MovieMetrics metrics,
+                         ObjectProvider<CatalogStore> catalogStore) {
+        this(path.trim().isEmpty() ? null : Paths.get(path.trim()), metrics, catalogStore.getIfAvailable());
+    }
+
+    /**
+     * @param path reviews file, or null to read {@code mock-reviews.json} from the classpath
+     */
+    public ReviewService(Path path) {
+        this(path, MovieMetrics.NONE, null);
+    }
+
+    /**
+     * @param path reviews file, or null to read {@code mock-reviews.json} from the classpath
+     * @param metrics records review lookup latency
+     * @param catalogStore store to read and add reviews, or null to read {@code path}
+     */
+    public ReviewService(Path path, MovieMetrics metrics, CatalogStore catalogStore) {
+        this.path = path;
+        this.metrics = metrics;
+        this.catalogStore = catalogStore;
+        reload();
+    }
 
+    /**
+     * @return true if reviews can be added
+     */
+    public boolean isWritable() {
+        return catalogStore != null;
+    }
+
+    /**
+     * Adds a review to a movie and waits until it is durable. The review is visible to
+     * readers once this returns.
+     *
+     * @throws IllegalArgumentException if there is no such movie
+     * @throws IllegalStateException if reviews are read-only
+     * @throws CatalogStore.QueueFullException if the store's write queue is full
+     * @throws UncheckedIOException if the store cannot write the review
+     */
+    public Review addReview(long movieId, Review review) {
+        if (catalogStore == null) {
+            throw new IllegalStateException("Reviews are read-only");
+        }
+        return CatalogStore.await(catalogStore.addReview(movieId, review));
+    }
+
+    /**
+     * @return the movie's reviews in source order, as a read-only list that decodes each
+     *         review when it is read
+     */
     public List<Review> getReviewsForMovie(long movieId) {
-        List<Review> reviews = new ArrayList<>();
-        try {
-            InputStream inputStream = getClass().getClassLoader().getResourceAsStream("mock-reviews.json");
-            if (inputStream != null) {
-                Scanner scanner = new Scanner(inputStream, StandardCharsets.UTF_8.name());
-                String jsonContent = scanner.useDelimiter("\\A").next();
-                scanner.close();
-                
-                JSONObject reviewsData = new JSONObject(jsonContent);
-                if (reviewsData.has(String.valueOf(movieId))) {
-                    JSONArray movieReviews = reviewsData.getJSONArray(String.valueOf(movieId));
-                    for (int i = 0; i < movieReviews.length(); i++) {
-                        JSONObject reviewObj = movieReviews.getJSONObject(i);
-                        reviews.add(new Review(
-                            reviewObj.getString("userName"),
-                            reviewObj.getString("avatarEmoji"),
-                            reviewObj.getDouble("rating"),
-                            reviewObj.getString("comment")
-                        ));
-                    }
-                }
+        long start = metrics.start();
+        List<Review> reviews = published.get().columns.reviewsOf(movieId);
+        metrics.recordReviewLookup(start);
+        return reviews;
+    }
+
+    /**
+     * Returns one page of a movie's reviews. Pages seek straight to their first review, by
+     * offset or by binary search for the cursor, and decode only the reviews they return.
+     *
+     * @throws IllegalArgumentException if the sort, order or cursor is invalid
+     */
+    public ReviewPage getReviewsPage(long movieId, ReviewPageRequest request) {
+        long start = metrics.start();
+        ReviewCursor cursor = request.resolvedCursor();
+        ReviewSort sort = cursor != null ? cursor.getSort() : ReviewSort.fromParam(request.getSort());
+        boolean descending = cursor != null ? cursor.isDescending() : sort.descendingFromParam(request.getOrder());
+        boolean reversed = descending != sort.isDescending();
+        int limit = request.resolvedLimit();
+
+        ReviewColumns columns = published.get().columns;
+        int movie = columns.movieIndex(movieId);
+        if (movie < 0) {
+            metrics.recordReviewLookup(start);
+            return new ReviewPage(Collections.emptyList(), 0, sort, null);
+        }
+        int total = columns.count(movie);
+        int from;
+        if (cursor != null) {
+            // in reverse, the reviews after the cursor are those before it in the natural direction
+            int boundary = columns.firstRankAfter(movie, cursor, reversed);
+            from = reversed ? total - boundary : boundary;
+        } else {
+            from = Math.min(request.resolvedOffset(), total);
+        }
+        int to = Math.min(total, from + limit);
+
+        List<Review> items = new ArrayList<>(to - from);
+        int lastIndex = -1;
+        for (int i = from; i < to; i++) {
+            lastIndex = columns.indexAt(movie, sort, reversed ? total - 1 - i : i);
+            items.add(columns.review(movie, lastIndex));
+        }
+        String nextCursor = to < total
+            ? new ReviewCursor(sort, descending, columns.rating(movie, lastIndex), lastIndex).encode()
+            : null;
+        metrics.recordReviewLookup(start);
+        return new ReviewPage(items, total, sort, nextCursor);
+    }
+
+    /**
+     * @return the precomputed aggregates of the movie's reviews
+     */
+    public ReviewSummary getReviewSummary(long movieId) {
+        return published.get().aggregates.summary(movieId);
+    }
+
+    /**
+     * @return the aggregates of every movie in the current store
+     */
+    public ReviewAggregates getAggregates() {
+        return published.get().aggregates;
+    }
+
+    /**
+     * @return the reviews as last loaded, which readers see once they are published
+     */
+    ReviewSnapshot loaded() {
+        return loaded.get();
+    }
+
+    /**
+     * Serves reviews from the snapshots published by {@code catalog} from now on.
+     */
+    void publishWith(Supplier<ReviewSnapshot> catalog) {
+        this.published = catalog;
+    }
+
+    /**
+     * Folds a batch of reviews just committed to the {@link CatalogStore} into the loaded
+     * reviews, updating the aggregates of only the movies in the batch.
+     */
+    void addCommitted(ReviewColumns added) {
+        loaded.set(loaded.get().appended(catalogStore.reviews(), added));
+    }
+
+    /**
+     * @return the movie's reviews from the store current at subscription
+     */
+    public Flux<Review> streamReviewsForMovie(long movieId) {
+        return Flux.defer(() -> Flux.fromIterable(getReviewsForMovie(movieId)));
+    }
+
+    /**
+     * Re-reads the review source and atomically replaces the loaded reviews.
+     * If the source cannot be read the previous ones are kept.
+     *
+     * @return true if new reviews were loaded
+     */
+    public boolean reload() {
+        if (catalogStore != null) {
+            ReviewColumns reviews = catalogStore.reviews();
+            loaded.set(ReviewSnapshot.of(reviews));
+            logger.debug("Loaded reviews for {} movies from the catalog store", reviews.movieCount());
+            return true;
+        }
+        try (InputStream inputStream = open()) {
+            if (inputStream == null) {
+                logger.warn("Review resource {} not found on the classpath", REVIEWS_RESOURCE);
+                return false;
             }
+            ReviewColumns reviews = loadReviews(inputStream);
+            loaded.set(ReviewSnapshot.of(reviews));
+            logger.info("Loaded reviews for {} movies", reviews.movieCount());
+            return true;
         } catch (Exception e) {
-            logger.error("Failed to load reviews for movie {}: {}", movieId, e.getMessage());
+            logger.error("Failed to load reviews: {}", e.getMessage());
+            return false;
         }
-        return reviews;
+    }
+
+    private InputStream open() throws IOException {
+        return path != null
+            ? Files.newInputStream(path)
+            : getClass().getClassLoader().getResourceAsStream(REVIEWS_RESOURCE);
+    }
+
+    static ReviewColumns loadReviews(InputStream inputStream) {
+        ReviewColumns.Builder reviews = new ReviewColumns.Builder();
+        StreamingCatalogReader.readReviews(inputStream, reviews::add);
+        return reviews.build();
     }
 }
@@ -0,0 +1,52 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One version of the reviews together with their aggregates. {@link MovieService} publishes
+ * it as part of its {@link CatalogSnapshot}, and {@link ReviewService} serves review pages
+ * from that same snapshot, so a reader never sees a movie's new reviews next to its old
+ * review count, or the other way round.
+ * <p>
+ * A snapshot made by {@link #appended} remembers the version it was appended to and the
+ * reviews that were added, so a catalog snapshot holding that version can update only the
+ * movies those reviews belong to.
+ */
+final class ReviewSnapshot {
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    static final ReviewSnapshot EMPTY = new ReviewSnapshot(ReviewColumns.EMPTY, ReviewAggregates.NONE, -1,
+        ReviewColumns.EMPTY);
+
+    final ReviewColumns columns;
+    final ReviewAggregates aggregates;
+    /** unique among the snapshots of this process */
+    final long version;
+    /** the version these reviews were appended to, or -1 if they were loaded as a whole */
+    final long baseVersion;
+    /** the reviews added to the base version */
+    final ReviewColumns added;
+
+    private ReviewSnapshot(ReviewColumns columns, ReviewAggregates aggregates, long baseVersion, ReviewColumns added) {
+        this.columns = columns;
+        this.aggregates = aggregates;
+        this.version = VERSIONS.incrementAndGet();
+        this.baseVersion = baseVersion;
+        this.added = added;
+    }
+
+    static ReviewSnapshot of(ReviewColumns columns) {
+        return new ReviewSnapshot(columns, ReviewAggregates.of(columns), -1, ReviewColumns.EMPTY);
+    }
+
+    /**
+     * @param columns these reviews followed by {@code added}, as returned by
+     *        {@link ReviewColumns#appended}
+     * @param added the reviews added since this snapshot
+     * @return the snapshot of {@code columns}, with the aggregates of only the movies in
+     *         {@code added} updated
+     */
+    ReviewSnapshot appended(ReviewColumns columns, ReviewColumns added) {
+        return new ReviewSnapshot(columns, aggregates.appended(added), version, added);
+    }
+}
@@ -0,0 +1,80 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+/**
+ * Orders a movie's reviews can be paged in. Both are total: reviews with equal ratings
+ * keep the order of the review source. Like {@link MovieSort}, each order has a natural
+ * direction, and the opposite direction traverses it backwards.
+ */
+public enum ReviewSort {
+    SOURCE("source", false),
+    RATING("rating", true);
+
+    private final String param;
+    private final boolean descending;
+
+    ReviewSort(String param, boolean descending) {
+        this.param = param;
+        this.descending = descending;
+    }
+
+    public String getParam() {
+        return param;
+    }
+
+    /**
+     * @return true if the natural direction of this order is descending by rating
+     */
+    public boolean isDescending() {
+        return descending;
+    }
+
+    /**
+     * Compares two reviews of one movie in the natural direction.
+     *
+     * @param indexA position of the first review in the review source
+     * @param indexB position of the second review in the review source
+     */
+    int compare(double ratingA, int indexA, double ratingB, int indexB) {
+        if (this == RATING) {
+            int byRating = Double.compare(ratingB, ratingA);
+            if (byRating != 0) {
+                return byRating;
+            }
+        }
+        return Integer.compare(indexA, indexB);
+    }
+
+    /**
+     * @param value request parameter value, case-insensitive; null or blank means {@link #SOURCE}
+     * @throws IllegalArgumentException if the value names no known order
+     */
+    public static ReviewSort fromParam(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return SOURCE;
+        }
+        for (ReviewSort sort : values()) {
+            if (sort.param.equalsIgnoreCase(value.trim())) {
+                return sort;
+            }
+        }
+        throw new IllegalArgumentException("Unknown review sort '" + value + "'");
+    }
+
+    /**
+     * @param value {@code asc} or {@code desc}, case-insensitive; null or blank means the natural direction
+     * @return true for a descending traversal
+     * @throws IllegalArgumentException if the value is neither
+     */
+    public boolean descendingFromParam(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return descending;
+        }
+        if ("asc".equalsIgnoreCase(value.trim())) {
+            return false;
+        }
+        if ("desc".equalsIgnoreCase(value.trim())) {
+            return true;
+        }
+        throw new IllegalArgumentException("Unknown order '" + value + "'");
+    }
+}
@@ -0,0 +1,43 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+/**
+ * Aggregates of a movie's reviews: how many there are, their mean rating, the Bayesian
+ * audience score and the rating histogram. {@link #NONE} stands for a movie without reviews
+ * in a catalog loaded without them.
+ */
+public class ReviewSummary {
+    static final ReviewSummary NONE = new ReviewSummary(0, 0.0, 0.0, new int[ReviewAggregates.HISTOGRAM_BUCKETS]);
+
+    private final int count;
+    private final double averageRating;
+    private final double audienceScore;
+    private final int[] histogram;
+
+    /**
+     * @param histogram review counts per rating, in 0.5 steps from 0 to 5; not copied
+     */
+    public ReviewSummary(int count, double averageRating, double audienceScore, int[] histogram) {
+        this.count = count;
+        this.averageRating = averageRating;
+        this.audienceScore = audienceScore;
+        this.histogram = histogram;
+    }
+
+    public int getCount() { return count; }
+
+    /**
+     * @return the mean review rating, 0 if there are no reviews
+     */
+    public double getAverageRating() { return averageRating; }
+
+    /**
+     * @return the mean rating shrunk towards the mean of all reviews, so movies with few
+     *         reviews do not outrank well-reviewed ones; see {@link ReviewAggregates}
+     */
+    public double getAudienceScore() { return audienceScore; }
+
+    /**
+     * @return review counts per rating bucket, {@code histogram[i]} counting ratings of {@code i / 2.0}
+     */
+    public int[] getHistogram() { return histogram.clone(); }
+}
@@ -0,0 +1,82 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.Objects;
+
+/**
+ * Normalized search criteria: text terms are trimmed and lower-cased, and blank terms or
+ * non-positive ids are folded to null. Requests that differ only in case or whitespace
+ * therefore share one key. Empty range filters are folded to null as well.
+ */
+public final class SearchKey {
+    private final String name;
+    private final Long id;
+    private final String genre;
+    private final MovieRanges ranges;
+
+    private SearchKey(String name, Long id, String genre, MovieRanges ranges) {
+        this.name = name;
+        this.id = id;
+        this.genre = genre;
+        this.ranges = ranges;
+    }
+
+    public static SearchKey of(String name, Long id, String genre) {
+        return of(name, id, genre, null);
+    }
+
+    public static SearchKey of(String name, Long id, String genre, MovieRanges ranges) {
+        return new SearchKey(normalize(name), id != null && id > 0 ? id : null, normalize(genre),
+            ranges != null && !ranges.isEmpty() ? ranges : null);
+    }
+
+    private static String normalize(String term) {
+        return term != null && !term.trim().isEmpty() ? term.trim().toLowerCase() : null;
+    }
+
+    public String getName() { return name; }
+    public Long getId() { return id; }
+    public String getGenre() { return genre; }
+    public MovieRanges getRanges() { return ranges; }
+
+    /**
+     * @return true if no criterion is set, i.e. the key matches the whole catalog
+     */
+    public boolean isEmpty() {
+        return name == null && id == null && genre == null && ranges == null;
+    }
+
+    /**
+     * @return true if range filters are the only criteria
+     */
+    boolean isRangeOnly() {
+        return name == null && id == null && genre == null && ranges != null;
+    }
+
+    long weight() {
+        return 48 + (name != null ? name.length() * 2L : 0) + (genre != null ? genre.length() * 2L : 0)
+            + (ranges != null ? ranges.weight() : 0);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SearchKey)) {
+            return false;
+        }
+        SearchKey other = (SearchKey) o;
+        return Objects.equals(name, other.name) && Objects.equals(id, other.id) && Objects.equals(genre, other.genre)
+            && Objects.equals(ranges, other.ranges);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, id, genre, ranges);
+    }
+
+    @Override
+    public String toString() {
+        return "SearchKey{name=" + name + ", id=" + id + ", genre=" + genre + ", ranges=" + ranges + "}";
+    }
+}
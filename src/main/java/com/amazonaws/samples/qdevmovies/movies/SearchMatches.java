@@ -0,0 +1,89 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Cached outcome of one normalized search: the matching catalog positions, plus the
+ * matches' sort ranks per {@link MovieSort}, computed the first time a page in that
+ * order is requested. Instances are shared between threads and never modified after
+ * publication, apart from filling in the rank memo.
+ */
+final class SearchMatches {
+    private final SearchKey key;
+    private final int[] positions;
+    private final AtomicReferenceArray<int[]> sortedRanks = new AtomicReferenceArray<>(MovieSort.values().length);
+
+    SearchMatches(SearchKey key, int[] positions) {
+        this.key = key;
+        this.positions = positions;
+    }
+
+    /**
+     * @return the same matches with the rank memo of {@code sort} left to be computed again,
+     *         for a snapshot whose order by that field differs
+     */
+    SearchMatches withoutRanks(MovieSort sort) {
+        SearchMatches matches = new SearchMatches(key, positions);
+        for (int i = 0; i < sortedRanks.length(); i++) {
+            if (i != sort.ordinal()) {
+                matches.sortedRanks.set(i, sortedRanks.get(i));
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * @return ascending catalog positions; must not be modified
+     */
+    int[] positions() {
+        return positions;
+    }
+
+    /**
+     * @return the matches' ranks in the given order, ascending; must not be modified
+     */
+    int[] sortedRanks(MovieSort sort, MovieOrder order) {
+        int[] ranks = sortedRanks.get(sort.ordinal());
+        if (ranks == null) {
+            MovieRanges ranges = key.getRanges();
+            ranks = key.isRangeOnly() && ranges.restricts(sort) ? rangeRanks(sort, order, ranges) : rankAndSort(order);
+            sortedRanks.compareAndSet(sort.ordinal(), null, ranks);
+        }
+        return ranks;
+    }
+
+    private int[] rankAndSort(MovieOrder order) {
+        int[] ranks = new int[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            ranks[i] = order.rankOf(positions[i]);
+        }
+        Arrays.sort(ranks);
+        return ranks;
+    }
+
+    /**
+     * Every match lies in the run of ranks the order holds for the sorted field's range,
+     * so walking that run yields the matches already in rank order.
+     */
+    private int[] rangeRanks(MovieSort sort, MovieOrder order, MovieRanges ranges) {
+        int first = order.firstRankInRange(ranges.min(sort), ranges.max(sort));
+        int end = order.endRankOfRange(ranges.min(sort), ranges.max(sort));
+        MovieColumns columns = order.columns();
+        int[] ranks = new int[positions.length];
+        int n = 0;
+        for (int rank = first; rank < end && n < ranks.length; rank++) {
+            if (ranges.accepts(columns, order.positionAt(rank), sort)) {
+                ranks[n++] = rank;
+            }
+        }
+        return ranks;
+    }
+
+    /**
+     * Upper bound on the retained size, counting every rank memo as filled.
+     */
+    long weight() {
+        return 64 + key.weight() + (long) positions.length * Integer.BYTES * (1 + MovieSort.values().length);
+    }
+}
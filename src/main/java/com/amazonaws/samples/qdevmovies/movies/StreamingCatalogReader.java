@@ -0,0 +1,133 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Reads movie and review catalogs from an {@link InputStream} one element at a time.
+ * <p>
+ * The tokener pulls characters from a buffered reader and only the movie or review
+ * currently being parsed is held as a {@link JSONObject}, so peak memory no longer
+ * depends on the size of the document.
+ */
+public final class StreamingCatalogReader {
+
+    /**
+     * Receives reviews as they are read, tagged with the id of the movie they belong to.
+     */
+    @FunctionalInterface
+    public interface ReviewSink {
+        void accept(long movieId, Review review);
+    }
+
+    private StreamingCatalogReader() {
+    }
+
+    /**
+     * Reads the array layout of {@code movies.json}: {@code [ {movie}, {movie}, ... ]}.
+     *
+     * @return the number of movies read
+     * @throws JSONException if the input is not a well-formed movie array
+     */
+    public static int readMovies(InputStream inputStream, Consumer<Movie> sink) {
+        JSONTokener tokener = new JSONTokener(inputStream);
+        return readArray(tokener, movieObj -> sink.accept(toMovie(movieObj)));
+    }
+
+    /**
+     * Reads the id-keyed object layout of {@code mock-reviews.json}:
+     * {@code { "1": [ {review}, ... ], "2": [ ... ] }}.
+     *
+     * @return the number of reviews read
+     * @throws JSONException if the input is not a well-formed review object
+     */
+    public static int readReviews(InputStream inputStream, ReviewSink sink) {
+        JSONTokener tokener = new JSONTokener(inputStream);
+        expect(tokener, '{');
+        int count = 0;
+        char c = tokener.nextClean();
+        if (c == '}') {
+            return count;
+        }
+        while (true) {
+            if (c != '"') {
+                throw tokener.syntaxError("Expected a movie id key");
+            }
+            long movieId = parseMovieId(tokener, tokener.nextString('"'));
+            expect(tokener, ':');
+            count += readArray(tokener, reviewObj -> sink.accept(movieId, toReview(reviewObj)));
+            c = tokener.nextClean();
+            if (c == '}') {
+                return count;
+            }
+            if (c != ',') {
+                throw tokener.syntaxError("Expected ',' or '}'");
+            }
+            c = tokener.nextClean();
+        }
+    }
+
+    static Movie toMovie(JSONObject movieObj) {
+        return new Movie(
+            movieObj.getLong("id"),
+            movieObj.getString("movieName"),
+            movieObj.getString("director"),
+            movieObj.getInt("year"),
+            movieObj.getString("genre"),
+            movieObj.getString("description"),
+            movieObj.getInt("duration"),
+            movieObj.getDouble("imdbRating")
+        );
+    }
+
+    static Review toReview(JSONObject reviewObj) {
+        return new Review(
+            reviewObj.getString("userName"),
+            reviewObj.getString("avatarEmoji"),
+            reviewObj.getDouble("rating"),
+            reviewObj.getString("comment")
+        );
+    }
+
+    private static int readArray(JSONTokener tokener, Consumer<JSONObject> elementSink) {
+        expect(tokener, '[');
+        int count = 0;
+        if (tokener.nextClean() == ']') {
+            return count;
+        }
+        tokener.back();
+        while (true) {
+            Object value = tokener.nextValue();
+            if (!(value instanceof JSONObject)) {
+                throw tokener.syntaxError("Expected an object element");
+            }
+            elementSink.accept((JSONObject) value);
+            count++;
+            char c = tokener.nextClean();
+            if (c == ']') {
+                return count;
+            }
+            if (c != ',') {
+                throw tokener.syntaxError("Expected ',' or ']'");
+            }
+        }
+    }
+
+    private static void expect(JSONTokener tokener, char expected) {
+        if (tokener.nextClean() != expected) {
+            throw tokener.syntaxError("Expected '" + expected + "'");
+        }
+    }
+
+    private static long parseMovieId(JSONTokener tokener, String key) {
+        try {
+            return Long.parseLong(key);
+        } catch (NumberFormatException e) {
+            throw tokener.syntaxError("Invalid movie id key '" + key + "'");
+        }
+    }
+}
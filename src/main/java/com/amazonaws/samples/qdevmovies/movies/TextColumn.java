@@ -0,0 +1,63 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A column of strings stored as UTF-8, one after another, with the offset of each. The
+ * bytes are either in a heap array or in a buffer of a memory-mapped catalog file, in
+ * which case they stay in the page cache; either way a string is decoded only when it is
+ * read.
+ */
+final class TextColumn {
+    private final ByteBuffer bytes;
+    /** string {@code i} is at {@code [offsets[i], offsets[i + 1])} of {@code bytes} */
+    private final IntBuffer offsets;
+
+    private TextColumn(ByteBuffer bytes, IntBuffer offsets) {
+        this.bytes = bytes;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Encodes one field of every movie onto the heap.
+     */
+    static TextColumn of(List<Movie> movies, Function<Movie, String> field) {
+        int size = movies.size();
+        int[] offsets = new int[size + 1];
+        byte[][] values = new byte[size][];
+        for (int i = 0; i < size; i++) {
+            values[i] = field.apply(movies.get(i)).getBytes(StandardCharsets.UTF_8);
+            offsets[i + 1] = offsets[i] + values[i].length;
+        }
+        byte[] bytes = new byte[offsets[size]];
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(values[i], 0, bytes, offsets[i], values[i].length);
+        }
+        return new TextColumn(ByteBuffer.wrap(bytes), IntBuffer.wrap(offsets));
+    }
+
+    /**
+     * @param bytes the strings' bytes, from its position to its limit
+     * @param offsets the start of each string within {@code bytes}, and the end of the last
+     */
+    static TextColumn mapped(ByteBuffer bytes, IntBuffer offsets) {
+        return new TextColumn(bytes.slice(), offsets.slice());
+    }
+
+    String get(int index) {
+        int start = offsets.get(index);
+        int length = offsets.get(index + 1) - start;
+        if (bytes.hasArray()) {
+            return new String(bytes.array(), bytes.arrayOffset() + start, length, StandardCharsets.UTF_8);
+        }
+        byte[] value = new byte[length];
+        ByteBuffer view = bytes.duplicate();
+        view.position(start);
+        view.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,53 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Times template rendering into {@link MovieMetrics}. Spring MVC calls
+ * {@link #postHandle} after the controller returns and before the view renders, and
+ * {@link #afterCompletion} once it has, so the interval between them is the render alone.
+ * Responses without a view, such as the JSON API, are not timed.
+ */
+@Component
+public class ViewRenderMetrics implements HandlerInterceptor, WebMvcConfigurer {
+    private static final String START = ViewRenderMetrics.class.getName() + ".start";
+    private static final String VIEW = ViewRenderMetrics.class.getName() + ".view";
+
+    private final MovieMetrics metrics;
+
+    public ViewRenderMetrics(MovieMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (metrics.isEnabled()) {
+            registry.addInterceptor(this);
+        }
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        if (modelAndView != null && modelAndView.getViewName() != null) {
+            request.setAttribute(VIEW, modelAndView.getViewName());
+            request.setAttribute(START, metrics.start());
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Object view = request.getAttribute(VIEW);
+        if (view != null) {
+            metrics.recordRender((String) view, (Long) request.getAttribute(START));
+        }
+    }
+}
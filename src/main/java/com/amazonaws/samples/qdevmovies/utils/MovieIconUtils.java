@@ -1,22 +1,47 @@
 package com.amazonaws.samples.qdevmovies.utils;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
 public class MovieIconUtils {
-    
+
+    /** icon of a title the table does not list */
+    public static final String DEFAULT_ICON = "🎬";
+
+    private static final Map<String, String> ICONS = builtInIcons();
+
+    /**
+     * Looks up a title, ignoring case, in the small table built into this class. Movies in
+     * the catalog already carry their icon from the {@code movie-icons.json} mapping; this
+     * is the fallback for movies built elsewhere, and for when that mapping cannot be read.
+     */
     public static String getMovieIcon(String movieName) {
-        switch (movieName.toLowerCase()) {
-            case "the prison escape": return "🔒";
-            case "the family boss": return "👔";
-            case "the masked hero": return "🦇";
-            case "urban stories": return "🌆";
-            case "life journey": return "🏃";
-            case "dream heist": return "💭";
-            case "the virtual world": return "🕶️";
-            case "the wise guys": return "🤵";
-            case "the quest for the ring": return "💍";
-            case "space wars: the beginning": return "🚀";
-            case "the factory owner": return "🏭";
-            case "underground club": return "👊";
-            default: return "🎬";
-        }
+        String icon = movieName != null ? ICONS.get(movieName) : null;
+        return icon != null ? icon : DEFAULT_ICON;
+    }
+
+    /**
+     * @return the built-in table, read-only, with titles matching case-insensitively
+     */
+    public static Map<String, String> getBuiltInIcons() {
+        return ICONS;
+    }
+
+    private static Map<String, String> builtInIcons() {
+        Map<String, String> icons = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        icons.put("The Prison Escape", "🔒");
+        icons.put("The Family Boss", "👔");
+        icons.put("The Masked Hero", "🦇");
+        icons.put("Urban Stories", "🌆");
+        icons.put("Life Journey", "🏃");
+        icons.put("Dream Heist", "💭");
+        icons.put("The Virtual World", "🕶️");
+        icons.put("The Wise Guys", "🤵");
+        icons.put("The Quest for the Ring", "💍");
+        icons.put("Space Wars: The Beginning", "🚀");
+        icons.put("The Factory Owner", "🏭");
+        icons.put("Underground Club", "👊");
+        return Collections.unmodifiableMap(icons);
     }
 }
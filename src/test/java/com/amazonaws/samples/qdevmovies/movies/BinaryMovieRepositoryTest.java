@@ -0,0 +1,80 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryMovieRepositoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private List<Movie> jsonMovies;
+    private Path catalogFile;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        jsonMovies = new JsonMovieRepository().findAll();
+        catalogFile = tempDir.resolve("movies.bin");
+        try (OutputStream out = Files.newOutputStream(catalogFile)) {
+            MovieCatalogConverter.write(jsonMovies, out);
+        }
+    }
+
+    @Test
+    public void testRoundTripMatchesJsonCatalog() {
+        List<Movie> binaryMovies = new BinaryMovieRepository(catalogFile).findAll();
+        assertEquals(jsonMovies.size(), binaryMovies.size());
+        for (int i = 0; i < jsonMovies.size(); i++) {
+            Movie expected = jsonMovies.get(i);
+            Movie actual = binaryMovies.get(i);
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getMovieName(), actual.getMovieName());
+            assertEquals(expected.getDirector(), actual.getDirector());
+            assertEquals(expected.getYear(), actual.getYear());
+            assertEquals(expected.getGenre(), actual.getGenre());
+            assertEquals(expected.getDescription(), actual.getDescription());
+            assertEquals(expected.getDuration(), actual.getDuration());
+            assertEquals(expected.getImdbRating(), actual.getImdbRating());
+        }
+    }
+
+    @Test
+    public void testMovieServiceOverBinaryCatalog() {
+        MovieService movieService = new MovieService(new BinaryMovieRepository(catalogFile), new MovieService.Options());
+        assertEquals(12, movieService.getAllMovies().size());
+        assertEquals("The Prison Escape", movieService.getMovieById(1L).get().getMovieName());
+        assertEquals(1, movieService.searchMovies("Family", null, "Crime").size());
+    }
+
+    @Test
+    public void testColumnsReadNamesAndDescriptionsFromTheMapping() {
+        MovieColumns mapped = new MovieColumns(new BinaryMovieRepository(catalogFile).findAll());
+        MovieColumns onHeap = new MovieColumns(jsonMovies);
+        for (int i = 0; i < jsonMovies.size(); i++) {
+            assertEquals(jsonMovies.get(i).getMovieName(), mapped.name(i));
+            assertEquals(onHeap.name(i), mapped.name(i));
+            assertEquals(jsonMovies.get(i).getDescription(), mapped.movie(i).getDescription());
+            assertEquals(onHeap.movie(i).getDescription(), mapped.movie(i).getDescription());
+        }
+    }
+
+    @Test
+    public void testMissingFileYieldsEmptyCatalog() {
+        assertTrue(new BinaryMovieRepository(tempDir.resolve("missing.bin")).findAll().isEmpty());
+    }
+
+    @Test
+    public void testRejectsForeignFile() throws Exception {
+        Path bogus = tempDir.resolve("bogus.bin");
+        Files.write(bogus, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12});
+        assertTrue(new BinaryMovieRepository(bogus).findAll().isEmpty());
+    }
+}
@@ -0,0 +1,95 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoundedCacheTest {
+
+    @Test
+    public void testHitAndMissCounters() {
+        BoundedCache<String, String> cache = new BoundedCache<>(100, String::length);
+        assertNull(cache.get("a"));
+        cache.put("a", "alpha");
+        assertEquals("alpha", cache.get("a"));
+
+        BoundedCache.Stats stats = cache.stats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getEntries());
+        assertEquals(5, stats.getWeight());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedByWeight() {
+        BoundedCache<String, String> cache = new BoundedCache<>(10, String::length);
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        cache.get("a");
+        cache.put("c", "cccc");
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(1, cache.stats().getEvictions());
+        assertEquals(8, cache.stats().getWeight());
+    }
+
+    @Test
+    public void testForEachVisitsEntriesInEvictionOrderWithoutUsingThem() {
+        BoundedCache<String, String> cache = new BoundedCache<>(100, String::length);
+        cache.put("a", "alpha");
+        cache.put("b", "beta");
+        cache.get("a");
+
+        StringBuilder visited = new StringBuilder();
+        cache.forEach((key, value) -> visited.append(key).append('=').append(value).append(' '));
+
+        assertEquals("b=beta a=alpha ", visited.toString());
+        assertEquals(1, cache.stats().getHits());
+    }
+
+    @Test
+    public void testOversizedEntryIsNotStored() {
+        BoundedCache<String, String> cache = new BoundedCache<>(3, String::length);
+        cache.put("a", "toolong");
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.stats().getWeight());
+    }
+
+    @Test
+    public void testInvalidateAll() {
+        BoundedCache<String, String> cache = new BoundedCache<>(10, String::length);
+        cache.put("a", "aaaa");
+        cache.invalidateAll();
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.stats().getEntries());
+    }
+
+    @Test
+    public void testLfuEvictsLeastFrequentlyUsed() {
+        BoundedCache<String, String> cache =
+            new BoundedCache<>(10, String::length, BoundedCache.EvictionPolicy.LFU, 1);
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        cache.get("b");
+        cache.get("b");
+        cache.get("a");
+        cache.put("c", "cccc");
+
+        assertNull(cache.get("a"));
+        assertNotNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+    }
+
+    @Test
+    public void testSegmentsShareTheWeightBudget() {
+        BoundedCache<Integer, String> cache =
+            new BoundedCache<>(40, String::length, BoundedCache.EvictionPolicy.LRU, 4);
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, "xxxx");
+        }
+        assertTrue(cache.stats().getWeight() <= 40);
+        assertTrue(cache.stats().getEvictions() >= 90);
+    }
+}
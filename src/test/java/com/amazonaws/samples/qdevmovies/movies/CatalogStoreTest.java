@@ -0,0 +1,342 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private final List<CatalogStore> opened = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() {
+        opened.forEach(CatalogStore::close);
+    }
+
+    private CatalogStore open(long compactBytes) {
+        CatalogStore store = new CatalogStore(dir, compactBytes, CatalogStore.DEFAULT_MAX_BATCH,
+            CatalogStore.DEFAULT_QUEUE_CAPACITY, MovieMetrics.NONE);
+        opened.add(store);
+        return store;
+    }
+
+    private CatalogStore reopen(CatalogStore store, long compactBytes) {
+        store.close();
+        return open(compactBytes);
+    }
+
+    private static Movie movie(long id, String name) {
+        return new Movie(id, name, "Director", 2020, "Drama", "About " + name, 100, 4.0);
+    }
+
+    @Test
+    public void testSeedsFromTheClasspath() {
+        CatalogStore store = open(CatalogStore.DEFAULT_COMPACT_BYTES);
+        List<Movie> seeded = new JsonMovieRepository().findAll();
+        assertEquals(seeded.size(), store.findAll().size());
+        assertEquals(seeded.get(0).getMovieName(), store.findAll().get(0).getMovieName());
+        assertEquals(new ReviewService().getReviewsForMovie(1L).size(), store.reviews().reviewsOf(1L).size());
+        assertTrue(Files.exists(dir.resolve(CatalogStore.SNAPSHOT_FILE)));
+    }
+
+    @Test
+    public void testWritesSurviveARestartThroughTheLog() throws Exception {
+        CatalogStore store = open(CatalogStore.DEFAULT_COMPACT_BYTES);
+        int seeded = store.findAll().size();
+        Movie created = store.putMovie(movie(0, "Brand New")).get(5, TimeUnit.SECONDS);
+        assertEquals(seeded + 1, created.getId());
+        store.putMovie(movie(1, "Renamed")).get(5, TimeUnit.SECONDS);
+        store.addReview(created.getId(), new Review("Ann", "x", 4.5, "Grand")).get(5, TimeUnit.SECONDS);
+        assertTrue(Files.size(dir.resolve(CatalogStore.LOG_FILE)) > 0);
+
+        store = reopen(store, CatalogStore.DEFAULT_COMPACT_BYTES);
+        assertEquals(seeded + 1, store.findAll().size());
+        assertEquals("Renamed", store.findAll().get(0).getMovieName());
+        assertEquals("Brand New", store.findAll().get(seeded).getMovieName());
+        assertEquals("Ann", store.reviews().reviewsOf(created.getId()).get(0).getUserName());
+        assertEquals(seeded + 2, store.putMovie(movie(0, "Next")).get(5, TimeUnit.SECONDS).getId());
+    }
+
+    @Test
+    public void testTornTailIsTruncatedOnRecovery() throws Exception {
+        CatalogStore store = open(CatalogStore.DEFAULT_COMPACT_BYTES);
+        Movie kept = store.putMovie(movie(0, "Kept")).get(5, TimeUnit.SECONDS);
+        store.close();
+        Path log = dir.resolve(CatalogStore.LOG_FILE);
+        long intact = Files.size(log);
+        // a frame header promising more bytes than were written before the crash
+        Files.write(log, new byte[] {0, 0, 0, 100, 1, 2, 3, 4, 5, 6}, StandardOpenOption.APPEND);
+
+        store = open(CatalogStore.DEFAULT_COMPACT_BYTES);
+        assertEquals(intact, Files.size(log));
+        assertEquals("Kept", store.findAll().get(store.findAll().size() - 1).getMovieName());
+        Movie next = store.putMovie(movie(0, "After")).get(5, TimeUnit.SECONDS);
+        assertEquals(kept.getId() + 1, next.getId());
+
+        store = reopen(store, CatalogStore.DEFAULT_COMPACT_BYTES);
+        assertEquals("After", store.findAll().get(store.findAll().size() - 1).getMovieName());
+    }
+
+    @Test
+    public void testCorruptEntryEndsReplay() throws Exception {
+        CatalogStore store = open(CatalogStore.DEFAULT_COMPACT_BYTES);
+        int seeded = store.findAll().size();
+        store.putMovie(movie(0, "First")).get(5, TimeUnit.SECONDS);
+        long firstEnd = Files.size(dir.resolve(CatalogStore.LOG_FILE));
+        store.putMovie(movie(0, "Second")).get(5, TimeUnit.SECONDS);
+        store.close();
+        Path log = dir.resolve(CatalogStore.LOG_FILE);
+        byte[] bytes = Files.readAllBytes(log);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(log, bytes);
+
+        store = open(CatalogStore.DEFAULT_COMPACT_BYTES);
+        assertEquals(seeded + 1, store.findAll().size());
+        assertEquals(firstEnd, Files.size(log));
+    }
+
+    @Test
+    public void testLogIsCompactedIntoTheSnapshot() throws Exception {
+        CatalogStore store = open(1);
+        int seeded = store.findAll().size();
+        for (int i = 0; i < 5; i++) {
+            store.putMovie(movie(0, "Movie " + i)).get(5, TimeUnit.SECONDS);
+        }
+        // compaction runs on the writer after the writes complete; closing waits for it
+        store.close();
+        assertEquals(0, Files.size(dir.resolve(CatalogStore.LOG_FILE)));
+
+        store = open(CatalogStore.DEFAULT_COMPACT_BYTES);
+        assertEquals(seeded + 5, store.findAll().size());
+        assertEquals("Movie 4", store.findAll().get(seeded + 4).getMovieName());
+    }
+
+    @Test
+    public void testRecoveryAfterACrashDuringCompaction() throws Exception {
+        CatalogStore store = open(CatalogStore.DEFAULT_COMPACT_BYTES);
+        int seededReviews = store.reviews().reviewsOf(1L).size();
+        for (int i = 0; i < 3; i++) {
+            store.addReview(1L, new Review("before" + i, "x", 4.0, "c")).get(5, TimeUnit.SECONDS);
+        }
+        store.close();
+        Path log = dir.resolve(CatalogStore.LOG_FILE);
+        byte[] logBeforeCompaction = Files.readAllBytes(log);
+
+        store = open(1);
+        Movie created = store.putMovie(movie(0, "Compacted")).get(5, TimeUnit.SECONDS);
+        store.close();
+        assertEquals(0, Files.size(log));
+
+        // the crash came after the snapshot was renamed into place but before the log was emptied,
+        // and left a half-written snapshot from an interrupted later compaction
+        Files.write(log, logBeforeCompaction);
+        Files.write(dir.resolve(CatalogStore.SNAPSHOT_FILE + ".tmp"), new byte[] {1, 2, 3});
+
+        store = open(CatalogStore.DEFAULT_COMPACT_BYTES);
+        assertEquals(seededReviews + 3, store.reviews().reviewsOf(1L).size());
+        assertEquals("Compacted", store.findAll().get(store.findAll().size() - 1).getMovieName());
+        assertEquals(created.getId() + 1, store.putMovie(movie(0, "After")).get(5, TimeUnit.SECONDS).getId());
+    }
+
+    @Test
+    public void testQueuedWritesAreCommittedTogether() throws Exception {
+        CatalogStore store = open(CatalogStore.DEFAULT_COMPACT_BYTES);
+        CountDownLatch committing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        store.addCommitListener(commit -> {
+            committing.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        CompletableFuture<Movie> first = store.putMovie(movie(0, "First"));
+        assertTrue(committing.await(5, TimeUnit.SECONDS));
+        List<CompletableFuture<Review>> queued = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            queued.add(store.addReview(1L, new Review("user" + i, "x", 3.0, "c")));
+        }
+        release.countDown();
+        for (CompletableFuture<Review> write : queued) {
+            write.get(5, TimeUnit.SECONDS);
+        }
+        first.get(5, TimeUnit.SECONDS);
+        assertEquals(2, store.commits());
+    }
+
+    @Test
+    public void testFullQueueRejectsWritesAndRecordsMetrics() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CatalogStore store = new CatalogStore(dir, CatalogStore.DEFAULT_COMPACT_BYTES, CatalogStore.DEFAULT_MAX_BATCH, 2,
+            new MovieMetrics(registry));
+        opened.add(store);
+        CountDownLatch committing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        store.addCommitListener(commit -> {
+            committing.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        CompletableFuture<Review> first = store.addReview(1L, new Review("first", "x", 3.0, "c"));
+        assertTrue(committing.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Review> second = store.addReview(1L, new Review("second", "x", 3.0, "c"));
+        CompletableFuture<Review> third = store.addReview(1L, new Review("third", "x", 3.0, "c"));
+        assertEquals(2, store.queueDepth());
+        assertEquals(2.0, registry.get("movies.store.queue.depth").gauge().value());
+
+        CatalogStore.QueueFullException rejected = assertThrows(CatalogStore.QueueFullException.class,
+            () -> CatalogStore.await(store.addReview(1L, new Review("fourth", "x", 3.0, "c"))));
+        assertTrue(rejected.getRetryAfterSeconds() >= 1);
+        assertEquals(1.0, registry.get("movies.store.rejected").counter().count());
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        third.get(5, TimeUnit.SECONDS);
+        assertEquals(0, store.queueDepth());
+        assertEquals(2, registry.get("movies.store.commit").timer().count());
+        assertEquals(3.0, registry.get("movies.store.batch.size").summary().totalAmount());
+        List<Review> reviews = store.reviews().reviewsOf(1L);
+        assertEquals("third", reviews.get(reviews.size() - 1).getUserName());
+    }
+
+    @Test
+    public void testReviewOfUnknownMovieIsRejected() {
+        CatalogStore store = open(CatalogStore.DEFAULT_COMPACT_BYTES);
+        assertThrows(IllegalArgumentException.class,
+            () -> CatalogStore.await(store.addReview(999_999L, new Review("Ann", "x", 3.0, "c"))));
+    }
+
+    @Test
+    public void testServicesSeeCommittedWrites() {
+        CatalogStore store = open(CatalogStore.DEFAULT_COMPACT_BYTES);
+        ReviewService reviewService = new ReviewService(null, MovieMetrics.NONE, store);
+        MovieService movieService = new MovieService(store, new MovieService.Options().reviewService(reviewService));
+        new CatalogStoreSync(store, movieService, reviewService, new StaticListableBeanFactory()
+            .getBeanProvider(ResponseCacheFilter.class));
+
+        assertEquals(0, movieService.searchMovies("Brand New", null, null).size());
+        Movie saved = movieService.saveMovie(movie(0, "Brand New"));
+        assertEquals(1, movieService.searchMovies("Brand New", null, null).size());
+        assertTrue(movieService.getMovieById(saved.getId()).isPresent());
+
+        int before = reviewService.getReviewsForMovie(saved.getId()).size();
+        reviewService.addReview(saved.getId(), new Review("Ann", "x", 5.0, "Grand"));
+        assertEquals(before + 1, reviewService.getReviewsForMovie(saved.getId()).size());
+        assertEquals(1, movieService.getMovieById(saved.getId()).get().getAudience().getCount());
+
+        // aggregates updated commit by commit match those of all the reviews
+        for (int i = 0; i < 5; i++) {
+            reviewService.addReview(1L, new Review("user" + i, "x", i, "c"));
+        }
+        ReviewAggregates rebuilt = ReviewAggregates.of(store.reviews());
+        assertEquals(rebuilt.globalMean(), reviewService.getAggregates().globalMean(), 1e-9);
+        ReviewSummary summary = movieService.getMovieById(1L).get().getAudience();
+        assertEquals(reviewService.getReviewsForMovie(1L).size(), summary.getCount());
+        assertEquals(rebuilt.summary(1L).getAudienceScore(), summary.getAudienceScore(), 1e-9);
+    }
+
+    @Test
+    public void testReviewCommitsKeepCachedSearchesAndMatchARebuild() {
+        CatalogStore store = open(CatalogStore.DEFAULT_COMPACT_BYTES);
+        ReviewService reviewService = new ReviewService(null, MovieMetrics.NONE, store);
+        MovieService movieService = new MovieService(store, new MovieService.Options().reviewService(reviewService));
+        new CatalogStoreSync(store, movieService, reviewService, new StaticListableBeanFactory()
+            .getBeanProvider(ResponseCacheFilter.class));
+        MovieRanges liked = new MovieRanges(null, null, null, null, null, null, 3.0, null);
+        MoviePageRequest byAudience = new MoviePageRequest(100, null, null, "audience");
+        MoviePageRequest byRating = new MoviePageRequest(100, null, null, "rating");
+        movieService.searchPage(null, null, "drama", byAudience);
+        movieService.searchPage(null, null, null, liked, byRating);
+        assertEquals(2, movieService.getSearchCacheStats().getEntries());
+
+        for (int i = 0; i < 6; i++) {
+            reviewService.addReview(1 + i % 3, new Review("user" + i, "x", 5.0 - i, "c"));
+        }
+        // only the search that filters by audience score depends on the new reviews
+        assertEquals(1, movieService.getSearchCacheStats().getEntries());
+
+        ReviewService reloaded = new ReviewService(null, MovieMetrics.NONE, store);
+        MovieService rebuilt = new MovieService(store, new MovieService.Options().reviewService(reloaded));
+        assertEquals(ids(rebuilt.searchPage(null, null, "drama", byAudience)),
+            ids(movieService.searchPage(null, null, "drama", byAudience)));
+        assertEquals(ids(rebuilt.searchPage(null, null, null, liked, byRating)),
+            ids(movieService.searchPage(null, null, null, liked, byRating)));
+        for (Movie movie : rebuilt.getAllMovies()) {
+            ReviewSummary audience = movieService.getMovieById(movie.getId()).get().getAudience();
+            assertEquals(movie.getAudience().getCount(), audience.getCount());
+            assertEquals(movie.getAudience().getAudienceScore(), audience.getAudienceScore(), 1e-9);
+        }
+    }
+
+    private static List<Long> ids(MoviePage page) {
+        List<Long> ids = new ArrayList<>();
+        for (Movie movie : page.getItems()) {
+            ids.add(movie.getId());
+        }
+        return ids;
+    }
+
+    @Test
+    public void testWriteDuringARenderIsReadBackThroughTheResponseCache() throws Exception {
+        CatalogStore store = open(CatalogStore.DEFAULT_COMPACT_BYTES);
+        ReviewService reviewService = new ReviewService(null, MovieMetrics.NONE, store);
+        MovieService movieService = new MovieService(store, new MovieService.Options().reviewService(reviewService));
+        ResponseCacheFilter responseCache = new ResponseCacheFilter(1024 * 1024, 60, "store");
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("responseCache", responseCache);
+        new CatalogStoreSync(store, movieService, reviewService, beans.getBeanProvider(ResponseCacheFilter.class));
+
+        boolean[] writeDuringRender = {true};
+        FilterChain render = (request, response) -> {
+            String page = String.valueOf(movieService.getAllMovies().size());
+            if (writeDuringRender[0]) {
+                // another client's write is acknowledged while this page is still rendering
+                writeDuringRender[0] = false;
+                movieService.saveMovie(movie(0, "Brand New"));
+            }
+            response.getOutputStream().write(page.getBytes(StandardCharsets.UTF_8));
+        };
+        int before = movieService.getAllMovies().size();
+        assertEquals(String.valueOf(before), get(responseCache, render));
+        assertEquals(String.valueOf(before + 1), get(responseCache, render));
+    }
+
+    private static String get(ResponseCacheFilter responseCache, FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        responseCache.doFilter(new MockHttpServletRequest("GET", "/movies"), response, chain);
+        return response.getContentAsString();
+    }
+
+    @Test
+    public void testWritesAfterCloseFail() {
+        CatalogStore store = open(CatalogStore.DEFAULT_COMPACT_BYTES);
+        store.close();
+        assertThrows(IllegalStateException.class, () -> CatalogStore.await(store.putMovie(movie(0, "Late"))));
+    }
+}
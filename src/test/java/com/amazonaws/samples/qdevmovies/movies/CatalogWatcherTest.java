@@ -0,0 +1,97 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogWatcherTest {
+
+    @TempDir
+    Path dir;
+
+    private CatalogWatcher watcher;
+
+    @AfterEach
+    public void tearDown() {
+        if (watcher != null) {
+            watcher.stop();
+        }
+    }
+
+    @Test
+    public void testReloadsCatalogReplacedByRename() throws Exception {
+        Path catalog = dir.resolve("movies.json");
+        MovieServiceTest.writeCatalog(catalog, "First Voyage");
+        Path reviews = dir.resolve("reviews.json");
+        writeReviews(reviews, "Ann");
+        MovieService movieService = new MovieService(new JsonMovieRepository(catalog), new MovieService.Options());
+        ReviewService reviewService = new ReviewService(reviews);
+
+        watcher = newWatcher(movieService, reviewService, catalog, reviews);
+        watcher.start();
+        assertTrue(watcher.isRunning());
+
+        Path staged = dir.resolve("movies.json.tmp");
+        MovieServiceTest.writeCatalog(staged, "Second Voyage");
+        Files.move(staged, catalog, StandardCopyOption.ATOMIC_MOVE);
+        writeReviews(reviews, "Bob");
+
+        awaitTrue(() -> "Second Voyage".equals(movieService.getAllMovies().get(0).getMovieName()));
+        awaitTrue(() -> "Bob".equals(reviewService.getReviewsForMovie(1L).get(0).getUserName()));
+
+        watcher.stop();
+        assertFalse(watcher.isRunning());
+    }
+
+    @Test
+    public void testReloadChangedOnlyTouchesWatchedFiles() throws Exception {
+        Path catalog = dir.resolve("movies.json");
+        MovieServiceTest.writeCatalog(catalog, "First Voyage");
+        MovieService movieService = new MovieService(new JsonMovieRepository(catalog), new MovieService.Options());
+        watcher = newWatcher(movieService, new ReviewService(), catalog, null);
+
+        MovieServiceTest.writeCatalog(catalog, "Second Voyage");
+        watcher.reloadChanged(Collections.singleton(dir.resolve("other.json")));
+        assertEquals("First Voyage", movieService.getAllMovies().get(0).getMovieName());
+
+        watcher.reloadChanged(Collections.singleton(catalog.toAbsolutePath().normalize()));
+        assertEquals("Second Voyage", movieService.getAllMovies().get(0).getMovieName());
+    }
+
+    @Test
+    public void testDoesNotStartWithoutExternalFiles() {
+        watcher = newWatcher(new MovieService(), new ReviewService(), null, null);
+        watcher.start();
+        assertFalse(watcher.isRunning());
+    }
+
+    private static CatalogWatcher newWatcher(MovieService movieService, ReviewService reviewService,
+                                             Path catalog, Path reviews) {
+        return new CatalogWatcher(movieService, reviewService,
+            new StaticListableBeanFactory().getBeanProvider(ResponseCacheFilter.class),
+            catalog != null ? catalog.toString() : "", reviews != null ? reviews.toString() : "", 50);
+    }
+
+    private static void writeReviews(Path file, String userName) throws Exception {
+        String json = "{\"1\": [{\"userName\": \"" + userName + "\", \"avatarEmoji\": \"x\", \"rating\": 4.0, \"comment\": \"ok\"}]}";
+        Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out waiting for reload");
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MovieColumnsTest {
+
+    private List<Movie> movies;
+    private MovieColumns columns;
+
+    @BeforeEach
+    public void setUp() {
+        movies = new JsonMovieRepository().findAll();
+        columns = new MovieColumns(movies);
+    }
+
+    @Test
+    public void testMaterializedMoviesMatchSource() {
+        List<Movie> view = columns.asList();
+        assertEquals(movies.size(), view.size());
+        for (int i = 0; i < movies.size(); i++) {
+            Movie expected = movies.get(i);
+            Movie actual = view.get(i);
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getMovieName(), actual.getMovieName());
+            assertEquals(expected.getDirector(), actual.getDirector());
+            assertEquals(expected.getYear(), actual.getYear());
+            assertEquals(expected.getGenre(), actual.getGenre());
+            assertEquals(expected.getDescription(), actual.getDescription());
+            assertEquals(expected.getDuration(), actual.getDuration());
+            assertEquals(expected.getImdbRating(), actual.getImdbRating());
+        }
+    }
+
+    @Test
+    public void testNonAsciiNamesRoundTrip() {
+        MovieColumns unicode = new MovieColumns(Arrays.asList(
+            new Movie(1L, "Amélie", "D", 2001, "Comedy", "", 122, 4.5),
+            new Movie(2L, "千と千尋の神隠し", "D", 2001, "Animation", "", 125, 5.0)));
+        assertEquals("Amélie", unicode.name(0));
+        assertEquals("千と千尋の神隠し", unicode.name(1));
+    }
+
+    @Test
+    public void testRangeSelectionsAgreeWithScan() {
+        assertArrayEquals(scan(m -> m.getYear() >= 1990 && m.getYear() <= 2005), columns.selectYears(1990, 2005, null));
+        assertArrayEquals(scan(m -> m.getDuration() >= 140 && m.getDuration() <= 160),
+            columns.selectDurations(140, 160, null));
+        assertArrayEquals(scan(m -> m.getImdbRating() >= 4.5), columns.selectRatings(4.5, Double.MAX_VALUE, null));
+        assertEquals(0, columns.selectYears(3000, 4000, null).length);
+    }
+
+    @Test
+    public void testSelectionsChain() {
+        int[] recent = columns.selectYears(2000, Integer.MAX_VALUE, null);
+        int[] recentAndLong = columns.selectDurations(150, Integer.MAX_VALUE, recent);
+        assertArrayEquals(scan(m -> m.getYear() >= 2000 && m.getDuration() >= 150), recentAndLong);
+    }
+
+    @Test
+    public void testDictionaryCodes() {
+        int drama = columns.genreCode("Drama");
+        assertTrue(drama >= 0);
+        assertEquals(-1, columns.genreCode("drama"));
+        boolean[] accepted = new boolean[columns.genres.length];
+        accepted[drama] = true;
+        assertArrayEquals(scan(m -> m.getGenre().equals("Drama")), columns.selectGenres(accepted, null));
+
+        int director = columns.directorCode(movies.get(0).getDirector());
+        accepted = new boolean[columns.directors.length];
+        accepted[director] = true;
+        assertArrayEquals(scan(m -> m.getDirector().equals(movies.get(0).getDirector())),
+            columns.selectDirectors(accepted, null));
+    }
+
+    private int[] scan(Predicate<Movie> predicate) {
+        return IntStream.range(0, movies.size()).filter(i -> predicate.test(movies.get(i))).toArray();
+    }
+}
@@ -0,0 +1,77 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import com.amazonaws.samples.qdevmovies.utils.MovieIconUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MovieIconsTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testBuiltInIconsMatchTitlesIgnoringCase() {
+        assertEquals("🔒", MovieIcons.DEFAULT.iconFor("The Prison Escape"));
+        assertEquals("🔒", MovieIcons.DEFAULT.iconFor("THE PRISON ESCAPE"));
+        assertEquals("🚀", MovieIconUtils.getMovieIcon("space wars: the beginning"));
+        assertEquals("🎬", MovieIcons.DEFAULT.iconFor("Unknown Voyage"));
+        assertEquals("🎬", MovieIcons.DEFAULT.iconFor(null));
+    }
+
+    @Test
+    public void testUnreadableClasspathMappingFallsBackToTheBuiltInTable() {
+        for (String resource : new String[] {"no-such-icons.json", "log4j2.xml"}) {
+            MovieIcons icons = MovieIcons.fromResource(resource);
+            assertEquals(MovieIconUtils.getBuiltInIcons().size(), icons.size());
+            assertEquals("🔒", icons.iconFor("the prison escape"));
+            assertEquals(MovieIconUtils.DEFAULT_ICON, icons.iconFor("Unknown Voyage"));
+        }
+    }
+
+    @Test
+    public void testBuiltInTableMatchesTheClasspathMapping() {
+        assertEquals(MovieIcons.DEFAULT.size(), MovieIconUtils.getBuiltInIcons().size());
+        MovieIconUtils.getBuiltInIcons().forEach((title, icon) -> assertEquals(icon, MovieIcons.DEFAULT.iconFor(title)));
+    }
+
+    @Test
+    public void testMappingFileReplacesTheBuiltInIcons() throws Exception {
+        Path file = dir.resolve("icons.json");
+        Files.write(file, "{\"default\": \"🏴‍☠️\", \"icons\": {\"Salt and Sails\": \"⛵\"}}".getBytes(StandardCharsets.UTF_8));
+        MovieIcons icons = new MovieIcons(file.toString());
+        assertEquals(1, icons.size());
+        assertEquals("⛵", icons.iconFor("salt and sails"));
+        assertEquals("🏴‍☠️", icons.iconFor("The Prison Escape"));
+    }
+
+    @Test
+    public void testUnreadableMappingFallsBackToTheBuiltInIcons() throws Exception {
+        Path file = dir.resolve("broken.json");
+        Files.write(file, "{\"icons\": ".getBytes(StandardCharsets.UTF_8));
+        assertEquals(MovieIcons.DEFAULT.size(), new MovieIcons(file.toString()).size());
+        assertEquals(MovieIcons.DEFAULT.size(), new MovieIcons(dir.resolve("missing.json").toString()).size());
+        assertSame(MovieIcons.DEFAULT.iconFor("Dream Heist"), new MovieIcons(" ").iconFor("Dream Heist"));
+    }
+
+    @Test
+    public void testCatalogMoviesCarryTheirIcons() {
+        MovieIcons icons = new MovieIcons(Collections.singletonMap("The Prison Escape", "⚓"), "🎞️");
+        for (CatalogLayout layout : CatalogLayout.values()) {
+            MovieService service = new MovieService(new JsonMovieRepository(), new MovieService.Options()
+                .layout(layout)
+                .reviewService(new ReviewService())
+                .icons(icons));
+            assertEquals("⚓", service.getMovieById(1L).get().getIcon());
+            assertEquals("🎞️", service.getMovieById(2L).get().getIcon());
+        }
+        Movie loose = new Movie(99L, "Dream Heist", "d", 2010, "Sci-Fi", "", 100, 4.0);
+        assertEquals("💭", loose.getIcon());
+    }
+}
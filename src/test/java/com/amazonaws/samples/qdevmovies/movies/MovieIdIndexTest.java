@@ -0,0 +1,59 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MovieIdIndexTest {
+
+    @Test
+    public void testContiguousIdsAreDense() {
+        MovieIdIndex index = MovieIdIndex.of(new MovieService().getAllMovies());
+        assertTrue(index.isDense());
+        assertEquals(0, index.positionOf(1L));
+        assertEquals(11, index.positionOf(12L));
+        assertEquals(MovieIdIndex.NOT_FOUND, index.positionOf(0L));
+        assertEquals(MovieIdIndex.NOT_FOUND, index.positionOf(13L));
+        assertEquals(MovieIdIndex.NOT_FOUND, index.positionOf(Long.MIN_VALUE));
+    }
+
+    @Test
+    public void testSparseIdsUseTable() {
+        List<Movie> movies = new ArrayList<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 5000; i++) {
+            movies.add(movie(random.nextLong()));
+        }
+        movies.add(movie(0L));
+        movies.add(movie(Long.MAX_VALUE));
+        MovieIdIndex index = MovieIdIndex.of(movies);
+
+        assertFalse(index.isDense());
+        for (int i = 0; i < movies.size(); i++) {
+            assertEquals(i, index.positionOf(movies.get(i).getId()));
+        }
+        assertEquals(MovieIdIndex.NOT_FOUND, index.positionOf(42L));
+    }
+
+    @Test
+    public void testLastDuplicateWins() {
+        MovieIdIndex index = MovieIdIndex.of(Arrays.asList(movie(5L), movie(9L), movie(5L)));
+        assertEquals(2, index.positionOf(5L));
+        assertEquals(1, index.positionOf(9L));
+    }
+
+    @Test
+    public void testEmptyCatalog() {
+        assertEquals(MovieIdIndex.NOT_FOUND, MovieIdIndex.of(Collections.emptyList()).positionOf(1L));
+    }
+
+    private static Movie movie(long id) {
+        return new Movie(id, "M" + id, "D", 2000, "Drama", "", 100, 3.0);
+    }
+}
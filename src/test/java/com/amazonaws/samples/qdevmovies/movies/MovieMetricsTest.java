@@ -0,0 +1,82 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MovieMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private MovieService movieService;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        MovieMetrics metrics = new MovieMetrics(registry);
+        movieService = new MovieService(new JsonMovieRepository(), new MovieService.Options().metrics(metrics));
+    }
+
+    @Test
+    public void testSearchesAreTimedByCriteria() {
+        movieService.searchMovies("the", null, null);
+        movieService.searchPage("the", null, "drama", new MoviePageRequest());
+        movieService.searchPage(null, null, null, new MovieRanges(1990, null, null, null, null, null), new MoviePageRequest());
+        movieService.searchPage("the", null, "drama", new MoviePageRequest());
+
+        assertEquals(1, registry.get("movies.search").tag("criteria", "name").timer().count());
+        assertEquals(2, registry.get("movies.search").tag("criteria", "name+genre").timer().count());
+        assertEquals(1, registry.get("movies.search").tag("criteria", "range").timer().count());
+        assertEquals(4, registry.get("movies.search.results").summary().count());
+    }
+
+    @Test
+    public void testEmptySearchesAreCounted() {
+        movieService.searchMovies("no such movie anywhere", null, null);
+        movieService.searchMovies("the", null, null);
+
+        assertEquals(1.0, registry.get("movies.search.empty").counter().count());
+    }
+
+    @Test
+    public void testLookupsAreTimed() {
+        movieService.getMovieById(1L);
+        movieService.getMovieById(999L);
+        new ReviewService((java.nio.file.Path) null, new MovieMetrics(registry), null).getReviewsForMovie(1L);
+
+        assertEquals(2, registry.get("movies.lookup").timer().count());
+        assertEquals(1, registry.get("movies.reviews.lookup").timer().count());
+    }
+
+    @Test
+    public void testCatalogGauges() {
+        assertEquals(movieService.getAllMovies().size(), registry.get("movies.catalog.size").gauge().value());
+        assertTrue(registry.get("movies.catalog.index.bytes").gauge().value() > 0);
+    }
+
+    @Test
+    public void testInvalidRequestsAreCountedByReason() {
+        MovieMetrics metrics = new MovieMetrics(registry);
+        metrics.recordInvalidRequest(MovieMetrics.REASON_NO_CRITERIA);
+        metrics.recordInvalidRequest(MovieMetrics.REASON_NO_CRITERIA);
+        metrics.recordInvalidRequest(MovieMetrics.REASON_INVALID_PARAMETER);
+
+        assertEquals(2.0, registry.get("movies.requests.invalid").tag("reason", "no-criteria").counter().count());
+        assertEquals(1.0, registry.get("movies.requests.invalid").tag("reason", "invalid-parameter").counter().count());
+    }
+
+    @Test
+    public void testNoneRecordsNothing() {
+        assertFalse(MovieMetrics.NONE.isEnabled());
+        assertEquals(0L, MovieMetrics.NONE.start());
+        MovieMetrics.NONE.recordSearch(SearchKey.of("the", null, null), 0L, 0);
+        MovieMetrics.NONE.recordInvalidRequest(MovieMetrics.REASON_NO_CRITERIA);
+    }
+
+    @Test
+    public void testCriteriaTag() {
+        assertEquals("none", MovieMetrics.criteriaTag(0));
+        assertEquals("name+id+genre+range", MovieMetrics.criteriaTag(15));
+    }
+}
@@ -0,0 +1,88 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MovieQueryTest {
+
+    private List<Movie> movies;
+    private List<Movie> repositoryMovies;
+    private MovieService movieService;
+
+    @BeforeEach
+    public void setUp() {
+        List<Movie> templates = new JsonMovieRepository().findAll();
+        movies = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Movie template = templates.get(i % templates.size());
+            movies.add(new Movie(i + 1L, template.getMovieName() + " " + i, template.getDirector(),
+                template.getYear() + i % 7, template.getGenre(), template.getDescription(),
+                template.getDuration() + i % 13, template.getImdbRating()));
+        }
+        repositoryMovies = movies;
+        movieService = new MovieService(() -> repositoryMovies, new MovieService.Options()
+            .searchCache(BoundedCache.EvictionPolicy.LRU, 0)
+            .reviewService(new ReviewService()));
+    }
+
+    @Test
+    public void testCompiledQueryMatchesBruteForce() {
+        MovieRanges ranges = new MovieRanges(1990, 2005, null, 150, 4.0, null);
+        List<SearchKey> keys = new ArrayList<>();
+        for (String[] terms : new String[][] {{"e", null}, {null, "a"}, {"the", "drama"}, {"escape 1", null},
+                {"zz", null}, {"DARK", "Action"}}) {
+            keys.add(SearchKey.of(terms[0], null, terms[1]));
+            keys.add(SearchKey.of(terms[0], null, terms[1], ranges));
+            keys.add(SearchKey.of(terms[0], 5L, terms[1]));
+        }
+        keys.add(SearchKey.of(null, null, null, ranges));
+        MovieRanges audience = new MovieRanges(null, null, null, null, null, null, 4.0, 4.8);
+        keys.add(SearchKey.of(null, null, null, audience));
+        keys.add(SearchKey.of("the", null, null, audience));
+        keys.add(SearchKey.of(null, null, null, new MovieRanges(1990, null, null, null, null, null, 4.5, null)));
+        keys.add(SearchKey.of(null, 9999L, "drama"));
+
+        for (SearchKey key : keys) {
+            List<Long> expected = movieService.getAllMovies().stream().filter(movie -> matches(movie, key)).map(Movie::getId)
+                .collect(Collectors.toList());
+            MovieQuery query = movieService.compile(key);
+            assertEquals(expected, ids(query.movies()), key.toString());
+            assertEquals(expected.size(), query.count(), key.toString());
+        }
+    }
+
+    @Test
+    public void testQueryKeepsItsSnapshot() {
+        MovieQuery query = movieService.compile(SearchKey.of("the", null, null));
+        List<Long> before = ids(query.movies());
+        repositoryMovies = movies.subList(0, 10);
+        assertTrue(movieService.reload());
+        assertEquals(10, movieService.getAllMovies().size());
+        assertEquals(before, ids(query.movies()));
+    }
+
+    private static boolean matches(Movie movie, SearchKey key) {
+        MovieRanges ranges = key.getRanges() != null ? key.getRanges() : MovieRanges.NONE;
+        return (key.getId() == null || key.getId().equals(movie.getId()))
+            && (key.getName() == null || movie.getMovieName().toLowerCase().contains(key.getName()))
+            && (key.getGenre() == null || movie.getGenre().toLowerCase().contains(key.getGenre()))
+            && (ranges.getMinYear() == null || movie.getYear() >= ranges.getMinYear())
+            && (ranges.getMaxYear() == null || movie.getYear() <= ranges.getMaxYear())
+            && (ranges.getMinDuration() == null || movie.getDuration() >= ranges.getMinDuration())
+            && (ranges.getMaxDuration() == null || movie.getDuration() <= ranges.getMaxDuration())
+            && (ranges.getMinRating() == null || movie.getImdbRating() >= ranges.getMinRating())
+            && (ranges.getMaxRating() == null || movie.getImdbRating() <= ranges.getMaxRating())
+            && (ranges.getMinAudienceScore() == null || movie.getAudience().getAudienceScore() >= ranges.getMinAudienceScore())
+            && (ranges.getMaxAudienceScore() == null || movie.getAudience().getAudienceScore() <= ranges.getMaxAudienceScore());
+    }
+
+    private static List<Long> ids(List<Movie> movies) {
+        return movies.stream().map(Movie::getId).collect(Collectors.toList());
+    }
+}
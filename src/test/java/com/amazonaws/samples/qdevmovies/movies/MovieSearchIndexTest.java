@@ -0,0 +1,65 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MovieSearchIndexTest {
+
+    private List<Movie> movies;
+    private MovieSearchIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        movies = Arrays.asList(
+            new Movie(1L, "The Prison Escape", "A", 1994, "Drama", "", 142, 5.0),
+            new Movie(2L, "The Family Boss", "B", 1972, "Crime/Drama", "", 175, 5.0),
+            new Movie(3L, "Dream Heist", "C", 2010, "Action/Sci-Fi", "", 148, 4.5),
+            new Movie(4L, "The Dreamers", "D", 2003, "Drama/Romance", "", 115, 4.0),
+            new Movie(5L, "Aaaa", "E", 2001, "drama", "", 90, 3.0)
+        );
+        index = new MovieSearchIndex(movies);
+    }
+
+    @Test
+    public void testMatchesAgreeWithScan() {
+        String[] terms = {"the", "dream", "drama", "e", "ea", "aaa", "aaaa", "aaaaa", "crime/drama",
+            "sci-fi", "ison esc", "boss", "x", "zzz", "/", "a/s", "heist"};
+        for (String term : terms) {
+            assertArrayEquals(scan(Movie::getMovieName, term), index.matchName(term), "name: " + term);
+            assertArrayEquals(scan(Movie::getGenre, term), index.matchGenre(term), "genre: " + term);
+        }
+    }
+
+    @Test
+    public void testGenreMatchesAcrossDistinctValuesInCatalogOrder() {
+        assertArrayEquals(new int[] {0, 1, 3, 4}, index.matchGenre("drama"));
+    }
+
+    @Test
+    public void testNoMatch() {
+        assertEquals(0, index.matchName("nonexistent").length);
+    }
+
+    @Test
+    public void testIntersect() {
+        assertArrayEquals(new int[] {2, 5}, MovieSearchIndex.intersect(new int[] {1, 2, 5, 9}, new int[] {2, 3, 5}));
+        assertArrayEquals(new int[0], MovieSearchIndex.intersect(new int[] {1}, new int[0]));
+    }
+
+    private int[] scan(Function<Movie, String> field, String term) {
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < movies.size(); i++) {
+            if (field.apply(movies.get(i)).toLowerCase().contains(term)) {
+                positions.add(i);
+            }
+        }
+        return positions.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
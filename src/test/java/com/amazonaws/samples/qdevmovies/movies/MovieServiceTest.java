@@ -2,9 +2,24 @@ package com.amazonaws.samples.qdevmovies.movies;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-
+import org.junit.jupiter.api.io.TempDir;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -50,6 +65,17 @@ public class MovieServiceTest {
         assertFalse(movie.isPresent());
     }
 
+    @Test
+    public void testGetMoviesByIds() {
+        List<Movie> movies = movieService.getMoviesByIds(new long[] {5L, 999L, 1L, -1L, 5L});
+        assertEquals(5, movies.size());
+        assertEquals(5L, movies.get(0).getId());
+        assertNull(movies.get(1));
+        assertEquals(1L, movies.get(2).getId());
+        assertNull(movies.get(3));
+        assertSame(movies.get(0), movies.get(4));
+    }
+
     @Test
     public void testGetMovieById_NegativeId() {
         Optional<Movie> movie = movieService.getMovieById(-1L);
@@ -268,4 +294,398 @@ public class MovieServiceTest {
         assertFalse(results.isEmpty());
         assertTrue(results.stream().allMatch(movie -> movie.getGenre().contains("Crime/Drama")));
     }
-}
\ No newline at end of file
+
+    // Paging tests
+
+    @Test
+    public void testMoviesPageWithLimitAndOffset() {
+        MoviePage page = movieService.getMoviesPage(new MoviePageRequest(5, 5, null, null));
+        assertEquals(12, page.getTotalMatches());
+        assertEquals(5, page.getItems().size());
+        assertEquals(6L, page.getItems().get(0).getId());
+        assertTrue(page.isHasMore());
+    }
+
+    @Test
+    public void testMoviesPageOffsetPastEnd() {
+        MoviePage page = movieService.getMoviesPage(new MoviePageRequest(5, 50, null, null));
+        assertTrue(page.getItems().isEmpty());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void testCursorWalksWholeCatalogByRating() {
+        List<Movie> walked = new ArrayList<>();
+        String cursor = null;
+        do {
+            MoviePage page = movieService.getMoviesPage(new MoviePageRequest(5, null, cursor, "rating"));
+            walked.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(12, walked.size());
+        for (int i = 1; i < walked.size(); i++) {
+            assertTrue(naturalOrder(MovieSort.RATING).compare(walked.get(i - 1), walked.get(i)) < 0);
+        }
+    }
+
+    @Test
+    public void testSearchPageMatchesSearchMovies() {
+        List<Movie> all = movieService.searchMovies(null, null, "drama");
+        MoviePage first = movieService.searchPage(null, null, "drama", new MoviePageRequest(2, null, null, null));
+        MoviePage second = movieService.searchPage(null, null, "drama",
+            new MoviePageRequest(2, null, first.getNextCursor(), null));
+
+        assertEquals(all.size(), first.getTotalMatches());
+        assertEquals(all.get(0).getId(), first.getItems().get(0).getId());
+        assertEquals(all.get(2).getId(), second.getItems().get(0).getId());
+    }
+
+    @Test
+    public void testStreamSearchFollowsPageOrder() {
+        MoviePage page = movieService.searchPage(null, null, null, new MovieRanges(null, null, null, null, 4.0, null),
+            new MoviePageRequest(500, 1, null, "rating", "asc"));
+        List<Movie> streamed = movieService.streamSearch(null, null, null, new MovieRanges(null, null, null, null, 4.0, null),
+            new MoviePageRequest(null, 1, null, "rating", "asc")).collectList().block();
+
+        assertEquals(ids(page.getItems()), ids(streamed));
+        assertEquals(2, movieService.streamSearch("the", null, null, null, new MoviePageRequest(2, null, null, null))
+            .collectList().block().size());
+    }
+
+    @Test
+    public void testStreamSearchHonoursDemand() {
+        List<Movie> received = new ArrayList<>();
+        movieService.streamSearch(null, null, "drama", null, new MoviePageRequest())
+            .subscribe(new BaseSubscriber<Movie>() {
+                @Override
+                protected void hookOnSubscribe(Subscription subscription) {
+                    request(2);
+                }
+
+                @Override
+                protected void hookOnNext(Movie movie) {
+                    received.add(movie);
+                }
+            });
+        assertEquals(2, received.size());
+    }
+
+    @Test
+    public void testInvalidCursorAndSortAreRejected() {
+        assertThrows(IllegalArgumentException.class,
+            () -> movieService.getMoviesPage(new MoviePageRequest(null, null, "not-a-cursor", null)));
+        assertThrows(IllegalArgumentException.class,
+            () -> movieService.getMoviesPage(new MoviePageRequest(null, null, null, "popularity")));
+    }
+
+    @Test
+    public void testRangeSearchMatchesLinearFilter() {
+        MovieRanges ranges = new MovieRanges(1990, 1999, null, 150, 4.0, null);
+        List<Long> expected = movieService.getAllMovies().stream()
+            .filter(m -> m.getYear() >= 1990 && m.getYear() <= 1999 && m.getDuration() <= 150 && m.getImdbRating() >= 4.0)
+            .sorted(naturalOrder(MovieSort.RATING))
+            .map(Movie::getId)
+            .collect(Collectors.toList());
+
+        MoviePage page = movieService.searchPage(null, null, null, ranges, new MoviePageRequest(null, null, null, "rating"));
+
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, ids(page.getItems()));
+        assertEquals(expected.size(), page.getTotalMatches());
+    }
+
+    @Test
+    public void testRangeOnSortFieldWalksPresortedRun() {
+        MovieRanges ranges = new MovieRanges(1980, 2005, null, null, null, null);
+        List<Long> expected = movieService.getAllMovies().stream()
+            .filter(m -> m.getYear() >= 1980 && m.getYear() <= 2005)
+            .sorted(naturalOrder(MovieSort.YEAR))
+            .map(Movie::getId)
+            .collect(Collectors.toList());
+
+        List<Movie> walked = new ArrayList<>();
+        String cursor = null;
+        do {
+            MoviePage page = movieService.searchPage(null, null, null, ranges, new MoviePageRequest(2, null, cursor, "year"));
+            assertEquals(expected.size(), page.getTotalMatches());
+            walked.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(expected, ids(walked));
+    }
+
+    @Test
+    public void testRangeCombinesWithTextSearch() {
+        MovieRanges ranges = new MovieRanges(null, null, null, null, null, 8.5);
+        List<Movie> dramas = movieService.searchMovies(null, null, "drama");
+
+        MoviePage page = movieService.searchPage(null, null, "drama", ranges, new MoviePageRequest());
+
+        assertEquals(dramas.stream().filter(m -> m.getImdbRating() <= 8.5).count(), page.getTotalMatches());
+        assertTrue(page.getItems().stream().allMatch(m -> m.getImdbRating() <= 8.5));
+    }
+
+    @Test
+    public void testEmptyRangeMatchesNothing() {
+        MovieRanges ranges = new MovieRanges(2000, 1990, null, null, null, null);
+        MoviePage page = movieService.searchPage(null, null, null, ranges, new MoviePageRequest(null, null, null, "year"));
+        assertEquals(0, page.getTotalMatches());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void testOrderReversesEverySort() {
+        for (MovieSort sort : MovieSort.values()) {
+            List<Long> natural = ids(movieService.getMoviesPage(new MoviePageRequest(null, null, null, sort.getParam())).getItems());
+            String opposite = sort.isDescending() ? "asc" : "desc";
+
+            List<Movie> walked = new ArrayList<>();
+            String cursor = null;
+            do {
+                MoviePage page = movieService.getMoviesPage(new MoviePageRequest(5, null, cursor, sort.getParam(), opposite));
+                walked.addAll(page.getItems());
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+
+            Collections.reverse(natural);
+            assertEquals(natural, ids(walked), sort.getParam());
+        }
+    }
+
+    @Test
+    public void testCursorMustMatchOrder() {
+        MoviePage first = movieService.getMoviesPage(new MoviePageRequest(2, null, null, "year", "desc"));
+        assertThrows(IllegalArgumentException.class,
+            () -> movieService.getMoviesPage(new MoviePageRequest(2, null, first.getNextCursor(), null, "asc")));
+        assertThrows(IllegalArgumentException.class,
+            () -> movieService.getMoviesPage(new MoviePageRequest(null, null, null, "year", "sideways")));
+    }
+
+    @Test
+    public void testCursorWithoutDirectionContinuesNaturalOrder() {
+        Movie last = movieService.getMoviesPage(new MoviePageRequest(3, null, null, "rating")).getItems().get(2);
+        String legacy = Base64.getUrlEncoder().withoutPadding().encodeToString(
+            ("rating:" + Long.toHexString(Double.doubleToLongBits(last.getImdbRating())) + ":" + last.getId())
+                .getBytes(StandardCharsets.UTF_8));
+
+        PageCursor cursor = PageCursor.decode(legacy);
+
+        assertTrue(cursor.isDescending());
+        assertEquals(ids(movieService.getMoviesPage(new MoviePageRequest(3, 3, null, "rating")).getItems()),
+            ids(movieService.getMoviesPage(new MoviePageRequest(3, null, legacy, null)).getItems()));
+    }
+
+    @Test
+    public void testLimitIsClamped() {
+        assertEquals(MoviePageRequest.MAX_LIMIT, new MoviePageRequest(100000, null, null, null).resolvedLimit());
+        assertEquals(1, new MoviePageRequest(0, null, null, null).resolvedLimit());
+        assertEquals(MoviePageRequest.DEFAULT_LIMIT, new MoviePageRequest().resolvedLimit());
+    }
+
+    @Test
+    public void testGenreFacetsSplitCompositeGenres() {
+        List<GenreFacet> facets = movieService.getGenreFacets();
+        assertEquals(7, facetCount(facets, "Drama"));
+        assertEquals(4, facetCount(facets, "Crime"));
+        assertEquals(0, facetCount(facets, "Crime/Drama"));
+        for (int i = 1; i < facets.size(); i++) {
+            assertTrue(facets.get(i - 1).getGenre().compareTo(facets.get(i).getGenre()) < 0);
+        }
+    }
+
+    @Test
+    public void testSearchPageFacetsCoverAllMatches() {
+        MoviePage page = movieService.searchPage(null, null, "crime", new MoviePageRequest(1, null, null, null));
+        assertEquals(1, page.getItems().size());
+        assertEquals(4, page.getTotalMatches());
+        assertEquals(4, facetCount(page.getGenreFacets(), "Crime"));
+        assertEquals(0, facetCount(page.getGenreFacets(), "Romance"));
+    }
+
+    private static int facetCount(List<GenreFacet> facets, String genre) {
+        return facets.stream().filter(f -> f.getGenre().equals(genre)).mapToInt(GenreFacet::getCount).sum();
+    }
+
+    @Test
+    public void testGetMovieByPrimitiveId() {
+        assertEquals("The Prison Escape", movieService.getMovieById(1L).get().getMovieName());
+        assertFalse(movieService.getMovieById(0L).isPresent());
+        assertFalse(movieService.getMovieById(-3L).isPresent());
+        assertFalse(movieService.getMovieById((Long) null).isPresent());
+    }
+
+    // Search cache tests
+
+    @Test
+    public void testSearchKeyNormalization() {
+        assertEquals(SearchKey.of("  Prison ", null, null), SearchKey.of("prison", 0L, ""));
+        assertEquals(SearchKey.of(null, null, "DRAMA"), SearchKey.of("   ", -1L, " drama"));
+        assertNotEquals(SearchKey.of("prison", 1L, null), SearchKey.of("prison", null, null));
+        assertTrue(SearchKey.of(" ", null, null).isEmpty());
+    }
+
+    @Test
+    public void testEquivalentSearchesShareCacheEntry() {
+        movieService.searchMovies("Prison", null, null);
+        movieService.searchMovies("  PRISON ", null, null);
+        movieService.searchPage("prison", null, null, new MoviePageRequest());
+
+        BoundedCache.Stats stats = movieService.getSearchCacheStats();
+        assertEquals(1, stats.getEntries());
+        assertEquals(2, stats.getHits());
+    }
+
+    @Test
+    public void testCachedResultsMatchUncachedResults() {
+        MovieService uncached = new MovieService(new JsonMovieRepository(),
+            new MovieService.Options().searchCache(BoundedCache.EvictionPolicy.LFU, 0));
+        assertNull(uncached.getSearchCacheStats());
+        for (int i = 0; i < 2; i++) {
+            assertEquals(ids(uncached.searchMovies(null, null, "drama")), ids(movieService.searchMovies(null, null, "drama")));
+            assertEquals(ids(uncached.searchMovies("the", null, "a")), ids(movieService.searchMovies("the", null, "a")));
+        }
+    }
+
+    private static List<Long> ids(List<Movie> movies) {
+        return movies.stream().map(Movie::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testColumnLayoutAnswersLikeObjectLayout() {
+        MovieService columnar = new MovieService(new JsonMovieRepository(),
+            new MovieService.Options().layout(CatalogLayout.COLUMNS));
+        assertEquals(ids(movieService.getAllMovies()), ids(columnar.getAllMovies()));
+        assertEquals(ids(movieService.searchMovies("the", null, "drama")), ids(columnar.searchMovies("the", null, "drama")));
+        assertEquals(movieService.getAllGenres(), columnar.getAllGenres());
+        assertEquals("The Family Boss", columnar.getMovieById(2L).get().getMovieName());
+
+        MoviePageRequest byRating = new MoviePageRequest(3, null, null, "rating");
+        MoviePage first = columnar.getMoviesPage(byRating);
+        MoviePage second = columnar.getMoviesPage(new MoviePageRequest(3, null, first.getNextCursor(), null));
+        assertEquals(ids(movieService.getMoviesPage(new MoviePageRequest(3, 3, null, "rating")).getItems()),
+            ids(second.getItems()));
+    }
+
+    @Test
+    public void testObjectLayoutAttachesReviewsOnlyToReturnedMovies() {
+        List<Movie> catalog = new JsonMovieRepository().findAll();
+        int[] reads = new int[1];
+        List<Movie> counted = new AbstractList<Movie>() {
+            @Override
+            public Movie get(int index) {
+                reads[0]++;
+                return catalog.get(index);
+            }
+
+            @Override
+            public int size() {
+                return catalog.size();
+            }
+        };
+        ReviewService reviewService = new ReviewService();
+        MovieService service = new MovieService(() -> counted, new MovieService.Options().reviewService(reviewService));
+        int built = reads[0];
+        assertTrue(reviewService.reload());
+        assertTrue(service.refreshReviews());
+        assertEquals(built, reads[0]);
+
+        Movie movie = service.getMovieById(1L).get();
+        assertEquals(built + 1, reads[0]);
+        Movie source = catalog.stream().filter(m -> m.getId() == 1L).findFirst().get();
+        assertSame(source.getDescription(), movie.getDescription());
+        assertEquals(reviewService.getReviewSummary(1L).getCount(), movie.getAudience().getCount());
+        assertTrue(movie.getAudience().getCount() > 0);
+
+        // later reads of the same snapshot return the movie attached the first time
+        assertSame(movie, service.getMovieById(1L).get());
+        assertTrue(service.searchMovies(movie.getMovieName(), null, null).stream().anyMatch(found -> found == movie));
+        assertEquals(built + 1, reads[0]);
+    }
+
+    // Reload tests
+
+    @Test
+    public void testReloadPublishesNewSnapshot() {
+        List<List<Movie>> catalogs = new ArrayList<>();
+        catalogs.add(Arrays.asList(new Movie(1L, "Old Harbor", "A", 1990, "Drama", "", 100, 3.0)));
+        catalogs.add(Arrays.asList(
+            new Movie(1L, "New Harbor", "A", 1990, "Drama", "", 100, 3.0),
+            new Movie(2L, "Sea Legs", "B", 1991, "Comedy", "", 90, 4.0)));
+        Iterator<List<Movie>> source = catalogs.iterator();
+        MovieService service = new MovieService(source::next, new MovieService.Options());
+
+        List<Movie> before = service.getAllMovies();
+        assertEquals(1, service.searchMovies("harbor", null, null).size());
+        assertTrue(service.reload());
+
+        assertEquals(1, before.size());
+        assertEquals("Old Harbor", before.get(0).getMovieName());
+        assertEquals(2, service.getAllMovies().size());
+        assertEquals("New Harbor", service.searchMovies("harbor", null, null).get(0).getMovieName());
+        assertEquals(1, service.searchMovies("sea", null, null).size());
+        assertTrue(service.getAllGenres().contains("Comedy"));
+        assertTrue(service.getMovieById(2L).isPresent());
+    }
+
+    @Test
+    public void testReloadKeepsCatalogWhenSourceIsEmpty() {
+        List<Movie> original = movieService.getAllMovies();
+        MovieService service = new MovieService(new MovieRepository() {
+            private boolean loaded;
+
+            @Override
+            public List<Movie> findAll() {
+                List<Movie> movies = loaded ? Collections.emptyList() : original;
+                loaded = true;
+                return movies;
+            }
+        }, new MovieService.Options());
+
+        assertFalse(service.reload());
+        assertEquals(12, service.getAllMovies().size());
+    }
+
+    @Test
+    public void testReloadFromExternalFile(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("movies.json");
+        writeCatalog(file, "Lonely Lighthouse");
+        MovieService service = new MovieService(new JsonMovieRepository(file), new MovieService.Options());
+        assertEquals("Lonely Lighthouse", service.getAllMovies().get(0).getMovieName());
+
+        writeCatalog(file, "Crowded Lighthouse");
+        assertTrue(service.reload());
+        assertEquals("Crowded Lighthouse", service.getAllMovies().get(0).getMovieName());
+
+        Files.write(file, "[{\"id\": 1,".getBytes(StandardCharsets.UTF_8));
+        assertFalse(service.reload());
+        assertEquals("Crowded Lighthouse", service.getAllMovies().get(0).getMovieName());
+    }
+
+    /**
+     * The natural direction of each order, written out over {@link Movie} fields, to check
+     * the column-based orders against.
+     */
+    static Comparator<Movie> naturalOrder(MovieSort sort) {
+        switch (sort) {
+            case RATING:
+                return Comparator.comparingDouble(Movie::getImdbRating).reversed().thenComparingLong(Movie::getId);
+            case YEAR:
+                return Comparator.comparingInt(Movie::getYear).thenComparingLong(Movie::getId);
+            case DURATION:
+                return Comparator.comparingInt(Movie::getDuration).thenComparingLong(Movie::getId);
+            case AUDIENCE:
+                return Comparator.comparingDouble((Movie movie) -> movie.getAudience().getAudienceScore()).reversed()
+                    .thenComparingLong(Movie::getId);
+            default:
+                return Comparator.comparingLong(Movie::getId);
+        }
+    }
+
+    static void writeCatalog(Path file, String movieName) throws IOException {
+        String json = "[{\"id\": 1, \"movieName\": \"" + movieName + "\", \"director\": \"D\", \"year\": 2000,"
+            + " \"genre\": \"Drama\", \"description\": \"\", \"duration\": 100, \"imdbRating\": 4.0}]";
+        Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+    }
+}
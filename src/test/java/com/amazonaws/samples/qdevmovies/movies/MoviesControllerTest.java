@@ -2,15 +2,18 @@ package com.amazonaws.samples.qdevmovies.movies;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.ui.Model;
 import org.springframework.ui.ExtendedModelMap;
 
 import javax.servlet.http.HttpServletRequest;
-import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -23,77 +26,46 @@ public class MoviesControllerTest {
     private ReviewService mockReviewService;
     private HttpServletRequest mockRequest;
 
+    @TempDir
+    Path dir;
+
+    private static final List<Movie> MOVIES = Arrays.asList(
+        new Movie(1L, "The Pirate's Treasure", "Captain Hook", 2023, "Adventure", "A swashbuckling adventure", 120, 4.5),
+        new Movie(2L, "Blackbeard's Revenge", "Anne Bonny", 2022, "Action", "Epic pirate battles", 135, 4.0),
+        new Movie(3L, "The Kraken's Call", "Davy Jones", 2021, "Horror/Adventure", "Sea monster terror", 110, 3.5)
+    );
+
+    private static final String REVIEWS = "{\"1\": ["
+        + "{\"userName\": \"Hook\", \"avatarEmoji\": \"x\", \"rating\": 5.0, \"comment\": \"Shiver me timbers\"},"
+        + "{\"userName\": \"Smee\", \"avatarEmoji\": \"x\", \"rating\": 3.0, \"comment\": \"Aye\"},"
+        + "{\"userName\": \"Bonny\", \"avatarEmoji\": \"x\", \"rating\": 4.0, \"comment\": \"Yo ho\"}],"
+        + "\"2\": [{\"userName\": \"Read\", \"avatarEmoji\": \"x\", \"rating\": 2.0, \"comment\": \"Meh\"}]}";
+
+    private String lastSearchName;
+    private ReviewPageRequest lastReviewRequest;
+
     @BeforeEach
-    public void setUp() {
+    public void setUp() throws Exception {
         moviesController = new MoviesController();
         model = new ExtendedModelMap();
         mockRequest = mock(HttpServletRequest.class);
-        
-        // Create mock services with pirate-themed test data
-        mockMovieService = new MovieService() {
-            @Override
-            public List<Movie> getAllMovies() {
-                return Arrays.asList(
-                    new Movie(1L, "The Pirate's Treasure", "Captain Hook", 2023, "Adventure", "A swashbuckling adventure", 120, 4.5),
-                    new Movie(2L, "Blackbeard's Revenge", "Anne Bonny", 2022, "Action", "Epic pirate battles", 135, 4.0),
-                    new Movie(3L, "The Kraken's Call", "Davy Jones", 2021, "Horror/Adventure", "Sea monster terror", 110, 3.5)
-                );
-            }
-            
-            @Override
-            public Optional<Movie> getMovieById(Long id) {
-                if (id == 1L) {
-                    return Optional.of(new Movie(1L, "The Pirate's Treasure", "Captain Hook", 2023, "Adventure", "A swashbuckling adventure", 120, 4.5));
-                }
-                return Optional.empty();
-            }
-            
-            @Override
-            public List<Movie> searchMovies(String name, Long id, String genre) {
-                List<Movie> allMovies = getAllMovies();
-                List<Movie> results = new ArrayList<>();
-                
-                for (Movie movie : allMovies) {
-                    boolean matches = true;
-                    
-                    if (name != null && !name.trim().isEmpty()) {
-                        matches = matches && movie.getMovieName().toLowerCase().contains(name.toLowerCase());
-                    }
-                    
-                    if (id != null && id > 0) {
-                        matches = matches && movie.getId() == id;
-                    }
-                    
-                    if (genre != null && !genre.trim().isEmpty()) {
-                        matches = matches && movie.getGenre().toLowerCase().contains(genre.toLowerCase());
-                    }
-                    
-                    if (matches) {
-                        results.add(movie);
-                    }
-                }
-                
-                return results;
-            }
-            
-            @Override
-            public List<String> getAllGenres() {
-                return Arrays.asList("Action", "Adventure", "Horror/Adventure");
-            }
-            
+
+        // Real services over pirate-themed test data, recording what the controller asks of them
+        Path reviews = dir.resolve("reviews.json");
+        Files.write(reviews, REVIEWS.getBytes(StandardCharsets.UTF_8));
+        mockReviewService = new ReviewService(reviews) {
             @Override
-            public boolean isValidSearchRequest(String name, Long id, String genre) {
-                boolean hasValidName = name != null && !name.trim().isEmpty();
-                boolean hasValidId = id != null && id > 0;
-                boolean hasValidGenre = genre != null && !genre.trim().isEmpty();
-                return hasValidName || hasValidId || hasValidGenre;
+            public ReviewPage getReviewsPage(long movieId, ReviewPageRequest request) {
+                lastReviewRequest = request;
+                return super.getReviewsPage(movieId, request);
             }
         };
-        
-        mockReviewService = new ReviewService() {
+
+        mockMovieService = new MovieService(() -> MOVIES, new MovieService.Options().reviewService(mockReviewService)) {
             @Override
-            public List<Review> getReviewsForMovie(long movieId) {
-                return new ArrayList<>();
+            public MoviePage searchPage(String name, Long id, String genre, MovieRanges ranges, MoviePageRequest request) {
+                lastSearchName = name;
+                return super.searchPage(name, id, genre, ranges, request);
             }
         };
         
@@ -113,7 +85,7 @@ public class MoviesControllerTest {
 
     @Test
     public void testGetMovies() {
-        String result = moviesController.getMovies(model);
+        Object result = moviesController.getMovies(new MoviePageRequest(), model, mockRequest);
         assertNotNull(result);
         assertEquals("movies", result);
         assertTrue(model.containsAttribute("movies"));
@@ -122,14 +94,53 @@ public class MoviesControllerTest {
 
     @Test
     public void testGetMovieDetails() {
-        String result = moviesController.getMovieDetails(1L, model);
+        String result = moviesController.getMovieDetails(1L, null, model);
         assertNotNull(result);
         assertEquals("movie-details", result);
+        assertEquals(MoviesController.DETAILS_REVIEWS, lastReviewRequest.getLimit().intValue());
+        assertEquals(3, model.getAttribute("reviewCount"));
+        List<?> reviews = (List<?>) model.getAttribute("reviews");
+        assertEquals(3, reviews.size());
+        assertEquals("Hook", ((Review) reviews.get(0)).getUserName());
+        assertNull(model.getAttribute("nextReviewCursor"));
+    }
+
+    @Test
+    public void testGetMovieDetailsIgnoresInvalidReviewCursor() {
+        assertEquals("movie-details", moviesController.getMovieDetails(1L, "not-a-cursor", model));
+        assertEquals(3, ((List<?>) model.getAttribute("reviews")).size());
+    }
+
+    @Test
+    public void testGetMovieReviewsPages() {
+        ResponseEntity<?> first = moviesController.getMovieReviews(1L, new ReviewPageRequest(2, null, null, "rating", null));
+        assertEquals(200, first.getStatusCodeValue());
+        assertEquals("3", first.getHeaders().getFirst(MoviesController.TOTAL_COUNT_HEADER));
+        String cursor = first.getHeaders().getFirst(MoviesController.NEXT_CURSOR_HEADER);
+        assertNotNull(cursor);
+        List<?> firstItems = (List<?>) first.getBody();
+        assertEquals(2, firstItems.size());
+        assertEquals("Hook", ((Review) firstItems.get(0)).getUserName());
+        assertEquals("Bonny", ((Review) firstItems.get(1)).getUserName());
+
+        ResponseEntity<?> second = moviesController.getMovieReviews(1L, new ReviewPageRequest(2, null, cursor, null, null));
+        assertEquals(cursor, lastReviewRequest.getCursor());
+        assertEquals(1, ((List<?>) second.getBody()).size());
+        assertNull(second.getHeaders().getFirst(MoviesController.NEXT_CURSOR_HEADER));
+        assertEquals("Smee", ((Review) ((List<?>) second.getBody()).get(0)).getUserName());
+    }
+
+    @Test
+    public void testGetMovieReviewsErrors() {
+        assertEquals(404, moviesController.getMovieReviews(999L, new ReviewPageRequest()).getStatusCodeValue());
+        ResponseEntity<?> invalid = moviesController.getMovieReviews(1L, new ReviewPageRequest(null, null, null, "helpful", null));
+        assertEquals(400, invalid.getStatusCodeValue());
+        assertTrue(((MoviesController.SearchErrorResponse) invalid.getBody()).getError().startsWith("Arrr!"));
     }
 
     @Test
     public void testGetMovieDetailsNotFound() {
-        String result = moviesController.getMovieDetails(999L, model);
+        String result = moviesController.getMovieDetails(999L, null, model);
         assertNotNull(result);
         assertEquals("error", result);
     }
@@ -141,12 +152,13 @@ public class MoviesControllerTest {
         // Mock browser request (no JSON accept header)
         when(mockRequest.getHeader("Accept")).thenReturn("text/html");
         
-        Object result = moviesController.searchMovies("Pirate", null, null, model, mockRequest);
+        Object result = moviesController.searchMovies("Pirate", null, null, MovieRanges.NONE, new MoviePageRequest(), model, mockRequest);
         
         assertEquals("movies", result);
         assertTrue(model.containsAttribute("movies"));
         assertTrue(model.containsAttribute("searchPerformed"));
         assertEquals("Pirate", model.getAttribute("searchName"));
+        assertEquals("Pirate", lastSearchName);
         
         @SuppressWarnings("unchecked")
         List<Movie> movies = (List<Movie>) model.getAttribute("movies");
@@ -159,7 +171,7 @@ public class MoviesControllerTest {
         // Mock API request (JSON accept header)
         when(mockRequest.getHeader("Accept")).thenReturn("application/json");
         
-        Object result = moviesController.searchMovies(null, 1L, null, model, mockRequest);
+        Object result = moviesController.searchMovies(null, 1L, null, MovieRanges.NONE, new MoviePageRequest(), model, mockRequest);
         
         assertTrue(result instanceof ResponseEntity);
         @SuppressWarnings("unchecked")
@@ -176,7 +188,7 @@ public class MoviesControllerTest {
     public void testSearchMoviesByGenre_HtmlRequest() {
         when(mockRequest.getHeader("Accept")).thenReturn("text/html");
         
-        Object result = moviesController.searchMovies(null, null, "Adventure", model, mockRequest);
+        Object result = moviesController.searchMovies(null, null, "Adventure", MovieRanges.NONE, new MoviePageRequest(), model, mockRequest);
         
         assertEquals("movies", result);
         @SuppressWarnings("unchecked")
@@ -188,7 +200,7 @@ public class MoviesControllerTest {
     public void testSearchMoviesMultipleCriteria_HtmlRequest() {
         when(mockRequest.getHeader("Accept")).thenReturn("text/html");
         
-        Object result = moviesController.searchMovies("Kraken", null, "Horror", model, mockRequest);
+        Object result = moviesController.searchMovies("Kraken", null, "Horror", MovieRanges.NONE, new MoviePageRequest(), model, mockRequest);
         
         assertEquals("movies", result);
         @SuppressWarnings("unchecked")
@@ -201,7 +213,7 @@ public class MoviesControllerTest {
     public void testSearchMoviesNoResults_HtmlRequest() {
         when(mockRequest.getHeader("Accept")).thenReturn("text/html");
         
-        Object result = moviesController.searchMovies("NonexistentMovie", null, null, model, mockRequest);
+        Object result = moviesController.searchMovies("NonexistentMovie", null, null, MovieRanges.NONE, new MoviePageRequest(), model, mockRequest);
         
         assertEquals("movies", result);
         assertTrue((Boolean) model.getAttribute("noResults"));
@@ -217,7 +229,7 @@ public class MoviesControllerTest {
         when(mockRequest.getHeader("Accept")).thenReturn("text/html");
         
         // Empty parameters should trigger validation error
-        Object result = moviesController.searchMovies("", null, "", model, mockRequest);
+        Object result = moviesController.searchMovies("", null, "", MovieRanges.NONE, new MoviePageRequest(), model, mockRequest);
         
         assertEquals("movies", result);
         assertNotNull(model.getAttribute("searchError"));
@@ -228,7 +240,7 @@ public class MoviesControllerTest {
     public void testSearchMoviesInvalidParameters_ApiRequest() {
         when(mockRequest.getHeader("Accept")).thenReturn("application/json");
         
-        Object result = moviesController.searchMovies(null, null, null, model, mockRequest);
+        Object result = moviesController.searchMovies(null, null, null, MovieRanges.NONE, new MoviePageRequest(), model, mockRequest);
         
         assertTrue(result instanceof ResponseEntity);
         @SuppressWarnings("unchecked")
@@ -246,7 +258,7 @@ public class MoviesControllerTest {
         when(mockRequest.getHeader("Accept")).thenReturn("text/html");
         
         // Test case-insensitive search
-        Object result = moviesController.searchMovies("PIRATE", null, null, model, mockRequest);
+        Object result = moviesController.searchMovies("PIRATE", null, null, MovieRanges.NONE, new MoviePageRequest(), model, mockRequest);
         
         assertEquals("movies", result);
         @SuppressWarnings("unchecked")
@@ -260,7 +272,7 @@ public class MoviesControllerTest {
         when(mockRequest.getHeader("Accept")).thenReturn("text/html");
         
         // Test partial name matching
-        Object result = moviesController.searchMovies("Treasure", null, null, model, mockRequest);
+        Object result = moviesController.searchMovies("Treasure", null, null, MovieRanges.NONE, new MoviePageRequest(), model, mockRequest);
         
         assertEquals("movies", result);
         @SuppressWarnings("unchecked")
@@ -282,4 +294,163 @@ public class MoviesControllerTest {
             new MoviesController.SearchErrorResponse("Test error message");
         assertEquals("Test error message", errorResponse.getError());
     }
+
+    @Test
+    public void testGetMoviesPaged_ApiRequest() {
+        when(mockRequest.getHeader("Accept")).thenReturn("application/json");
+
+        Object result = moviesController.getMovies(new MoviePageRequest(2, null, null, null), model, mockRequest);
+
+        assertTrue(result instanceof ResponseEntity);
+        @SuppressWarnings("unchecked")
+        ResponseEntity<List<Movie>> response = (ResponseEntity<List<Movie>>) result;
+        assertEquals(2, response.getBody().size());
+        assertEquals("3", response.getHeaders().getFirst(MoviesController.TOTAL_COUNT_HEADER));
+        assertNotNull(response.getHeaders().getFirst(MoviesController.NEXT_CURSOR_HEADER));
+        assertEquals("Action=1, Adventure=2, Horror=1",
+            response.getHeaders().getFirst(MoviesController.GENRE_FACETS_HEADER));
+    }
+
+    @Test
+    public void testGetMoviesPaged_HtmlRequest() {
+        when(mockRequest.getHeader("Accept")).thenReturn("text/html");
+
+        Object result = moviesController.getMovies(new MoviePageRequest(2, null, null, null), model, mockRequest);
+
+        assertEquals("movies", result);
+        assertNotNull(model.getAttribute("page"));
+        assertTrue(model.getAttribute("nextPageUrl").toString().contains("cursor="));
+    }
+
+    @Test
+    public void testSearchMoviesByRangeOnly_ApiRequest() {
+        when(mockRequest.getHeader("Accept")).thenReturn("application/json");
+
+        Object result = moviesController.searchMovies(null, null, null, new MovieRanges(2022, null, null, null, null, null),
+            new MoviePageRequest(null, null, null, "year", "desc"), model, mockRequest);
+
+        assertTrue(result instanceof ResponseEntity);
+        @SuppressWarnings("unchecked")
+        ResponseEntity<List<Movie>> response = (ResponseEntity<List<Movie>>) result;
+        assertEquals(2, response.getBody().size());
+        assertEquals(1L, response.getBody().get(0).getId());
+        assertEquals(2L, response.getBody().get(1).getId());
+    }
+
+    @Test
+    public void testSearchMoviesNextPageKeepsRanges_HtmlRequest() {
+        when(mockRequest.getHeader("Accept")).thenReturn("text/html");
+
+        moviesController.searchMovies(null, null, null, new MovieRanges(null, null, 100, null, 3.5, null),
+            new MoviePageRequest(1, null, null, "rating"), model, mockRequest);
+
+        String nextPageUrl = model.getAttribute("nextPageUrl").toString();
+        assertTrue(nextPageUrl.contains("minDuration=100"));
+        assertTrue(nextPageUrl.contains("minRating=3.5"));
+        assertFalse(nextPageUrl.contains("maxYear"));
+    }
+
+    @Test
+    public void testSearchMoviesInvalidCursor_ApiRequest() {
+        when(mockRequest.getHeader("Accept")).thenReturn("application/json");
+
+        Object result = moviesController.searchMovies("Pirate", null, null,
+            MovieRanges.NONE, new MoviePageRequest(null, null, "garbage!", null), model, mockRequest);
+
+        assertTrue(result instanceof ResponseEntity);
+        assertEquals(400, ((ResponseEntity<?>) result).getStatusCodeValue());
+    }
+
+    @Test
+    public void testGetMoviesByIdsKeepsRequestOrder() {
+        ResponseEntity<?> result = moviesController.getMoviesByIds("3, 1,999,2", false);
+        assertEquals(200, result.getStatusCodeValue());
+        List<?> movies = (List<?>) result.getBody();
+        assertEquals(4, movies.size());
+        assertEquals(3L, ((Movie) movies.get(0)).getId());
+        assertEquals(1L, ((Movie) movies.get(1)).getId());
+        assertNull(movies.get(2));
+        assertEquals(2L, ((Movie) movies.get(3)).getId());
+    }
+
+    @Test
+    public void testGetMoviesByIdsWithReviews() {
+        ResponseEntity<?> result = moviesController.getMoviesByIds("1,999", true);
+        List<?> items = (List<?>) result.getBody();
+        MovieBatchItem item = (MovieBatchItem) items.get(0);
+        assertEquals(1L, item.getMovie().getId());
+        assertSame(item.getMovie().getAudience(), item.getReviews());
+        assertEquals(3, item.getReviews().getCount());
+        assertEquals(4.0, item.getReviews().getAverageRating(), 1e-9);
+        assertNull(items.get(1));
+    }
+
+    @Test
+    public void testGetMoviesByIdsRejectsBadIds() {
+        assertEquals(400, moviesController.getMoviesByIds("1,two", false).getStatusCodeValue());
+        assertEquals(400, moviesController.getMoviesByIds(" , ", false).getStatusCodeValue());
+        StringBuilder tooMany = new StringBuilder("1");
+        for (int i = 0; i < MoviesController.MAX_BATCH_IDS; i++) {
+            tooMany.append(",1");
+        }
+        assertEquals(400, moviesController.getMoviesByIds(tooMany.toString(), false).getStatusCodeValue());
+    }
+
+    @Test
+    public void testWritesToReadOnlyCatalogAreRejected() {
+        MovieInput input = new MovieInput();
+        input.setMovieName("New");
+        assertEquals(405, moviesController.createMovie(input).getStatusCodeValue());
+        assertEquals(405, moviesController.updateMovie(1L, input).getStatusCodeValue());
+        assertEquals(405, moviesController.addReview(1L, new ReviewInput()).getStatusCodeValue());
+    }
+
+    @Test
+    public void testReviewsRejectedWithRetryAfterWhenTheStoreIsBusy() throws Exception {
+        java.lang.reflect.Field reviewServiceField = MoviesController.class.getDeclaredField("reviewService");
+        reviewServiceField.setAccessible(true);
+        reviewServiceField.set(moviesController, new ReviewService() {
+            @Override
+            public boolean isWritable() {
+                return true;
+            }
+
+            @Override
+            public Review addReview(long movieId, Review review) {
+                throw new CatalogStore.QueueFullException(3);
+            }
+        });
+        ReviewInput input = new ReviewInput();
+        input.setUserName("Ann");
+        input.setRating(4.0);
+
+        ResponseEntity<?> response = moviesController.addReview(1L, input);
+        assertEquals(429, response.getStatusCodeValue());
+        assertEquals("3", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    public void testMovieInputValidation() {
+        MovieInput input = new MovieInput();
+        input.setMovieName("Treasure");
+        input.setDirector("Hook");
+        input.setGenre("Adventure");
+        input.setYear(2024);
+        input.setDuration(100);
+        input.setImdbRating(4.5);
+        assertEquals("Treasure", input.toMovie(0).getMovieName());
+        assertEquals("", input.toMovie(0).getDescription());
+
+        input.setImdbRating(6.0);
+        assertThrows(IllegalArgumentException.class, () -> input.toMovie(0));
+        input.setImdbRating(4.5);
+        input.setDirector(" ");
+        assertThrows(IllegalArgumentException.class, () -> input.toMovie(0));
+
+        ReviewInput review = new ReviewInput();
+        review.setUserName("Ann");
+        assertThrows(IllegalArgumentException.class, review::toReview);
+        review.setRating(4.0);
+        assertEquals(ReviewInput.DEFAULT_AVATAR, review.toReview().getAvatarEmoji());
+    }
 }
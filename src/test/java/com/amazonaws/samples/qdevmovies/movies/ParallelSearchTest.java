@@ -0,0 +1,63 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelSearchTest {
+
+    private ParallelSearch parallelSearch;
+    private MovieService sequential;
+    private MovieService parallel;
+
+    @BeforeEach
+    public void setUp() {
+        List<Movie> templates = new JsonMovieRepository().findAll();
+        List<Movie> movies = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Movie template = templates.get(i % templates.size());
+            movies.add(new Movie(i + 1L, template.getMovieName() + " " + i, template.getDirector(),
+                template.getYear() + i % 7, template.getGenre(), template.getDescription(),
+                template.getDuration() + i % 13, template.getImdbRating()));
+        }
+        parallelSearch = new ParallelSearch(true, 100, 64, 3);
+        sequential = new MovieService(() -> movies, new MovieService.Options().searchCache(BoundedCache.EvictionPolicy.LRU, 0));
+        parallel = new MovieService(() -> movies, new MovieService.Options()
+            .searchCache(BoundedCache.EvictionPolicy.LRU, 0)
+            .parallelSearch(parallelSearch));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        parallelSearch.shutdown();
+    }
+
+    @Test
+    public void testParallelMatchesSequential() {
+        MovieRanges ranges = new MovieRanges(1990, null, null, 150, 4.0, null);
+        for (String[] terms : new String[][] {{"e", null}, {null, "a"}, {"the", "drama"}, {"1", "crime"}, {"zz", null},
+                {"prison escape 1", null}, {"escape 2", "drama"}, {"e", "crime/drama"}}) {
+            assertEquals(ids(sequential.searchMovies(terms[0], null, terms[1])),
+                ids(parallel.searchMovies(terms[0], null, terms[1])));
+            assertEquals(ids(sequential.searchPage(terms[0], null, terms[1], ranges, new MoviePageRequest(500, null, null, "rating")).getItems()),
+                ids(parallel.searchPage(terms[0], null, terms[1], ranges, new MoviePageRequest(500, null, null, "rating")).getItems()));
+        }
+    }
+
+    @Test
+    public void testThresholdAndDisabledMode() {
+        assertTrue(parallelSearch.appliesTo(100));
+        assertFalse(parallelSearch.appliesTo(99));
+        assertFalse(ParallelSearch.DISABLED.appliesTo(Integer.MAX_VALUE));
+    }
+
+    private static List<Long> ids(List<Movie> movies) {
+        return movies.stream().map(Movie::getId).collect(Collectors.toList());
+    }
+}
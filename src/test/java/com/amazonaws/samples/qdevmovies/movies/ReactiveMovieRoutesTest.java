@@ -0,0 +1,81 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReactiveMovieRoutesTest {
+
+    private MovieService movieService;
+    private WebTestClient client;
+
+    @BeforeEach
+    public void setUp() {
+        movieService = new MovieService();
+        client = WebTestClient.bindToRouterFunction(new ReactiveMovieRoutes(movieService, new ReviewService(), MovieMetrics.NONE).routes())
+            .build();
+    }
+
+    @Test
+    public void testSearchReturnsPageWithHeaders() {
+        client.get().uri("/movies/search?genre=drama&limit=2").accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().valueEquals(MoviesController.TOTAL_COUNT_HEADER,
+                String.valueOf(movieService.searchMovies(null, null, "drama").size()))
+            .expectHeader().exists(MoviesController.NEXT_CURSOR_HEADER)
+            .expectBody().jsonPath("$.length()").isEqualTo(2);
+    }
+
+    @Test
+    public void testSearchStreamsNdjson() {
+        List<Map<String, Object>> movies = client.get().uri("/movies/search?minYear=1990&sort=year")
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+            .returnResult(new ParameterizedTypeReference<Map<String, Object>>() { })
+            .getResponseBody().collectList().block();
+
+        MoviePage page = movieService.searchPage(null, null, null, new MovieRanges(1990, null, null, null, null, null),
+            new MoviePageRequest(500, null, null, "year"));
+        assertEquals(page.getTotalMatches(), movies.size());
+        assertEquals(page.getItems().get(0).getId(), ((Number) movies.get(0).get("id")).longValue());
+    }
+
+    @Test
+    public void testInvalidSearchIsRejected() {
+        client.get().uri("/movies/search").exchange().expectStatus().isBadRequest();
+        client.get().uri("/movies/search?name=the&sort=popularity").accept(MediaType.APPLICATION_NDJSON)
+            .exchange().expectStatus().isBadRequest();
+        client.get().uri("/movies/search?minYear=soon").exchange()
+            .expectStatus().isBadRequest()
+            .expectBody().jsonPath("$.error").value(error -> assertTrue(error.toString().contains("minYear")));
+    }
+
+    @Test
+    public void testDetailsAndReviews() {
+        client.get().uri("/movies/1").exchange()
+            .expectStatus().isOk()
+            .expectBody().jsonPath("$.id").isEqualTo(1);
+        client.get().uri("/movies/1/reviews").exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentType(MediaType.APPLICATION_JSON)
+            .expectHeader().valueEquals(MoviesController.TOTAL_COUNT_HEADER, "3")
+            .expectBody().jsonPath("$.length()").isEqualTo(3);
+        client.get().uri("/movies/1/reviews?limit=2&sort=rating").exchange()
+            .expectStatus().isOk()
+            .expectHeader().exists(MoviesController.NEXT_CURSOR_HEADER)
+            .expectBody().jsonPath("$.length()").isEqualTo(2);
+        client.get().uri("/movies/1/reviews?sort=helpful").exchange().expectStatus().isBadRequest();
+        client.get().uri("/movies/999").exchange().expectStatus().isNotFound();
+        client.get().uri("/movies/999/reviews").exchange().expectStatus().isNotFound();
+    }
+}
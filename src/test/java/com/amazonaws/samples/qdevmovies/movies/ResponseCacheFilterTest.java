@@ -0,0 +1,137 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseCacheFilterTest {
+
+    private ResponseCacheFilter filter;
+    private AtomicInteger renders;
+    private FilterChain chain;
+
+    @BeforeEach
+    public void setUp() {
+        filter = new ResponseCacheFilter(1024 * 1024, 60, "json");
+        renders = new AtomicInteger();
+        chain = (request, response) -> {
+            renders.incrementAndGet();
+            response.setContentType("text/html;charset=UTF-8");
+            response.getOutputStream().write("<html>movies</html>".getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+    @Test
+    public void testSecondRequestIsServedFromCache() throws Exception {
+        MockHttpServletResponse first = execute(get("/movies"));
+        MockHttpServletResponse second = execute(get("/movies"));
+
+        assertEquals(1, renders.get());
+        assertEquals(200, second.getStatus());
+        assertEquals("<html>movies</html>", second.getContentAsString());
+        assertEquals(first.getHeader("ETag"), second.getHeader("ETag"));
+        assertEquals("public, max-age=60", second.getHeader("Cache-Control"));
+        assertEquals(1, filter.stats().getHits());
+        assertEquals(1, filter.stats().getMisses());
+    }
+
+    @Test
+    public void testIfNoneMatchReturnsNotModified() throws Exception {
+        String etag = execute(get("/movies")).getHeader("ETag");
+        MockHttpServletRequest revalidate = get("/movies");
+        revalidate.addHeader("If-None-Match", etag);
+
+        MockHttpServletResponse response = execute(revalidate);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentLength());
+        assertEquals(1, renders.get());
+    }
+
+    @Test
+    public void testWritableCatalogIsRevalidatedOnEveryRequest() throws Exception {
+        filter = new ResponseCacheFilter(1024 * 1024, 60, "store");
+        MockHttpServletResponse first = execute(get("/movies/1/details"));
+        assertEquals("no-cache", first.getHeader("Cache-Control"));
+        assertEquals("no-cache", execute(get("/movies/1/details")).getHeader("Cache-Control"));
+
+        MockHttpServletRequest revalidate = get("/movies/1/details");
+        revalidate.addHeader("If-None-Match", first.getHeader("ETag"));
+        MockHttpServletResponse response = execute(revalidate);
+
+        assertEquals(304, response.getStatus());
+        assertEquals("no-cache", response.getHeader("Cache-Control"));
+        assertEquals(1, renders.get());
+    }
+
+    @Test
+    public void testKeyIncludesParametersAndRepresentation() throws Exception {
+        execute(get("/movies"));
+        MockHttpServletRequest paged = get("/movies");
+        paged.addParameter("limit", "5");
+        execute(paged);
+        MockHttpServletRequest json = get("/movies");
+        json.addHeader("Accept", "application/json");
+        execute(json);
+
+        assertEquals(3, renders.get());
+    }
+
+    @Test
+    public void testNonOkResponsesAreNotCached() throws Exception {
+        chain = (request, response) -> {
+            renders.incrementAndGet();
+            ((javax.servlet.http.HttpServletResponse) response).setStatus(400);
+        };
+        execute(get("/movies/search"));
+        execute(get("/movies/search"));
+        assertEquals(2, renders.get());
+    }
+
+    @Test
+    public void testInvalidateAll() throws Exception {
+        execute(get("/movies"));
+        filter.invalidateAll();
+        execute(get("/movies"));
+        assertEquals(2, renders.get());
+    }
+
+    @Test
+    public void testRenderOverlappingAnInvalidationIsNotServedAfterIt() throws Exception {
+        String[] catalog = {"old"};
+        chain = (request, response) -> {
+            renders.incrementAndGet();
+            String page = "<html>" + catalog[0] + "</html>";
+            if (renders.get() == 1) {
+                // the catalog is swapped and the cache invalidated while this page renders
+                catalog[0] = "new";
+                filter.invalidateAll();
+            }
+            response.setContentType("text/html;charset=UTF-8");
+            response.getOutputStream().write(page.getBytes(StandardCharsets.UTF_8));
+        };
+
+        assertEquals("<html>old</html>", execute(get("/movies")).getContentAsString());
+        assertEquals("<html>new</html>", execute(get("/movies")).getContentAsString());
+        assertEquals(2, renders.get());
+        assertEquals("<html>new</html>", execute(get("/movies")).getContentAsString());
+        assertEquals(2, renders.get());
+    }
+
+    private MockHttpServletRequest get(String uri) {
+        return new MockHttpServletRequest("GET", uri);
+    }
+
+    private MockHttpServletResponse execute(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
@@ -0,0 +1,155 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReviewAggregatesTest {
+
+    private static Review review(double rating) {
+        return new Review("user", "x", rating, "comment");
+    }
+
+    private static ReviewAggregates aggregate(Map<Long, List<Review>> reviewsByMovie) {
+        ReviewColumns.Builder columns = new ReviewColumns.Builder();
+        reviewsByMovie.forEach((movieId, reviews) -> reviews.forEach(review -> columns.add(movieId, review)));
+        return ReviewAggregates.of(columns.build());
+    }
+
+    @Test
+    public void testAggregatesPerMovie() {
+        Map<Long, List<Review>> reviews = new HashMap<>();
+        reviews.put(1L, Arrays.asList(review(5.0), review(4.5), review(4.4)));
+        reviews.put(2L, Arrays.asList(review(1.0)));
+        ReviewAggregates aggregates = aggregate(reviews);
+
+        // 4 reviews over 2 movies: global mean 3.725, prior weight 2
+        assertEquals(3.725, aggregates.globalMean(), 1e-9);
+        assertEquals(2.0, aggregates.priorWeight(), 1e-9);
+
+        ReviewSummary first = aggregates.summary(1L);
+        assertEquals(3, first.getCount());
+        assertEquals(13.9 / 3, first.getAverageRating(), 1e-9);
+        assertEquals((2 * 3.725 + 13.9) / 5, first.getAudienceScore(), 1e-9);
+        int[] histogram = first.getHistogram();
+        assertEquals(ReviewAggregates.HISTOGRAM_BUCKETS, histogram.length);
+        assertEquals(1, histogram[10]);
+        assertEquals(2, histogram[9]);
+
+        ReviewSummary unreviewed = aggregates.summary(3L);
+        assertEquals(0, unreviewed.getCount());
+        assertEquals(3.725, unreviewed.getAudienceScore(), 1e-9);
+    }
+
+    @Test
+    public void testAppendedMatchesAggregatingEveryReviewAtOnce() {
+        ReviewColumns.Builder all = new ReviewColumns.Builder();
+        ReviewColumns.Builder base = new ReviewColumns.Builder();
+        ReviewColumns.Builder added = new ReviewColumns.Builder();
+        for (int i = 0; i < 60; i++) {
+            long movieId = 1 + i % 7 + (i >= 40 ? 5 : 0);
+            all.add(movieId, review(i % 11 / 2.0));
+            (i < 40 ? base : added).add(movieId, review(i % 11 / 2.0));
+        }
+        ReviewAggregates expected = ReviewAggregates.of(all.build());
+        ReviewAggregates appended = ReviewAggregates.of(base.build()).appended(added.build());
+
+        assertEquals(expected.size(), appended.size());
+        assertEquals(expected.globalMean(), appended.globalMean(), 1e-9);
+        assertEquals(expected.priorWeight(), appended.priorWeight(), 1e-9);
+        for (long movieId = 0; movieId <= 13; movieId++) {
+            ReviewSummary want = expected.summary(movieId);
+            ReviewSummary got = appended.summary(movieId);
+            assertEquals(want.getCount(), got.getCount());
+            assertEquals(want.getAverageRating(), got.getAverageRating(), 1e-9);
+            assertEquals(want.getAudienceScore(), got.getAudienceScore(), 1e-9);
+            assertArrayEquals(want.getHistogram(), got.getHistogram());
+        }
+    }
+
+    @Test
+    public void testBucketsRoundToHalfSteps() {
+        assertEquals(0, ReviewAggregates.bucket(-1.0));
+        assertEquals(0, ReviewAggregates.bucket(0.2));
+        assertEquals(1, ReviewAggregates.bucket(0.3));
+        assertEquals(7, ReviewAggregates.bucket(3.5));
+        assertEquals(10, ReviewAggregates.bucket(7.0));
+    }
+
+    @Test
+    public void testFewReviewsAreShrunkTowardsTheMean() {
+        Map<Long, List<Review>> reviews = new HashMap<>();
+        reviews.put(1L, Arrays.asList(review(5.0)));
+        reviews.put(2L, Arrays.asList(review(4.5), review(4.5), review(4.5), review(4.5), review(4.5),
+            review(4.5), review(4.5), review(4.5), review(4.5), review(4.5), review(4.5)));
+        reviews.put(3L, Arrays.asList(review(1.0), review(1.0), review(1.0), review(1.0), review(1.0), review(1.0)));
+        ReviewAggregates aggregates = aggregate(reviews);
+
+        assertTrue(aggregates.summary(2L).getAudienceScore() > aggregates.summary(1L).getAudienceScore());
+    }
+
+    @Test
+    public void testSearchFiltersAndSortsByAudienceScore(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("reviews.json");
+        Files.write(file, ("{\"1\": [{\"userName\": \"a\", \"avatarEmoji\": \"x\", \"rating\": 1.0, \"comment\": \"c\"}],"
+            + "\"2\": [{\"userName\": \"a\", \"avatarEmoji\": \"x\", \"rating\": 5.0, \"comment\": \"c\"},"
+            + "{\"userName\": \"b\", \"avatarEmoji\": \"x\", \"rating\": 5.0, \"comment\": \"c\"}],"
+            + "\"3\": [{\"userName\": \"a\", \"avatarEmoji\": \"x\", \"rating\": 4.0, \"comment\": \"c\"}]}")
+            .getBytes(StandardCharsets.UTF_8));
+        ReviewService reviewService = new ReviewService(file);
+        for (CatalogLayout layout : CatalogLayout.values()) {
+            MovieService movieService = new MovieService(new JsonMovieRepository(), new MovieService.Options()
+                .layout(layout)
+                .reviewService(reviewService));
+
+            Movie best = movieService.getMovieById(2L).get();
+            assertEquals(2, best.getAudience().getCount());
+            assertEquals(reviewService.getReviewSummary(2L).getAudienceScore(), best.getAudience().getAudienceScore());
+
+            MoviePage page = movieService.searchPage(null, null, null, new MovieRanges(null, null, null, null, null, null,
+                reviewService.getAggregates().globalMean() + 0.01, null), new MoviePageRequest(10, null, null, "audience"));
+            assertEquals(Arrays.asList(2L, 3L), page.getItems().stream().map(Movie::getId).collect(Collectors.toList()));
+
+            List<Movie> all = movieService.searchPage("e", null, null, new MoviePageRequest(100, null, null, "audience"))
+                .getItems();
+            for (int i = 1; i < all.size(); i++) {
+                assertTrue(MovieServiceTest.naturalOrder(MovieSort.AUDIENCE).compare(all.get(i - 1), all.get(i)) < 0);
+            }
+            assertEquals(1L, all.get(all.size() - 1).getId());
+        }
+    }
+
+    @Test
+    public void testRefreshReviewsAppliesReloadedAggregates(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("reviews.json");
+        Files.write(file, "{\"1\": [{\"userName\": \"a\", \"avatarEmoji\": \"x\", \"rating\": 2.0, \"comment\": \"c\"}]}"
+            .getBytes(StandardCharsets.UTF_8));
+        ReviewService reviewService = new ReviewService(file);
+        MovieService movieService = new MovieService(new JsonMovieRepository(),
+            new MovieService.Options().reviewService(reviewService));
+        assertFalse(movieService.refreshReviews());
+
+        Files.write(file, ("{\"1\": [{\"userName\": \"a\", \"avatarEmoji\": \"x\", \"rating\": 2.0, \"comment\": \"c\"},"
+            + "{\"userName\": \"b\", \"avatarEmoji\": \"x\", \"rating\": 3.0, \"comment\": \"c\"}]}")
+            .getBytes(StandardCharsets.UTF_8));
+        assertTrue(reviewService.reload());
+        assertEquals(1, movieService.getMovieById(1L).get().getAudience().getCount());
+        // the reloaded reviews are published together with their aggregates
+        assertEquals(1, reviewService.getReviewsForMovie(1L).size());
+        assertTrue(movieService.refreshReviews());
+        assertEquals(2, movieService.getMovieById(1L).get().getAudience().getCount());
+        assertEquals(2, reviewService.getReviewsForMovie(1L).size());
+        assertEquals(2, reviewService.getReviewSummary(1L).getCount());
+        assertEquals(2.5, movieService.getMovieById(1L).get().getAudience().getAverageRating(), 1e-9);
+    }
+}
@@ -0,0 +1,131 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReviewColumnsTest {
+
+    @Test
+    public void testBuilderGroupsReviewsByMovieInSourceOrder() {
+        ReviewColumns.Builder builder = new ReviewColumns.Builder();
+        builder.add(9L, new Review("first", "🎬", 2.0, "Plutôt bien"));
+        builder.add(3L, new Review("second", "🍿", 4.5, "Great"));
+        builder.add(9L, new Review("third", "🎥", 5.0, ""));
+        for (int i = 0; i < 100; i++) {
+            builder.add(5L, new Review("user" + i, "x", i % 5, "comment " + i));
+        }
+        ReviewColumns columns = builder.build();
+
+        assertEquals(3, columns.movieCount());
+        assertEquals(3L, columns.movieIdAt(0));
+        List<Review> nine = columns.reviewsOf(9L);
+        assertEquals(2, nine.size());
+        assertEquals("first", nine.get(0).getUserName());
+        assertEquals("🎬", nine.get(0).getAvatarEmoji());
+        assertEquals("Plutôt bien", nine.get(0).getComment());
+        assertEquals("third", nine.get(1).getUserName());
+        assertEquals("", nine.get(1).getComment());
+        assertEquals("comment 99", columns.reviewsOf(5L).get(99).getComment());
+        assertTrue(columns.reviewsOf(4L).isEmpty());
+        assertThrows(IndexOutOfBoundsException.class, () -> nine.get(2));
+    }
+
+    @Test
+    public void testRatingOrderIsStable() {
+        ReviewColumns.Builder builder = new ReviewColumns.Builder();
+        double[] ratings = {3.0, 5.0, 3.0, 4.0};
+        for (int i = 0; i < ratings.length; i++) {
+            builder.add(1L, new Review("u" + i, "x", ratings[i], "c"));
+        }
+        ReviewColumns columns = builder.build();
+
+        int[] expected = {1, 3, 0, 2};
+        for (int rank = 0; rank < expected.length; rank++) {
+            assertEquals(expected[rank], columns.indexAt(0, ReviewSort.RATING, rank));
+            assertEquals(rank, columns.indexAt(0, ReviewSort.SOURCE, rank));
+        }
+    }
+
+    @Test
+    public void testAppendedMatchesBuildingEveryReviewAtOnce() {
+        Random random = new Random(7);
+        ReviewColumns.Builder all = new ReviewColumns.Builder();
+        ReviewColumns.Builder base = new ReviewColumns.Builder();
+        ReviewColumns.Builder added = new ReviewColumns.Builder();
+        for (int i = 0; i < 400; i++) {
+            long movieId = 1 + random.nextInt(12);
+            Review review = new Review("user" + i, i % 2 == 0 ? "🎬" : "x", random.nextInt(11) / 2.0, "comment é " + i);
+            all.add(movieId, review);
+            (i < 300 ? base : added).add(movieId, review);
+        }
+        ReviewColumns expected = all.build();
+        ReviewColumns appended = base.build().appended(added.build());
+
+        assertSameReviews(expected, appended);
+        assertSame(expected, expected.appended(ReviewColumns.EMPTY));
+        assertEquals(expected.reviewsOf(1L).size(), ReviewColumns.EMPTY.appended(expected).reviewsOf(1L).size());
+    }
+
+    @Test
+    public void testAppendingLeavesEarlierStoresIntact() {
+        ReviewColumns.Builder all = new ReviewColumns.Builder();
+        ReviewColumns store = ReviewColumns.EMPTY;
+        List<ReviewColumns> versions = new ArrayList<>();
+        for (int batch = 0; batch < 20; batch++) {
+            ReviewColumns.Builder added = new ReviewColumns.Builder();
+            for (int i = 0; i < 5; i++) {
+                Review review = new Review("user" + batch + "-" + i, "x", (batch + i) % 11 / 2.0, "comment " + batch);
+                added.add(batch % 3 + i % 2, review);
+                all.add(batch % 3 + i % 2, review);
+            }
+            store = store.appended(added.build());
+            versions.add(store);
+        }
+        assertSameReviews(all.build(), store);
+        assertEquals(5, versions.get(0).size());
+        assertEquals("user0-3", versions.get(0).reviewsOf(1L).get(versions.get(0).reviewsOf(1L).size() - 1).getUserName());
+
+        // a second store appended to the same one gets arrays of its own
+        ReviewColumns.Builder other = new ReviewColumns.Builder();
+        other.add(0L, new Review("other", "x", 1.0, "forked"));
+        ReviewColumns forked = versions.get(10).appended(other.build());
+        ReviewColumns.Builder again = new ReviewColumns.Builder();
+        again.add(0L, new Review("again", "x", 1.0, "forked again"));
+        ReviewColumns forkedAgain = versions.get(10).appended(again.build());
+        List<Review> reviews = forked.reviewsOf(0L);
+        assertEquals("other", reviews.get(reviews.size() - 1).getUserName());
+        assertEquals("forked", reviews.get(reviews.size() - 1).getComment());
+        assertEquals("again", forkedAgain.reviewsOf(0L).get(reviews.size() - 1).getUserName());
+        assertSameReviews(all.build(), store);
+    }
+
+    private static void assertSameReviews(ReviewColumns expected, ReviewColumns actual) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.movieCount(), actual.movieCount());
+        for (int movie = 0; movie < expected.movieCount(); movie++) {
+            assertEquals(expected.movieIdAt(movie), actual.movieIdAt(movie));
+            assertEquals(expected.count(movie), actual.count(movie));
+            for (int rank = 0; rank < expected.count(movie); rank++) {
+                assertEquals(expected.indexAt(movie, ReviewSort.RATING, rank),
+                    actual.indexAt(movie, ReviewSort.RATING, rank));
+                Review want = expected.review(movie, rank);
+                Review got = actual.review(movie, rank);
+                assertEquals(want.getUserName(), got.getUserName());
+                assertEquals(want.getAvatarEmoji(), got.getAvatarEmoji());
+                assertEquals(want.getComment(), got.getComment());
+                assertEquals(want.getRating(), got.getRating());
+            }
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        assertEquals(0, ReviewColumns.EMPTY.movieCount());
+        assertTrue(ReviewColumns.EMPTY.reviewsOf(1L).isEmpty());
+    }
+}
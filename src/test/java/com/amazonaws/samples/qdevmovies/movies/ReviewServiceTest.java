@@ -0,0 +1,149 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReviewServiceTest {
+
+    private ReviewService reviewService;
+
+    @BeforeEach
+    public void setUp() {
+        reviewService = new ReviewService();
+    }
+
+    @Test
+    public void testGetReviewsForMovie() {
+        List<Review> reviews = reviewService.getReviewsForMovie(1L);
+        assertEquals(3, reviews.size());
+        assertEquals("MovieBuff87", reviews.get(0).getUserName());
+        assertEquals(5.0, reviews.get(0).getRating());
+    }
+
+    @Test
+    public void testGetReviewsForUnknownMovie() {
+        assertTrue(reviewService.getReviewsForMovie(999L).isEmpty());
+    }
+
+    @Test
+    public void testReviewsAreLoadedOnce() {
+        assertSame(reviewService.getReviewsForMovie(2L), reviewService.getReviewsForMovie(2L));
+    }
+
+    @Test
+    public void testReviewsAreImmutable() {
+        List<Review> reviews = reviewService.getReviewsForMovie(1L);
+        assertThrows(UnsupportedOperationException.class, () -> reviews.add(reviews.get(0)));
+    }
+
+    @Test
+    public void testReloadPublishesNewStore() {
+        List<Review> before = reviewService.getReviewsForMovie(1L);
+        assertTrue(reviewService.reload());
+        List<Review> after = reviewService.getReviewsForMovie(1L);
+        assertNotSame(before, after);
+        assertEquals(before.size(), after.size());
+    }
+
+    @Test
+    public void testLoadReviewsKeyedById() {
+        String json = "{\"42\": [{\"userName\": \"Ann\", \"avatarEmoji\": \"x\", \"rating\": 3.5, \"comment\": \"ok\"}]}";
+        ReviewColumns reviews =
+            ReviewService.loadReviews(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(1, reviews.movieCount());
+        assertEquals("Ann", reviews.reviewsOf(42L).get(0).getUserName());
+        assertEquals(3.5, reviews.reviewsOf(42L).get(0).getRating());
+    }
+
+    @Test
+    public void testReviewSummary() {
+        List<Review> reviews = reviewService.getReviewsForMovie(1L);
+        ReviewSummary summary = reviewService.getReviewSummary(1L);
+        assertEquals(reviews.size(), summary.getCount());
+        assertEquals(reviews.stream().mapToDouble(Review::getRating).average().getAsDouble(), summary.getAverageRating(), 1e-9);
+        assertEquals(0, reviewService.getReviewSummary(999L).getCount());
+    }
+
+    private static ReviewService serviceWith(double... ratings) throws Exception {
+        StringBuilder json = new StringBuilder("{\"7\": [");
+        for (int i = 0; i < ratings.length; i++) {
+            json.append(i > 0 ? "," : "").append("{\"userName\": \"u").append(i)
+                .append("\", \"avatarEmoji\": \"x\", \"rating\": ").append(ratings[i])
+                .append(", \"comment\": \"c\"}");
+        }
+        Path file = Files.createTempFile("reviews", ".json");
+        file.toFile().deleteOnExit();
+        Files.write(file, json.append("]}").toString().getBytes(StandardCharsets.UTF_8));
+        return new ReviewService(file);
+    }
+
+    private static List<String> users(ReviewPage page) {
+        return page.getItems().stream().map(Review::getUserName).collect(Collectors.toList());
+    }
+
+    private static List<String> walk(ReviewService service, String sort, String order, int limit) {
+        List<String> users = new ArrayList<>();
+        ReviewPage page = service.getReviewsPage(7L, new ReviewPageRequest(limit, null, null, sort, order));
+        users.addAll(users(page));
+        while (page.isHasMore()) {
+            page = service.getReviewsPage(7L, new ReviewPageRequest(limit, null, page.getNextCursor(), null, null));
+            users.addAll(users(page));
+        }
+        return users;
+    }
+
+    @Test
+    public void testReviewsPageByOffset() throws Exception {
+        ReviewService service = serviceWith(3.0, 5.0, 1.0, 4.0, 2.0);
+        ReviewPage page = service.getReviewsPage(7L, new ReviewPageRequest(2, 3, null, null, null));
+        assertEquals(Arrays.asList("u3", "u4"), users(page));
+        assertEquals(5, page.getTotalReviews());
+        assertFalse(page.isHasMore());
+
+        page = service.getReviewsPage(7L, new ReviewPageRequest(2, 1, null, "rating", null));
+        assertEquals(Arrays.asList("u3", "u0"), users(page));
+        assertTrue(page.isHasMore());
+    }
+
+    @Test
+    public void testReviewsPageCursorsWalkEveryOrder() throws Exception {
+        ReviewService service = serviceWith(3.0, 5.0, 3.0, 1.0, 5.0, 3.0, 2.0);
+        assertEquals(Arrays.asList("u0", "u1", "u2", "u3", "u4", "u5", "u6"), walk(service, null, null, 2));
+        assertEquals(Arrays.asList("u6", "u5", "u4", "u3", "u2", "u1", "u0"), walk(service, "source", "desc", 3));
+        assertEquals(Arrays.asList("u1", "u4", "u0", "u2", "u5", "u6", "u3"), walk(service, "rating", null, 2));
+        assertEquals(Arrays.asList("u3", "u6", "u5", "u2", "u0", "u4", "u1"), walk(service, "rating", "asc", 3));
+        assertEquals(7, walk(service, "rating", null, 100).size());
+    }
+
+    @Test
+    public void testReviewsPageOfUnknownMovie() {
+        ReviewPage page = reviewService.getReviewsPage(999L, new ReviewPageRequest());
+        assertTrue(page.getItems().isEmpty());
+        assertEquals(0, page.getTotalReviews());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void testReviewsPageRejectsBadParameters() throws Exception {
+        ReviewService service = serviceWith(3.0, 5.0, 1.0);
+        assertThrows(IllegalArgumentException.class,
+            () -> service.getReviewsPage(7L, new ReviewPageRequest(null, null, null, "helpful", null)));
+        assertThrows(IllegalArgumentException.class,
+            () -> service.getReviewsPage(7L, new ReviewPageRequest(null, null, "not-a-cursor", null, null)));
+        String cursor = service.getReviewsPage(7L, new ReviewPageRequest(1, null, null, "rating", null)).getNextCursor();
+        assertThrows(IllegalArgumentException.class,
+            () -> service.getReviewsPage(7L, new ReviewPageRequest(1, null, cursor, "source", null)));
+        assertEquals(1, service.getReviewsPage(7L, new ReviewPageRequest(1, null, cursor, "rating", "desc")).getItems().size());
+    }
+}
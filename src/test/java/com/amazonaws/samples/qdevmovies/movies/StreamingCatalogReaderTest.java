@@ -0,0 +1,73 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.json.JSONException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreamingCatalogReaderTest {
+
+    @Test
+    public void testReadMoviesArrayLayout() {
+        String json = "[{\"id\": 7, \"movieName\": \"Seven\", \"director\": \"D\", \"year\": 1995, \"genre\": \"Crime\","
+            + " \"description\": \"d\", \"duration\": 127, \"imdbRating\": 4.5},"
+            + " {\"id\": 8, \"movieName\": \"Eight\", \"director\": \"E\", \"year\": 2001, \"genre\": \"Drama\","
+            + " \"description\": \"e\", \"duration\": 90, \"imdbRating\": 3.0}]";
+        List<Movie> movies = new ArrayList<>();
+        assertEquals(2, StreamingCatalogReader.readMovies(stream(json), movies::add));
+        assertEquals(7L, movies.get(0).getId());
+        assertEquals("Seven", movies.get(0).getMovieName());
+        assertEquals(4.5, movies.get(0).getImdbRating());
+        assertEquals("Eight", movies.get(1).getMovieName());
+    }
+
+    @Test
+    public void testReadMoviesFromClasspathCatalog() {
+        List<Movie> movies = new ArrayList<>();
+        StreamingCatalogReader.readMovies(getClass().getClassLoader().getResourceAsStream("movies.json"), movies::add);
+        assertEquals(12, movies.size());
+    }
+
+    @Test
+    public void testReadEmptyArray() {
+        assertEquals(0, StreamingCatalogReader.readMovies(stream(" [ ] "), movie -> fail()));
+    }
+
+    @Test
+    public void testReadReviewsObjectLayout() {
+        String json = "{\"1\": [{\"userName\": \"A\", \"avatarEmoji\": \"a\", \"rating\": 5.0, \"comment\": \"x\"},"
+            + " {\"userName\": \"B\", \"avatarEmoji\": \"b\", \"rating\": 4.0, \"comment\": \"y\"}],"
+            + " \"2\": [], \"3\": [{\"userName\": \"C\", \"avatarEmoji\": \"c\", \"rating\": 1.5, \"comment\": \"z\"}]}";
+        List<String> seen = new ArrayList<>();
+        int count = StreamingCatalogReader.readReviews(stream(json),
+            (movieId, review) -> seen.add(movieId + ":" + review.getUserName()));
+        assertEquals(3, count);
+        assertEquals(3, seen.size());
+        assertEquals("1:A", seen.get(0));
+        assertEquals("1:B", seen.get(1));
+        assertEquals("3:C", seen.get(2));
+    }
+
+    @Test
+    public void testReadEmptyReviewObject() {
+        assertEquals(0, StreamingCatalogReader.readReviews(stream("{}"), (movieId, review) -> fail()));
+    }
+
+    @Test
+    public void testMalformedInputIsRejected() {
+        assertThrows(JSONException.class, () -> StreamingCatalogReader.readMovies(stream("{\"id\": 1}"), movie -> { }));
+        assertThrows(JSONException.class, () -> StreamingCatalogReader.readMovies(stream("[1, 2]"), movie -> { }));
+        assertThrows(JSONException.class,
+            () -> StreamingCatalogReader.readReviews(stream("{\"abc\": []}"), (movieId, review) -> { }));
+    }
+
+    private static InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
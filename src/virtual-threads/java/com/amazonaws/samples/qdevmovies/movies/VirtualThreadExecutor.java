@@ -0,0 +1,31 @@
+package com.amazonaws.samples.qdevmovies.movies;
+
+import org.apache.coyote.ProtocolHandler;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+
+/**
+ * Runs every Tomcat request on its own virtual thread instead of the bounded worker pool.
+ * <p>
+ * Only compiled by the {@code virtual-threads} Maven profile, which builds for Java 21.
+ * With an external executor Tomcat ignores {@code server.tomcat.threads.*};
+ * {@code server.tomcat.max-connections} still caps how many requests are in flight.
+ * Set {@code movies.virtual-threads.enabled=false} to fall back to the platform-thread pool
+ * with the same build.
+ */
+@Component
+@ConditionalOnProperty(name = "movies.virtual-threads.enabled", havingValue = "true", matchIfMissing = true)
+public class VirtualThreadExecutor implements TomcatProtocolHandlerCustomizer<ProtocolHandler> {
+    private static final Logger logger = LogManager.getLogger(VirtualThreadExecutor.class);
+
+    @Override
+    public void customize(ProtocolHandler protocolHandler) {
+        protocolHandler.setExecutor(Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-vt-", 0).factory()));
+        logger.info("Tomcat requests run on virtual threads");
+    }
+}